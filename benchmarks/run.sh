@@ -0,0 +1,15 @@
+#!/usr/bin/env sh
+# Builds the API, the benchmark jar and runs every benchmark with the GC
+# (allocation) profiler. Results: benchmarks/target/jmh-result.json
+# Extra arguments go to JMH, e.g.  ./benchmarks/run.sh CapacityBenchmark -p products=1000
+set -e
+
+cd "$(dirname "$0")/.."
+
+mvn -B -q -f code-with-quarkus/pom.xml install -DskipTests
+mvn -B -q -f benchmarks/pom.xml package
+
+java -jar benchmarks/target/benchmarks.jar \
+    -prof gc \
+    -rf json -rff benchmarks/target/jmh-result.json \
+    "$@"
@@ -0,0 +1,95 @@
+package org.acme.inventory.api;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.acme.inventory.api.ProductionCheckResource.ProductionCheckResult;
+import org.acme.inventory.api.ProductionPriorityResource.PriorityEntry;
+import org.acme.inventory.bench.SyntheticCatalog;
+import org.acme.inventory.service.CapacityIndex.ProductCapacity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The response-building loops of /production-priority (filter + sort by
+ * unit price, and the bounded top-K of {@code ?limit=}) and /production-check,
+ * fed from the resident index entries. {@code prioritySortMaps} keeps the
+ * former HashMap-per-entry version for comparison; run with {@code -prof gc}
+ * to compare {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriorityBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int products;
+
+    @Param({"8"})
+    int fanOut;
+
+    List<ProductCapacity> capacities;
+
+    @Setup
+    public void setup() {
+        capacities = new SyntheticCatalog(products, fanOut).capacities();
+    }
+
+    @Param({"50"})
+    int limit;
+
+    @Benchmark
+    public List<PriorityEntry> prioritySort() {
+        return ProductionPriorityResource.prioritize(capacities);
+    }
+
+    @Benchmark
+    public List<PriorityEntry> priorityTopK() {
+        return ProductionPriorityResource.prioritize(capacities, 1, limit);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> prioritySortMaps() {
+        return prioritizeMaps(capacities);
+    }
+
+    /** The endpoint before the typed entries: one HashMap per product, sorted by stream. */
+    static List<Map<String, Object>> prioritizeMaps(List<ProductCapacity> capacities) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (ProductCapacity c : capacities) {
+            int maxPossible = c.maxCanProduce();
+            if (maxPossible > 0) {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("productId", c.productId());
+                entry.put("name", c.productName());
+                entry.put("unitPrice", c.unitPrice());
+                entry.put("maxQuantity", maxPossible);
+                result.add(entry);
+            }
+        }
+        return result.stream()
+                .sorted((a, b) -> Double.compare((double) b.get("unitPrice"), (double) a.get("unitPrice")))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ProductionCheckResult> productionCheck() {
+        return ProductionCheckResource.toResults(capacities);
+    }
+}
@@ -0,0 +1,105 @@
+package org.acme.inventory.api;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.acme.inventory.api.ProductionCheckResource.ProductionCheckResult;
+import org.acme.inventory.api.ProductionPriorityResource.PriorityEntry;
+import org.acme.inventory.bench.SyntheticCatalog;
+import org.acme.inventory.domain.MaterialUsage;
+import org.acme.inventory.domain.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+
+/**
+ * Jackson serialization of the list endpoints' payloads: plain entities for
+ * /products and /material-usage (with the nested product and raw material)
+ * the /production-check DTOs and /production-priority, typed entries with
+ * their direct serializer against the same records serialized by bean
+ * introspection and against the former map per entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1000", "10000"})
+    int products;
+
+    @Param({"8"})
+    int fanOut;
+
+    ObjectMapper mapper;
+    ObjectMapper introspected;
+    List<Product> productList;
+    List<MaterialUsage> materialUsageList;
+    List<ProductionCheckResult> productionCheck;
+    List<PriorityEntry> priority;
+    List<Map<String, Object>> priorityMaps;
+
+    @Setup
+    public void setup() {
+        SyntheticCatalog catalog = new SyntheticCatalog(products, fanOut);
+        mapper = new ObjectMapper();
+        // ignora o @JsonSerialize: mede só o ganho do serializador próprio
+        introspected = new ObjectMapper().setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+            @Override
+            public Object findSerializer(Annotated annotated) {
+                return null;
+            }
+        });
+        productList = catalog.productEntities();
+        materialUsageList = catalog.materialUsageEntities();
+        productionCheck = ProductionCheckResource.toResults(catalog.capacities());
+        priority = ProductionPriorityResource.prioritize(catalog.capacities());
+        priorityMaps = PriorityBenchmark.prioritizeMaps(catalog.capacities());
+    }
+
+    @Benchmark
+    public byte[] products() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(productList);
+    }
+
+    @Benchmark
+    public byte[] materialUsage() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(materialUsageList);
+    }
+
+    @Benchmark
+    public byte[] productionCheck() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(productionCheck);
+    }
+
+    @Benchmark
+    public byte[] priority() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(priority);
+    }
+
+    @Benchmark
+    public byte[] priorityIntrospected() throws JsonProcessingException {
+        return introspected.writeValueAsBytes(priority);
+    }
+
+    @Benchmark
+    public byte[] priorityMaps() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(priorityMaps);
+    }
+}
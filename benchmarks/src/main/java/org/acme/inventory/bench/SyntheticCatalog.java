@@ -0,0 +1,127 @@
+package org.acme.inventory.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.acme.inventory.domain.MaterialUsage;
+import org.acme.inventory.domain.Product;
+import org.acme.inventory.domain.RawMaterial;
+import org.acme.inventory.service.BomSnapshot;
+import org.acme.inventory.service.CapacityIndex.ProductCapacity;
+
+/**
+ * Deterministic synthetic catalog: {@code products} products, each with
+ * {@code fanOut} distinct raw materials drawn from a pool of
+ * {@code max(100, products / 10)} materials.
+ */
+public final class SyntheticCatalog {
+
+    private static final long SEED = 42L;
+
+    public final int products;
+    public final int fanOut;
+    public final int materials;
+
+    private final long[] stock;
+    private final int[][] lineMaterial;
+    private final int[][] lineConsumption;
+    private final double[] unitPrice;
+    private final String[] productName;
+
+    public SyntheticCatalog(int products, int fanOut) {
+        this.products = products;
+        this.fanOut = fanOut;
+        this.materials = Math.max(100, products / 10);
+
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        stock = new long[materials];
+        for (int m = 0; m < materials; m++) {
+            stock[m] = random.nextInt(100_000);
+        }
+
+        lineMaterial = new int[products][];
+        lineConsumption = new int[products][];
+        unitPrice = new double[products];
+        productName = new String[products];
+        for (int p = 0; p < products; p++) {
+            // materiais distintos e em ordem crescente, como no BOM_ORDER do CapacityEngine
+            int[] chosen = random.ints(0, materials).distinct().limit(Math.min(fanOut, materials)).sorted().toArray();
+            lineMaterial[p] = chosen;
+            lineConsumption[p] = random.ints(chosen.length, 1, 50).toArray();
+            unitPrice[p] = 1 + random.nextInt(100_000) / 100.0;
+            productName[p] = "Product " + (p + 1);
+        }
+    }
+
+    public BomSnapshot snapshot() {
+        BomSnapshot.Builder builder = new BomSnapshot.Builder();
+        for (int p = 0; p < products; p++) {
+            for (int l = 0; l < lineMaterial[p].length; l++) {
+                int m = lineMaterial[p][l];
+                builder.addLine(p + 1, productName[p], unitPrice[p],
+                        m + 1, stock[m], lineConsumption[p][l]);
+            }
+        }
+        return builder.build();
+    }
+
+    public List<ProductCapacity> capacities() {
+        BomSnapshot bom = snapshot();
+        List<ProductCapacity> result = new ArrayList<>(bom.productCount());
+        for (int p = 0; p < bom.productCount(); p++) {
+            long[] materialIds = new long[bom.lineStart[p + 1] - bom.lineStart[p]];
+            for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+                materialIds[l - bom.lineStart[p]] = bom.materialIds[bom.lineMaterial[l]];
+            }
+            result.add(new ProductCapacity(bom.productIds[p], bom.productNames[p], bom.unitPrices[p],
+                    bom.maxCanProduce(p), materialIds));
+        }
+        return result;
+    }
+
+    public List<Product> productEntities() {
+        List<Product> result = new ArrayList<>(products);
+        for (int p = 0; p < products; p++) {
+            result.add(product(p));
+        }
+        return result;
+    }
+
+    public List<MaterialUsage> materialUsageEntities() {
+        RawMaterial[] rawMaterials = new RawMaterial[materials];
+        for (int m = 0; m < materials; m++) {
+            RawMaterial rm = new RawMaterial();
+            rm.id = (long) m + 1;
+            rm.code = "RM-" + (m + 1);
+            rm.description = "Raw material " + (m + 1);
+            rm.availableStock = (int) stock[m];
+            rawMaterials[m] = rm;
+        }
+
+        List<MaterialUsage> result = new ArrayList<>();
+        long id = 1;
+        for (int p = 0; p < products; p++) {
+            Product product = product(p);
+            for (int l = 0; l < lineMaterial[p].length; l++) {
+                MaterialUsage usage = new MaterialUsage();
+                usage.id = id++;
+                usage.product = product;
+                usage.rawMaterial = rawMaterials[lineMaterial[p][l]];
+                usage.consumptionPerUnit = lineConsumption[p][l];
+                result.add(usage);
+            }
+        }
+        return result;
+    }
+
+    private Product product(int p) {
+        Product product = new Product();
+        product.id = (long) p + 1;
+        product.code = "P-" + (p + 1);
+        product.name = productName[p];
+        product.unitPrice = unitPrice[p];
+        return product;
+    }
+}
@@ -0,0 +1,54 @@
+package org.acme.inventory.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.acme.inventory.bench.SyntheticCatalog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Max-producible computation over the CSR BOM snapshot, and the cost of
+ * building that snapshot from the rows of the BOM projection query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CapacityBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int products;
+
+    @Param({"2", "8", "32"})
+    int fanOut;
+
+    SyntheticCatalog catalog;
+    BomSnapshot bom;
+
+    @Setup
+    public void setup() {
+        catalog = new SyntheticCatalog(products, fanOut);
+        bom = catalog.snapshot();
+    }
+
+    @Benchmark
+    public int[] maxCanProduce() {
+        return bom.maxCanProduce();
+    }
+
+    @Benchmark
+    public BomSnapshot buildSnapshot() {
+        return catalog.snapshot();
+    }
+}
@@ -8,26 +8,39 @@ import jakarta.ws.rs.ext.Provider;
 @Provider
 public class CorsFilter implements ContainerResponseFilter {
 
+    public static final String ALLOW_HEADERS = "origin, content-type, accept, authorization, x-requested-with, if-none-match, idempotency-key";
+    public static final String EXPOSE_HEADERS = "etag, x-next-after, idempotent-replayed";
+    public static final String ALLOW_METHODS = "GET, POST, PUT, DELETE, OPTIONS";
+
+    // DEV: allow only localhost / 127.0.0.1 (any port)
+    public static boolean isAllowedOrigin(String origin) {
+        return origin != null && (origin.startsWith("http://localhost:") || origin.startsWith("http://127.0.0.1:"));
+    }
+
     @Override
     public void filter(ContainerRequestContext requestContext,
                        ContainerResponseContext responseContext) {
 
         String origin = requestContext.getHeaderString("Origin");
 
-        // DEV: allow only localhost / 127.0.0.1 (any port)
-        if (origin != null && (origin.startsWith("http://localhost:") || origin.startsWith("http://127.0.0.1:"))) {
+        if (isAllowedOrigin(origin)) {
             responseContext.getHeaders().putSingle("Access-Control-Allow-Origin", origin);
-            responseContext.getHeaders().putSingle("Vary", "Origin");
+            responseContext.getHeaders().add("Vary", "Origin");
         }
 
         responseContext.getHeaders().putSingle(
                 "Access-Control-Allow-Headers",
-                "origin, content-type, accept, authorization, x-requested-with"
+                ALLOW_HEADERS
         );
 
         responseContext.getHeaders().putSingle(
                 "Access-Control-Allow-Methods",
-                "GET, POST, PUT, DELETE, OPTIONS"
+                ALLOW_METHODS
+        );
+
+        responseContext.getHeaders().putSingle(
+                "Access-Control-Expose-Headers",
+                EXPOSE_HEADERS
         );
     }
 }
@@ -0,0 +1,57 @@
+package org.acme.inventory;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
+import io.quarkus.logging.Log;
+import io.quarkus.vertx.http.HttpServerOptionsCustomizer;
+import io.vertx.core.http.HttpServerOptions;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Response compression details that {@code quarkus.http.*} does not cover:
+ * bodies up to {@code inventory.http.compression-threshold} bytes go out
+ * uncompressed (gzip would only add latency and header overhead there), and
+ * brotli is offered next to gzip/deflate when the brotli4j native library is
+ * on the classpath ({@code -Pbrotli}). Compression itself is switched on by
+ * {@code quarkus.http.enable-compression}.
+ */
+@ApplicationScoped
+public class HttpCompression implements HttpServerOptionsCustomizer {
+
+    @ConfigProperty(name = "inventory.http.compression-threshold", defaultValue = "1024")
+    int threshold;
+
+    @ConfigProperty(name = "quarkus.http.compression-level", defaultValue = "6")
+    int level;
+
+    @Override
+    public void customizeHttpServer(HttpServerOptions options) {
+        customize(options);
+    }
+
+    @Override
+    public void customizeHttpsServer(HttpServerOptions options) {
+        customize(options);
+    }
+
+    private void customize(HttpServerOptions options) {
+        if (!options.isCompressionSupported()) {
+            return;
+        }
+        options.setCompressionContentSizeThreshold(threshold);
+
+        if (Brotli.isAvailable()) {
+            if (options.getCompressors() == null || options.getCompressors().isEmpty()) {
+                // lista própria substitui o padrão: mantém gzip e deflate
+                options.addCompressor(StandardCompressionOptions.gzip(level, 15, 8));
+                options.addCompressor(StandardCompressionOptions.deflate(level, 15, 8));
+            }
+            options.addCompressor(StandardCompressionOptions.brotli());
+        } else {
+            // sem o nativo (perfil brotli) o Netty não tem encoder: fica só gzip/deflate
+            Log.info("HTTP compression: brotli4j not available, offering gzip/deflate only");
+        }
+    }
+}
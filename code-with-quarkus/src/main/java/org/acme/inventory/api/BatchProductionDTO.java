@@ -0,0 +1,16 @@
+package org.acme.inventory.api;
+
+import java.util.List;
+
+public class BatchProductionDTO {
+
+    public enum Mode { ALL_OR_NOTHING, BEST_EFFORT }
+
+    public Mode mode;
+    public List<Line> lines;
+
+    public static class Line {
+        public Long productId;
+        public Integer quantity;
+    }
+}
@@ -0,0 +1,47 @@
+package org.acme.inventory.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Writes any entity as CBOR or Smile for the methods that list those types
+ * in {@code @Produces}. Raw bodies (bytes, strings, streams) are left to
+ * the built-in writers.
+ */
+@Provider
+@Produces({ BinaryFormats.CBOR, BinaryFormats.SMILE })
+public class BinaryBodyWriter implements MessageBodyWriter<Object> {
+
+    @Inject
+    BinaryFormats formats;
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return formats.mapper(mediaType) != null
+                && type != byte[].class && type != String.class
+                && !StreamingOutput.class.isAssignableFrom(type) && !InputStream.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException {
+        // o stream é do servidor: não fechar
+        formats.mapper(mediaType).writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValue(entityStream, entity);
+    }
+}
@@ -0,0 +1,120 @@
+package org.acme.inventory.api;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Binary alternatives to JSON for the bulk reads, chosen by {@code Accept}:
+ * CBOR ({@value #CBOR}) and Smile ({@value #SMILE}). Both are written by
+ * copies of the application {@link ObjectMapper}, so field names, modules
+ * and {@code @JsonIgnore}s are the same as in the JSON responses.
+ */
+@ApplicationScoped
+public class BinaryFormats {
+
+    public static final String CBOR = "application/cbor";
+    public static final String SMILE = "application/x-jackson-smile";
+
+    public static final MediaType CBOR_TYPE = MediaType.valueOf(CBOR);
+    public static final MediaType SMILE_TYPE = MediaType.valueOf(SMILE);
+
+    // ordem do servidor quando um curinga aceita mais de um formato
+    private static final List<MediaType> OFFERED = List.of(MediaType.APPLICATION_JSON_TYPE, CBOR_TYPE, SMILE_TYPE);
+
+    @Inject
+    ObjectMapper mapper;
+
+    private ObjectMapper cbor;
+    private ObjectMapper smile;
+
+    @PostConstruct
+    void init() {
+        cbor = mapper.copyWith(new CBORFactory());
+        smile = mapper.copyWith(new SmileFactory());
+    }
+
+    /** Mapper for a binary media type, {@code null} for anything else. */
+    public ObjectMapper mapper(MediaType type) {
+        if (type == null) {
+            return null;
+        }
+        if (CBOR_TYPE.isCompatible(type)) {
+            return cbor;
+        }
+        if (SMILE_TYPE.isCompatible(type)) {
+            return smile;
+        }
+        return null;
+    }
+
+    /**
+     * The first of JSON, CBOR or Smile the client accepts, in the client's
+     * order of preference; {@code null} if it accepts none of them. A
+     * format refused with {@code q=0} by its most specific range is skipped,
+     * also when a wildcard would match it.
+     */
+    public static MediaType negotiate(List<MediaType> acceptable) {
+        for (MediaType type : acceptable) {
+            if (quality(type) == 0) {
+                continue;
+            }
+            for (MediaType offered : OFFERED) {
+                if (type.isCompatible(offered) && quality(offered, acceptable) > 0) {
+                    return offered;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** The q of the most specific range in {@code acceptable} that matches {@code offered}. */
+    private static double quality(MediaType offered, List<MediaType> acceptable) {
+        double q = 0;
+        int specificity = -1;
+        for (MediaType type : acceptable) {
+            if (!type.isCompatible(offered)) {
+                continue;
+            }
+            // */* < tipo/* < tipo/subtipo
+            int s = type.isWildcardType() ? 0 : type.isWildcardSubtype() ? 1 : 2;
+            if (s > specificity) {
+                specificity = s;
+                q = quality(type);
+            }
+        }
+        return q;
+    }
+
+    private static double quality(MediaType type) {
+        String q = type.getParameters().get("q");
+        if (q == null) {
+            return 1;
+        }
+        try {
+            return Double.parseDouble(q);
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * ETag variant for the format {@link #negotiate} picked: {@code null}
+     * (same tag as before) for JSON, the media type for CBOR and Smile. Two
+     * {@code Accept} headers that get the same body share one tag, and a
+     * cached JSON body is never revalidated for a CBOR or Smile request.
+     */
+    public static String variant(MediaType negotiated) {
+        if (negotiated == null || MediaType.APPLICATION_JSON_TYPE.isCompatible(negotiated)) {
+            return null;
+        }
+        return negotiated.getType() + "/" + negotiated.getSubtype();
+    }
+}
@@ -0,0 +1,30 @@
+package org.acme.inventory.api;
+
+import java.util.List;
+
+import org.acme.inventory.service.SecondLevelCache;
+import org.acme.inventory.service.SecondLevelCache.RegionStats;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+
+@Path("/admin/cache-stats")
+@Produces(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
+public class CacheStatsResource {
+
+    @Inject
+    SecondLevelCache cache;
+
+    // =========================
+    // ACERTOS / FALHAS DO CACHE DE SEGUNDO NÍVEL POR REGIÃO
+    // =========================
+    @GET
+    public List<RegionStats> stats() {
+        return cache.stats();
+    }
+}
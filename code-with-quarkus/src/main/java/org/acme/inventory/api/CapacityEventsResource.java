@@ -0,0 +1,33 @@
+package org.acme.inventory.api;
+
+import org.acme.inventory.service.CapacityEvents;
+
+import io.smallrye.common.annotation.NonBlocking;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+/**
+ * SSE stream replacing polling of /production-check and /production-priority:
+ * a {@code snapshot} event on connect (and whenever the client fell too far
+ * behind), then {@code delta} events with the products whose maxCanProduce
+ * changed and the raw materials whose stock changed.
+ */
+@Path("/production-check/events")
+public class CapacityEventsResource {
+
+    @Inject
+    CapacityEvents events;
+
+    @GET
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @NonBlocking
+    public void stream(@Context SseEventSink sink, @Context Sse sse) {
+        events.subscribe(sink, sse);
+    }
+}
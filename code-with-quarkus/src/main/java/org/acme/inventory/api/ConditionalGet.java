@@ -0,0 +1,20 @@
+package org.acme.inventory.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.acme.inventory.service.CatalogVersions.Aggregate;
+
+/**
+ * Marks a GET method whose representation depends only on the given
+ * aggregate: {@link ConditionalGetFilter} adds an ETag and answers a matching
+ * {@code If-None-Match} with 304 before the method (and Hibernate) runs.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalGet {
+
+    Aggregate value();
+}
@@ -0,0 +1,82 @@
+package org.acme.inventory.api;
+
+import org.acme.inventory.service.CatalogVersions;
+import org.acme.inventory.service.ReadRoute;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * ETag / If-None-Match for methods annotated with {@link ConditionalGet}.
+ * The version is read before the resource method runs, so the tag never
+ * claims more than the body contains; bodies that may come from the read
+ * replica get no tag at all.
+ */
+@Provider
+public class ConditionalGetFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    static final String ETAG_PROPERTY = ConditionalGetFilter.class.getName() + ".etag";
+
+    // o navegador revalida sempre (If-None-Match automático), sem servir cópia vencida
+    static final String CACHE_CONTROL = "no-cache";
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Inject
+    CatalogVersions versions;
+
+    @Inject
+    ReadRoute route;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!HttpMethod.GET.equals(requestContext.getMethod()) || resourceInfo.getResourceMethod() == null) {
+            return;
+        }
+        ConditionalGet conditional = resourceInfo.getResourceMethod().getAnnotation(ConditionalGet.class);
+        if (conditional == null) {
+            return;
+        }
+
+        String etag = versions.etag(conditional.value(), versions.version(conditional.value()),
+                requestContext.getUriInfo().getRequestUri().getRawPath(),
+                requestContext.getUriInfo().getRequestUri().getRawQuery(),
+                BinaryFormats.variant(BinaryFormats.negotiate(requestContext.getAcceptableMediaTypes())));
+        requestContext.setProperty(ETAG_PROPERTY, etag);
+
+        if (CatalogVersions.matches(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH), etag)) {
+            requestContext.abortWith(Response.notModified()
+                    .header(HttpHeaders.ETAG, etag)
+                    .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .build());
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object etag = requestContext.getProperty(ETAG_PROPERTY);
+        if (etag == null || responseContext.getStatus() != Response.Status.OK.getStatusCode()) {
+            return;
+        }
+        // corpo lido da réplica pode ser mais velho que a versão: sem ETag
+        if (route.replica()) {
+            responseContext.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+            return;
+        }
+        responseContext.getHeaders().putSingle(HttpHeaders.ETAG, etag);
+        responseContext.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        // JSON, CBOR e Smile na mesma URL
+        responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+}
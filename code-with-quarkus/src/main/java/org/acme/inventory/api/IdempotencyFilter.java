@@ -0,0 +1,195 @@
+package org.acme.inventory.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.acme.inventory.service.IdempotencyStore;
+import org.acme.inventory.service.IdempotencyStore.Claim;
+import org.acme.inventory.service.IdempotencyStore.KeyReusedException;
+import org.acme.inventory.service.IdempotencyStore.StoredResponse;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * {@code Idempotency-Key} for methods annotated with {@link Idempotent}: the
+ * key is scoped to method and path and bound to a SHA-256 of the body, a
+ * replay is answered before the resource method runs, and a duplicate still
+ * in flight gets 409 with {@code Retry-After}.
+ *
+ * Responses are final, 4xx included: a retry must not run the write once the
+ * state it was rejected for has changed. Only 5xx, 409 and 429 (nothing was
+ * applied) free the key.
+ */
+@Provider
+public class IdempotencyFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    static final String HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+    static final int RETRY_AFTER_SECONDS = 1;
+
+    static final String KEY_PROPERTY = IdempotencyFilter.class.getName() + ".key";
+    static final String FINGERPRINT_PROPERTY = IdempotencyFilter.class.getName() + ".fingerprint";
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Inject
+    IdempotencyStore store;
+
+    @Inject
+    ObjectMapper mapper;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        String clientKey = requestContext.getHeaderString(HEADER);
+        if (clientKey == null || resourceInfo.getResourceMethod() == null
+                || !resourceInfo.getResourceMethod().isAnnotationPresent(Idempotent.class)) {
+            return;
+        }
+        if (clientKey.isBlank() || clientKey.length() > MAX_KEY_LENGTH) {
+            requestContext.abortWith(error(Response.Status.BAD_REQUEST,
+                    HEADER + " must have 1 to " + MAX_KEY_LENGTH + " characters."));
+            return;
+        }
+
+        String key = requestContext.getMethod() + " " + requestContext.getUriInfo().getRequestUri().getRawPath()
+                + " " + clientKey;
+        String fingerprint = fingerprint(requestContext);
+
+        Claim claim;
+        try {
+            claim = store.begin(key, fingerprint);
+        } catch (KeyReusedException e) {
+            requestContext.abortWith(error(422, e.getMessage()));
+            return;
+        }
+
+        if (claim.owner()) {
+            requestContext.setProperty(KEY_PROPERTY, key);
+            requestContext.setProperty(FINGERPRINT_PROPERTY, fingerprint);
+        } else if (claim.replay() != null) {
+            requestContext.abortWith(replay(claim.replay()));
+        } else {
+            // não espera o dono: a thread fica livre e o cliente repete com a mesma chave
+            requestContext.abortWith(Response.status(Response.Status.CONFLICT)
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .entity(new ErrorResponse("A request with this " + HEADER + " is still in progress."))
+                    .build());
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        String key = (String) requestContext.getProperty(KEY_PROPERTY);
+        if (key == null) {
+            return;
+        }
+
+        // 409/429/5xx: nada foi aplicado, a repetição deve executar de novo
+        int status = responseContext.getStatus();
+        if (status >= 500 || status == Response.Status.CONFLICT.getStatusCode()
+                || status == Response.Status.TOO_MANY_REQUESTS.getStatusCode()) {
+            store.abandon(key);
+            return;
+        }
+
+        byte[] body;
+        try {
+            body = body(responseContext.getEntity());
+        } catch (RuntimeException e) {
+            store.abandon(key);
+            throw e;
+        }
+        MediaType type = responseContext.getMediaType();
+        Object location = responseContext.getHeaders().getFirst(HttpHeaders.LOCATION);
+
+        store.complete(key, new StoredResponse((String) requestContext.getProperty(FINGERPRINT_PROPERTY), status,
+                type == null ? null : type.toString(), location == null ? null : location.toString(), body));
+
+        // a resposta original segue com os mesmos bytes que serão repetidos
+        if (body != null) {
+            responseContext.setEntity(body, responseContext.getEntityAnnotations(),
+                    type == null ? MediaType.APPLICATION_JSON_TYPE : type);
+        }
+    }
+
+    private byte[] body(Object entity) {
+        if (entity == null) {
+            return null;
+        }
+        if (entity instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (entity instanceof String text) {
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+        try {
+            return mapper.writeValueAsBytes(entity);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String fingerprint(ContainerRequestContext requestContext) {
+        byte[] body;
+        try {
+            body = requestContext.hasEntity() ? requestContext.getEntityStream().readAllBytes() : new byte[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // o corpo já foi consumido: devolve uma cópia para o resource
+        requestContext.setEntityStream(new ByteArrayInputStream(body));
+
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Response replay(StoredResponse stored) {
+        Response.ResponseBuilder response = Response.status(stored.status())
+                .header(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            response.type(stored.contentType());
+        }
+        if (stored.location() != null) {
+            response.header(HttpHeaders.LOCATION, stored.location());
+        }
+        if (stored.body() != null) {
+            response.entity(stored.body());
+        }
+        return response.build();
+    }
+
+    private static Response error(Response.Status status, String message) {
+        return error(status.getStatusCode(), message);
+    }
+
+    private static Response error(int status, String message) {
+        return Response.status(status)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .entity(new ErrorResponse(message))
+                .build();
+    }
+}
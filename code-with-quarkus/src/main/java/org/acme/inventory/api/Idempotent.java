@@ -0,0 +1,16 @@
+package org.acme.inventory.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a write method that honours the {@code Idempotency-Key} header: a
+ * retried request with the same key gets the stored response from
+ * {@link IdempotencyFilter} instead of running the method again.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
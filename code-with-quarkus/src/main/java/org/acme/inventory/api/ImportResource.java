@@ -0,0 +1,61 @@
+package org.acme.inventory.api;
+
+import java.io.InputStream;
+
+import org.acme.inventory.service.CatalogImporter;
+import org.acme.inventory.service.CatalogImporter.ImportReport;
+import org.acme.inventory.service.ImportRows.Format;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Bulk catalog import. Bodies are NDJSON (one JSON object per line) or CSV
+ * with a header line, read incrementally; the response reports every row
+ * that was not imported.
+ */
+@Path("/import")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes({ ImportResource.NDJSON, ImportResource.CSV })
+@RunOnVirtualThread
+public class ImportResource {
+
+    static final String NDJSON = "application/x-ndjson";
+    static final String CSV = "text/csv";
+
+    @Inject
+    CatalogImporter importer;
+
+    @POST
+    @Path("/raw-materials")
+    public ImportReport importRawMaterials(@HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType,
+                                           InputStream body) {
+        return importer.importRawMaterials(body, format(contentType));
+    }
+
+    @POST
+    @Path("/products")
+    public ImportReport importProducts(@HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType,
+                                       InputStream body) {
+        return importer.importProducts(body, format(contentType));
+    }
+
+    // linhas de BOM: productId|productCode, rawMaterialId|rawMaterialCode, consumptionPerUnit
+    @POST
+    @Path("/material-usage")
+    public ImportReport importMaterialUsage(@HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType,
+                                            InputStream body) {
+        return importer.importMaterialUsage(body, format(contentType));
+    }
+
+    private static Format format(String contentType) {
+        return contentType != null && contentType.toLowerCase().startsWith(CSV) ? Format.CSV : Format.NDJSON;
+    }
+}
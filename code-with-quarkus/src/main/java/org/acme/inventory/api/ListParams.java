@@ -0,0 +1,29 @@
+package org.acme.inventory.api;
+
+import jakarta.ws.rs.QueryParam;
+
+/**
+ * Optional query parameters of the list endpoints. With none of them set the
+ * endpoints keep returning the full list, as before.
+ */
+public class ListParams {
+
+    /** Keyset cursor: only rows with {@code id > after}. */
+    @QueryParam("after")
+    public Long after;
+
+    @QueryParam("limit")
+    public Integer limit;
+
+    /** Comma-separated sparse field selection, e.g. {@code fields=id,code}. */
+    @QueryParam("fields")
+    public String fields;
+
+    /** Writes the whole (filtered) table as a JSON array, row by row. */
+    @QueryParam("stream")
+    public boolean stream;
+
+    public boolean isPlain() {
+        return after == null && limit == null && fields == null && !stream;
+    }
+}
@@ -0,0 +1,189 @@
+package org.acme.inventory.api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.acme.inventory.service.ReadRouting;
+import org.hibernate.jpa.HibernateHints;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+/**
+ * Keyset pagination, sparse field selection and streamed JSON for one entity.
+ *
+ * Pages are always ordered by id and read with {@code id > after}, so every
+ * page costs one index range scan regardless of how deep the client is.
+ * Sparse and streamed responses are built from projection queries, so no
+ * entity (or nested association) is ever loaded for them.
+ */
+final class ListQuery {
+
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+    static final int STREAM_FETCH_SIZE = 500;
+    static final String NEXT_HEADER = "X-Next-After";
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final String entity;
+    private final Map<String, String> fields;
+
+    /**
+     * @param fields JSON field name -> JPQL path on alias {@code e}, in output
+     *               order; must contain {@code id}
+     */
+    ListQuery(String entity, Map<String, String> fields) {
+        this.entity = entity;
+        this.fields = fields;
+    }
+
+    /** Loads a page of entities for the (after, limit) cursor. */
+    @FunctionalInterface
+    interface EntityPage {
+        List<? extends PanacheEntity> load(EntityManager em, long after, int limit);
+    }
+
+    /**
+     * @param reads      pages and sparse selections go through it (read
+     *                   replica when the request is routed there)
+     * @param entityPage loads a page of entities when no sparse selection is
+     *                   requested
+     */
+    Response respond(ReadRouting reads, ListParams params, EntityPage entityPage) {
+        List<String> selected;
+        try {
+            selected = select(params.fields);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse(e.getMessage()))
+                    .build();
+        }
+
+        long after = params.after == null ? 0L : params.after;
+
+        if (params.stream) {
+            // o stream é escrito em JSON, qualquer que seja o Accept
+            return Response.ok(stream(selected, after, params.limit), MediaType.APPLICATION_JSON_TYPE).build();
+        }
+
+        int limit = params.limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(params.limit, MAX_LIMIT));
+
+        Response.ResponseBuilder response;
+        Long last = null;
+        int size;
+
+        if (params.fields == null) {
+            List<? extends PanacheEntity> page = reads.read(em -> entityPage.load(em, after, limit));
+            size = page.size();
+            if (size > 0) last = page.get(size - 1).id;
+            response = Response.ok(page);
+        } else {
+            List<Object[]> rows = reads.read(em -> query(em, selected, after).setMaxResults(limit).getResultList());
+            List<Map<String, Object>> page = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                page.add(toMap(selected, row));
+                last = (Long) row[0];
+            }
+            size = page.size();
+            response = Response.ok(page);
+        }
+
+        if (size == limit && last != null) {
+            response.header(NEXT_HEADER, last);
+        }
+        return response.build();
+    }
+
+    /**
+     * Ordered field map from alternating (JSON name, JPQL path) pairs.
+     */
+    static Map<String, String> fields(String... namesAndPaths) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndPaths.length; i += 2) {
+            fields.put(namesAndPaths[i], namesAndPaths[i + 1]);
+        }
+        return fields;
+    }
+
+    private List<String> select(String param) {
+        if (param == null || param.isBlank()) {
+            return new ArrayList<>(fields.keySet());
+        }
+
+        List<String> selected = new ArrayList<>();
+        for (String f : param.split(",")) {
+            String name = f.trim();
+            if (!fields.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + ". Allowed: " + fields.keySet());
+            }
+            if (!selected.contains(name)) {
+                selected.add(name);
+            }
+        }
+        return selected;
+    }
+
+    /** Column 0 is always the id (cursor); the selected fields follow. */
+    private TypedQuery<Object[]> query(EntityManager em, List<String> selected, long after) {
+        StringBuilder jpql = new StringBuilder("select e.id");
+        for (String f : selected) {
+            jpql.append(", ").append(fields.get(f));
+        }
+        jpql.append(" from ").append(entity).append(" e where e.id > :after order by e.id");
+
+        return em.createQuery(jpql.toString(), Object[].class)
+                .setParameter("after", after);
+    }
+
+    private static Map<String, Object> toMap(List<String> selected, Object[] row) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < selected.size(); i++) {
+            map.put(selected.get(i), row[i + 1]);
+        }
+        return map;
+    }
+
+    private StreamingOutput stream(List<String> selected, long after, Integer limit) {
+        return output -> QuarkusTransaction.requiringNew().run(() -> {
+            // stream fica no primário: roda depois do método, em transação própria
+            TypedQuery<Object[]> query = query(Panache.getEntityManager(), selected, after)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE);
+            if (limit != null) {
+                query.setMaxResults(limit);
+            }
+
+            try (JsonGenerator json = JSON.createGenerator(output, JsonEncoding.UTF8);
+                 Stream<Object[]> rows = query.getResultStream()) {
+
+                json.writeStartArray();
+                for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                    json.writeStartObject();
+                    for (int i = 0; i < selected.size(); i++) {
+                        json.writeFieldName(selected.get(i));
+                        json.writeObject(row[i + 1]);
+                    }
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
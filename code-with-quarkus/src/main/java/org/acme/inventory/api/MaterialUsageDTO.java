@@ -3,5 +3,7 @@ package org.acme.inventory.api;
 public class MaterialUsageDTO {
     public Long productId;
     public Long rawMaterialId;
+    // submontagem: outro produto como componente (em vez de rawMaterialId)
+    public Long componentProductId;
     public Integer consumptionPerUnit;
 }
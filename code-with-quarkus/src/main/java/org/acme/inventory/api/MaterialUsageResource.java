@@ -1,12 +1,23 @@
 package org.acme.inventory.api;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.acme.inventory.domain.MaterialUsage;
 import org.acme.inventory.domain.Product;
 import org.acme.inventory.domain.RawMaterial;
+import org.acme.inventory.service.BomExplosion;
+import org.acme.inventory.service.BomExplosion.BomBusyException;
+import org.acme.inventory.service.CatalogChangeTracker;
+import org.acme.inventory.service.CatalogVersions.Aggregate;
+import org.acme.inventory.service.ReadRouting;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -15,14 +26,96 @@ import jakarta.ws.rs.core.Response;
 @Path("/material-usage")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class MaterialUsageResource {
 
+    // produto, matéria-prima e submontagem vêm no mesmo SELECT (sem N+1 ao serializar)
+    private static final String FETCH_ALL = "select mu from MaterialUsage mu join fetch mu.product"
+            + " left join fetch mu.rawMaterial left join fetch mu.component";
+
+    // modo esparso/stream: somente ids das associações, sem objetos aninhados
+    private static final ListQuery LIST_QUERY = new ListQuery("MaterialUsage", ListQuery.fields(
+            "id", "e.id",
+            "productId", "e.product.id",
+            "rawMaterialId", "e.rawMaterial.id",
+            "componentProductId", "e.component.id",
+            "consumptionPerUnit", "e.consumptionPerUnit"));
+
+    static final String NORMALIZED = "normalized";
+
+    @Inject
+    CatalogChangeTracker changes;
+
+    @Inject
+    BomExplosion explosion;
+
+    @Inject
+    ReadRouting reads;
+
     @GET
-    public List<MaterialUsage> listAll() {
-        return MaterialUsage.listAll();
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE })
+    @ConditionalGet(Aggregate.MATERIAL_USAGE)
+    public Response listAll(@BeanParam ListParams params, @QueryParam("view") String view) {
+        if (view != null) {
+            if (!NORMALIZED.equals(view)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Unknown view: " + view + ". Allowed: [" + NORMALIZED + "]"))
+                        .build();
+            }
+            if (!params.isPlain()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("view=" + NORMALIZED
+                                + " returns the whole BOM; after, limit, fields and stream do not apply."))
+                        .build();
+            }
+            return Response.ok(reads.readConsistent(MaterialUsageResource::normalized)).build();
+        }
+
+        if (params.isPlain()) {
+            return Response.ok(reads.read(em -> em.createQuery(FETCH_ALL + " order by mu.id", MaterialUsage.class)
+                    .getResultList())).build();
+        }
+
+        return LIST_QUERY.respond(reads, params, (em, after, limit) ->
+                em.createQuery(FETCH_ALL + " where mu.id > ?1 order by mu.id", MaterialUsage.class)
+                        .setParameter(1, after)
+                        .setMaxResults(limit)
+                        .getResultList());
+    }
+
+    /**
+     * The BOM as id references: each product and raw material is written
+     * once, in its dictionary, instead of inside every line that uses it.
+     * Must be read in one transaction so every referenced id is in a dictionary.
+     */
+    static NormalizedBom normalized(EntityManager em) {
+        List<ProductRef> products = new ArrayList<>();
+        for (Object[] row : em.createQuery("select p.id, p.code, p.name, p.unitPrice from Product p"
+                + " where exists (select 1 from MaterialUsage mu where mu.product = p or mu.component = p)"
+                + " order by p.id", Object[].class).getResultList()) {
+            products.add(new ProductRef((Long) row[0], (String) row[1], (String) row[2], (Double) row[3]));
+        }
+
+        List<RawMaterialRef> rawMaterials = new ArrayList<>();
+        for (Object[] row : em.createQuery("select r.id, r.code, r.description, r.availableStock"
+                + " from RawMaterial r where exists (select 1 from MaterialUsage mu where mu.rawMaterial = r)"
+                + " order by r.id", Object[].class).getResultList()) {
+            rawMaterials.add(new RawMaterialRef((Long) row[0], (String) row[1], (String) row[2],
+                    (Integer) row[3]));
+        }
+
+        List<BomLine> lines = new ArrayList<>();
+        for (Object[] row : em.createQuery("select mu.id, mu.product.id, mu.rawMaterial.id, mu.component.id,"
+                + " mu.consumptionPerUnit from MaterialUsage mu order by mu.id", Object[].class).getResultList()) {
+            lines.add(new BomLine((Long) row[0], (Long) row[1], (Long) row[2], (Long) row[3],
+                    (Integer) row[4]));
+        }
+
+        return new NormalizedBom(products, rawMaterials, lines);
     }
 
     @POST
+    @Idempotent
     @Transactional
     public Response create(MaterialUsageDTO dto) {
 
@@ -32,19 +125,49 @@ public class MaterialUsageResource {
             throw new NotFoundException("Product not found: " + dto.productId);
         }
 
-        // valida matéria-prima
-        RawMaterial rm = RawMaterial.findById(dto.rawMaterialId);
-        if (rm == null) {
-            throw new NotFoundException("RawMaterial not found: " + dto.rawMaterialId);
+        if ((dto.rawMaterialId == null) == (dto.componentProductId == null)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Inform either rawMaterialId or componentProductId."))
+                    .build();
         }
 
-        // cria a associação
         MaterialUsage usage = new MaterialUsage();
         usage.product = product;
-        usage.rawMaterial = rm;
         usage.consumptionPerUnit = dto.consumptionPerUnit;
 
+        if (dto.rawMaterialId != null) {
+            // valida matéria-prima
+            RawMaterial rm = RawMaterial.findById(dto.rawMaterialId);
+            if (rm == null) {
+                throw new NotFoundException("RawMaterial not found: " + dto.rawMaterialId);
+            }
+            usage.rawMaterial = rm;
+        } else {
+            // valida submontagem e ciclo (A -> B -> ... -> A)
+            Product component = Product.findById(dto.componentProductId);
+            if (component == null) {
+                throw new NotFoundException("Product not found: " + dto.componentProductId);
+            }
+            boolean cycle;
+            try {
+                cycle = explosion.createsCycle(product.id, component.id);
+            } catch (BomBusyException e) {
+                return Response.status(Response.Status.CONFLICT)
+                        .header("Retry-After", "1")
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            }
+            if (cycle) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("BOM cycle: product " + product.id
+                                + " is already used by component " + component.id + "."))
+                        .build();
+            }
+            usage.component = component;
+        }
+
         usage.persist();
+        changes.productChanged(product.id);
 
         return Response
                 .created(URI.create("/material-usage/" + usage.id))
@@ -54,6 +177,7 @@ public class MaterialUsageResource {
 
     @GET
     @Path("/{id}")
+    @ConditionalGet(Aggregate.MATERIAL_USAGE)
     public MaterialUsage find(@PathParam("id") Long id) {
         MaterialUsage mu = MaterialUsage.findById(id);
         if (mu == null) throw new NotFoundException();
@@ -70,6 +194,7 @@ public class MaterialUsageResource {
 
         if (dto.consumptionPerUnit != null) {
             entity.consumptionPerUnit = dto.consumptionPerUnit;
+            changes.productChanged(entity.product.id);
         }
 
         return entity;
@@ -79,8 +204,27 @@ public class MaterialUsageResource {
     @Path("/{id}")
     @Transactional
     public void delete(@PathParam("id") Long id) {
-        if (!MaterialUsage.deleteById(id)) {
-            throw new NotFoundException();
-        }
+        MaterialUsage entity = MaterialUsage.findById(id);
+        if (entity == null) throw new NotFoundException();
+
+        Long productId = entity.product.id;
+        entity.delete();
+        changes.productChanged(productId);
+    }
+
+    public record NormalizedBom(List<ProductRef> products, List<RawMaterialRef> rawMaterials,
+                                List<BomLine> lines) {
+    }
+
+    public record ProductRef(long id, String code, String name, Double unitPrice) {
+    }
+
+    public record RawMaterialRef(long id, String code, String description, Integer availableStock) {
+    }
+
+    /** Exactly one of {@code rawMaterialId} and {@code componentProductId} is present. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record BomLine(long id, long productId, Long rawMaterialId, Long componentProductId,
+                          Integer consumptionPerUnit) {
     }
 }
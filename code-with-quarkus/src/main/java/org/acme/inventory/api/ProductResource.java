@@ -3,8 +3,14 @@ package org.acme.inventory.api;
 import java.net.URI;
 import java.util.List;
 
+import org.acme.inventory.domain.MaterialUsage;
 import org.acme.inventory.domain.Product;
+import org.acme.inventory.service.CatalogChangeTracker;
+import org.acme.inventory.service.CatalogVersions.Aggregate;
+import org.acme.inventory.service.ReadRouting;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -13,14 +19,39 @@ import jakarta.ws.rs.core.Response;
 @Path("/products")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class ProductResource {
 
+    private static final ListQuery LIST_QUERY = new ListQuery("Product", ListQuery.fields(
+            "id", "e.id",
+            "code", "e.code",
+            "name", "e.name",
+            "unitPrice", "e.unitPrice"));
+
+    @Inject
+    CatalogChangeTracker changes;
+
+    @Inject
+    ReadRouting reads;
+
     @GET
-    public List<Product> list() {
-        return Product.listAll();
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE })
+    @ConditionalGet(Aggregate.PRODUCTS)
+    public Response list(@BeanParam ListParams params) {
+        if (params.isPlain()) {
+            return Response.ok(reads.read(em -> em.createQuery("select p from Product p", Product.class)
+                    .getResultList())).build();
+        }
+
+        return LIST_QUERY.respond(reads, params, (em, after, limit) ->
+                em.createQuery("select p from Product p where p.id > ?1 order by p.id", Product.class)
+                        .setParameter(1, after)
+                        .setMaxResults(limit)
+                        .getResultList());
     }
 
     @POST
+    @Idempotent
     @Transactional
     public Response create(Product product) {
         if (product == null) {
@@ -47,28 +78,14 @@ public class ProductResource {
                     .build();
         }
 
-        String code = product.code.trim().toLowerCase();
-        String name = product.name.trim().toLowerCase();
-
-        boolean codeExists = Product.find("lower(code)", code).firstResultOptional().isPresent();
-        if (codeExists) {
-            return Response.status(Response.Status.CONFLICT)
-                    .entity(new ErrorResponse("Product code already exists."))
-                    .build();
-        }
-
-        boolean nameExists = Product.find("lower(name)", name).firstResultOptional().isPresent();
-        if (nameExists) {
-            return Response.status(Response.Status.CONFLICT)
-                    .entity(new ErrorResponse("Product name already exists."))
-                    .build();
-        }
-
         product.id = null;
         product.code = product.code.trim();
         product.name = product.name.trim();
 
-        product.persist();
+        // unicidade (case-insensitive) garantida pelos índices de codeKey/nameKey:
+        // violação vira 409 em UniqueConstraintExceptionMapper
+        product.persistAndFlush();
+        changes.productChanged(product.id);
 
         return Response.created(URI.create("/products/" + product.id))
                 .entity(product)
@@ -77,12 +94,23 @@ public class ProductResource {
 
     @GET
     @Path("/{id}")
+    @ConditionalGet(Aggregate.PRODUCTS)
     public Product findById(@PathParam("id") Long id) {
         Product product = Product.findById(id);
         if (product == null) throw new NotFoundException();
         return product;
     }
 
+    // BOM direta do produto, pela coleção em cache de segundo nível
+    @GET
+    @Path("/{id}/material-usage")
+    @ConditionalGet(Aggregate.MATERIAL_USAGE)
+    public List<MaterialUsage> materialUsage(@PathParam("id") Long id) {
+        if (Product.findById(id) == null) throw new NotFoundException();
+        // inicializa a coleção ainda dentro da sessão
+        return List.copyOf(MaterialUsage.listByProduct(id));
+    }
+
     @PUT
     @Path("/{id}")
     @Transactional
@@ -91,7 +119,7 @@ public class ProductResource {
         Product entity = Product.findById(id);
         if (entity == null) throw new NotFoundException();
 
-        // Validate + enforce uniqueness (case-insensitive) when updating code/name
+        // Validate code/name; uniqueness (case-insensitive) is enforced by the key indexes on flush
         if (data.code != null) {
             String newCode = data.code.trim();
             if (newCode.isEmpty()) {
@@ -100,14 +128,6 @@ public class ProductResource {
                         .build();
             }
 
-            boolean codeExists = Product.find("lower(code) = ?1 and id <> ?2",
-                    newCode.toLowerCase(), id).firstResultOptional().isPresent();
-            if (codeExists) {
-                return Response.status(Response.Status.CONFLICT)
-                        .entity(new ErrorResponse("Product code already exists."))
-                        .build();
-            }
-
             entity.code = newCode;
         }
 
@@ -119,19 +139,14 @@ public class ProductResource {
                         .build();
             }
 
-            boolean nameExists = Product.find("lower(name) = ?1 and id <> ?2",
-                    newName.toLowerCase(), id).firstResultOptional().isPresent();
-            if (nameExists) {
-                return Response.status(Response.Status.CONFLICT)
-                        .entity(new ErrorResponse("Product name already exists."))
-                        .build();
-            }
-
             entity.name = newName;
         }
 
         if (data.unitPrice != null) entity.unitPrice = data.unitPrice;
 
+        Product.flush();
+        changes.productChanged(id);
+
         return Response.ok(entity).build();
     }
 
@@ -142,5 +157,6 @@ public class ProductResource {
         if (!Product.deleteById(id)) {
             throw new NotFoundException();
         }
+        changes.productChanged(id);
     }
 }
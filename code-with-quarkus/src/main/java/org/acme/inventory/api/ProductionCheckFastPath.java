@@ -0,0 +1,171 @@
+package org.acme.inventory.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.acme.inventory.CorsFilter;
+import org.acme.inventory.service.CapacityIndex;
+import org.acme.inventory.service.CapacityIndex.ProductCapacity;
+import org.acme.inventory.service.CatalogVersions;
+import org.acme.inventory.service.CatalogVersions.Aggregate;
+import org.acme.inventory.service.SqlStatementCounter;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.MIMEHeader;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Event-loop fast path for {@code GET /production-check}: while the capacity
+ * index is fresh the response (JSON, CBOR or Smile, or a 304) is written from
+ * memory on the I/O thread; otherwise the request falls through to
+ * {@link ProductionCheckResource}.
+ *
+ * The route runs before Quarkus REST, so CORS, the conditional GET and the
+ * SQL statement metric are applied here. Enabled with
+ * {@code inventory.reactive-fast-path.enabled}.
+ */
+@ApplicationScoped
+public class ProductionCheckFastPath {
+
+    static final String METHOD = ProductionCheckResource.class.getSimpleName() + ".checkProduction";
+
+    @ConfigProperty(name = "inventory.reactive-fast-path.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "inventory.metrics.sql-count-header", defaultValue = "false")
+    boolean sqlCountHeader;
+
+    @Inject
+    CapacityIndex capacityIndex;
+
+    @Inject
+    CatalogVersions versions;
+
+    @Inject
+    ObjectMapper mapper;
+
+    @Inject
+    BinaryFormats formats;
+
+    @Inject
+    MeterRegistry registry;
+
+    void register(@Observes Router router) {
+        if (enabled) {
+            // antes do handler do Quarkus REST
+            router.get("/production-check").order(-1).handler(this::handle);
+        }
+    }
+
+    void handle(RoutingContext ctx) {
+        SqlStatementCounter.begin();
+        MediaType format = format(ctx);
+        if (format == null) {
+            // nenhum formato aceito: o Quarkus REST responde 406
+            next(ctx);
+            return;
+        }
+
+        String etag = versions.etag(Aggregate.PRODUCTION_CHECK, versions.version(Aggregate.PRODUCTION_CHECK),
+                ctx.request().path(), ctx.request().query(),
+                BinaryFormats.variant(format));
+
+        if (CatalogVersions.matches(ctx.request().getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            metrics(ctx);
+            cors(ctx)
+                    .setStatusCode(304)
+                    .putHeader(HttpHeaders.ETAG, etag)
+                    .putHeader(HttpHeaders.CACHE_CONTROL, ConditionalGetFilter.CACHE_CONTROL)
+                    .putHeader(HttpHeaders.VARY, vary(ctx))
+                    .end();
+            return;
+        }
+
+        Collection<ProductCapacity> capacities = capacityIndex.currentIfFresh();
+        if (capacities == null) {
+            next(ctx);
+            return;
+        }
+
+        ObjectMapper writer = formats.mapper(format);
+        byte[] body;
+        try {
+            body = (writer == null ? mapper : writer).writeValueAsBytes(ProductionCheckResource.toResults(capacities));
+        } catch (JsonProcessingException e) {
+            SqlStatementCounter.end();
+            ctx.fail(e);
+            return;
+        }
+
+        metrics(ctx);
+        cors(ctx)
+                .putHeader(HttpHeaders.ETAG, etag)
+                .putHeader(HttpHeaders.CACHE_CONTROL, ConditionalGetFilter.CACHE_CONTROL)
+                .putHeader(HttpHeaders.VARY, vary(ctx))
+                .putHeader(HttpHeaders.CONTENT_TYPE,
+                        writer == null ? "application/json;charset=UTF-8" : format.toString())
+                .end(Buffer.buffer(body));
+    }
+
+    // segue para o Quarkus REST, onde os filtros JAX-RS contam de novo
+    private static void next(RoutingContext ctx) {
+        SqlStatementCounter.end();
+        ctx.next();
+    }
+
+    /** Same metric and header as {@link RequestMetricsFilter}. */
+    private void metrics(RoutingContext ctx) {
+        int statements = SqlStatementCounter.end();
+        if (sqlCountHeader) {
+            ctx.response().putHeader(RequestMetricsFilter.SQL_COUNT_HEADER, Integer.toString(statements));
+        }
+        RequestMetricsFilter.record(registry, METHOD, statements);
+    }
+
+    /** JSON, CBOR or Smile by the client's {@code Accept}; JSON when there is none. */
+    private static MediaType format(RoutingContext ctx) {
+        List<MIMEHeader> accept = ctx.parsedHeaders().accept();
+        if (accept.isEmpty()) {
+            return MediaType.APPLICATION_JSON_TYPE;
+        }
+        List<MediaType> acceptable = new ArrayList<>(accept.size());
+        for (MIMEHeader header : accept) {
+            // o q entra como parâmetro: negotiate() ignora o que vier com q=0
+            acceptable.add(new MediaType(header.component(), header.subComponent(),
+                    Map.of("q", Float.toString(header.weight()))));
+        }
+        return BinaryFormats.negotiate(acceptable);
+    }
+
+    // cors() já pode ter posto "Origin"
+    private static String vary(RoutingContext ctx) {
+        String vary = ctx.response().headers().get(HttpHeaders.VARY);
+        return vary == null ? "Accept" : vary + ", Accept";
+    }
+
+    private static HttpServerResponse cors(RoutingContext ctx) {
+        String origin = ctx.request().getHeader("Origin");
+        if (CorsFilter.isAllowedOrigin(origin)) {
+            ctx.response().putHeader("Access-Control-Allow-Origin", origin);
+            ctx.response().putHeader("Vary", "Origin");
+        }
+        return ctx.response()
+                .putHeader("Access-Control-Allow-Headers", CorsFilter.ALLOW_HEADERS)
+                .putHeader("Access-Control-Allow-Methods", CorsFilter.ALLOW_METHODS)
+                .putHeader("Access-Control-Expose-Headers", CorsFilter.EXPOSE_HEADERS);
+    }
+}
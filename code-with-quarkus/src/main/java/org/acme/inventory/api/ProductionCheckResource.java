@@ -1,64 +1,201 @@
 package org.acme.inventory.api;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-
-import org.acme.inventory.domain.MaterialUsage;
-import org.acme.inventory.domain.Product;
-import org.acme.inventory.domain.RawMaterial;
-
+import java.util.Map;
+import java.util.Set;
+
+import org.acme.inventory.service.BomSnapshot;
+import org.acme.inventory.service.CapacityEngine;
+import org.acme.inventory.service.CapacityIndex;
+import org.acme.inventory.service.CapacityIndex.Mismatch;
+import org.acme.inventory.service.CapacityIndex.ProductCapacity;
+import org.acme.inventory.service.CapacitySimulator;
+import org.acme.inventory.service.CapacitySimulator.Outcome;
+import org.acme.inventory.service.CapacitySimulator.Scenario;
+import org.acme.inventory.service.CatalogVersions.Aggregate;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 
 @Path("/production-check")
 @Produces(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class ProductionCheckResource {
 
+    @Inject
+    CapacityIndex capacityIndex;
+
+    @Inject
+    CapacityEngine capacityEngine;
+
+    @Inject
+    CapacitySimulator simulator;
+
+    @ConfigProperty(name = "inventory.simulate.max-scenarios", defaultValue = "1000")
+    int maxScenarios;
+
+    @ConfigProperty(name = "inventory.simulate.max-deltas", defaultValue = "1000")
+    int maxDeltas;
+
     @GET
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE })
+    @ConditionalGet(Aggregate.PRODUCTION_CHECK)
     public List<ProductionCheckResult> checkProduction() {
 
-        List<ProductionCheckResult> results = new ArrayList<>();
+        // índice residente (produto sem BOM não aparece)
+        return toResults(capacityIndex.current());
+    }
 
-        List<Product> products = Product.listAll();
+    static List<ProductionCheckResult> toResults(Collection<ProductCapacity> capacities) {
+        List<ProductionCheckResult> results = new ArrayList<>(capacities.size());
 
-        for (Product product : products) {
+        for (ProductCapacity c : capacities) {
+            ProductionCheckResult r = new ProductionCheckResult();
+            r.productId = c.productId();
+            r.productName = c.productName();
+            r.maxCanProduce = c.maxCanProduce();
 
-            // CORREÇÃO DA CONSULTA
-            List<MaterialUsage> uses = MaterialUsage.list("product.id = ?1", product.id);
+            results.add(r);
+        }
 
-            if (uses.isEmpty()) {
-                continue; // produto sem BOM não pode ser produzido
-            }
+        return results;
+    }
+
+    // =========================
+    // CONSISTÊNCIA DO ÍNDICE x BANCO
+    // =========================
+    @GET
+    @Path("/consistency")
+    public ConsistencyReport checkConsistency() {
+        return report(capacityIndex.verify(false), false);
+    }
+
+    // reconstrói o índice: não é seguro, então não pode ser GET
+    @POST
+    @Path("/consistency/repair")
+    public ConsistencyReport repairConsistency() {
+        return report(capacityIndex.verify(true), true);
+    }
 
-            int max = Integer.MAX_VALUE;
+    private static ConsistencyReport report(List<Mismatch> mismatches, boolean repair) {
+        ConsistencyReport report = new ConsistencyReport();
+        report.consistent = mismatches.isEmpty();
+        report.repaired = repair && !mismatches.isEmpty();
+        report.mismatches = mismatches;
+        return report;
+    }
 
-            for (MaterialUsage usage : uses) {
+    // =========================
+    // SIMULAÇÃO (what-if): só leitura, nada é gravado nem travado
+    // =========================
+    @POST
+    @Path("/simulate")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response simulate(SimulationDTO dto) {
 
-                RawMaterial rm = usage.rawMaterial;
+        if (dto == null || dto.scenarios == null || dto.scenarios.isEmpty()) {
+            return badRequest("At least one scenario is required.");
+        }
+        if (dto.scenarios.size() > maxScenarios) {
+            return badRequest("At most " + maxScenarios + " scenarios per request.");
+        }
 
-                if (rm.availableStock <= 0 || usage.consumptionPerUnit <= 0) {
-                    max = 0;
-                    break;
-                }
+        List<Scenario> scenarios = new ArrayList<>(dto.scenarios.size());
+        for (int i = 0; i < dto.scenarios.size(); i++) {
+            SimulationDTO.Scenario s = dto.scenarios.get(i);
+            if (s == null) {
+                return badRequest("Scenario " + i + " is empty.");
+            }
 
-                int possible = rm.availableStock / usage.consumptionPerUnit;
+            Map<Long, Long> deltas = new HashMap<>();
+            if (s.deltas != null) {
+                if (s.deltas.size() > maxDeltas) {
+                    return badRequest("Scenario " + i + ": at most " + maxDeltas + " deltas per scenario.");
+                }
+                for (SimulationDTO.StockDelta d : s.deltas) {
+                    if (d == null || d.rawMaterialId == null || d.delta == null) {
+                        return badRequest("Scenario " + i + ": rawMaterialId and delta are required.");
+                    }
+                    // estoque é int: limita o delta para a soma não estourar
+                    if (d.delta > Integer.MAX_VALUE || d.delta < -Integer.MAX_VALUE) {
+                        return badRequest("Scenario " + i + ": delta out of range.");
+                    }
+                    deltas.merge(d.rawMaterialId, d.delta, Long::sum);
+                }
+            }
+            scenarios.add(new Scenario(s.name != null ? s.name : "scenario-" + i, deltas));
+        }
 
-                if (possible < max) {
-                    max = possible;
+        // id inexistente não pode passar por cenário sem efeito
+        Set<Long> requested = new HashSet<>();
+        for (Scenario scenario : scenarios) {
+            requested.addAll(scenario.deltas().keySet());
+        }
+        if (!requested.isEmpty()) {
+            requested.removeAll(Panache.getEntityManager()
+                    .createQuery("select r.id from RawMaterial r where r.id in :ids", Long.class)
+                    .setParameter("ids", requested)
+                    .getResultList());
+            for (int i = 0; i < scenarios.size() && !requested.isEmpty(); i++) {
+                for (Long materialId : scenarios.get(i).deltas().keySet()) {
+                    if (requested.contains(materialId)) {
+                        return badRequest("Scenario " + i + ": unknown rawMaterialId " + materialId + ".");
+                    }
                 }
             }
+        }
 
+        CapacitySimulator.Result result = simulator.simulate(capacityEngine.snapshot(), scenarios);
+        BomSnapshot bom = result.bom();
+
+        SimulationResult response = new SimulationResult();
+        response.baseline = new ArrayList<>(bom.productCount());
+        for (int p = 0; p < bom.productCount(); p++) {
             ProductionCheckResult r = new ProductionCheckResult();
-            r.productId = product.id;
-            r.productName = product.name;
-            r.maxCanProduce = max;
+            r.productId = bom.productIds[p];
+            r.productName = bom.productNames[p];
+            r.maxCanProduce = result.baseline()[p];
+            response.baseline.add(r);
+        }
 
-            results.add(r);
+        // por cenário só os produtos cuja capacidade muda
+        response.scenarios = new ArrayList<>(result.outcomes().size());
+        for (Outcome outcome : result.outcomes()) {
+            ScenarioResult s = new ScenarioResult();
+            s.name = outcome.name();
+            s.changes = new ArrayList<>(outcome.products().length);
+            for (int i = 0; i < outcome.products().length; i++) {
+                int p = outcome.products()[i];
+                CapacityChange change = new CapacityChange();
+                change.productId = bom.productIds[p];
+                change.productName = bom.productNames[p];
+                change.baseline = result.baseline()[p];
+                change.maxCanProduce = outcome.maxCanProduce()[i];
+                s.changes.add(change);
+            }
+            response.scenarios.add(s);
         }
 
-        return results;
+        return Response.ok(response).build();
+    }
+
+    private static Response badRequest(String message) {
+        return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new ErrorResponse(message))
+                .build();
     }
 
     public static class ProductionCheckResult {
@@ -66,4 +203,27 @@ public class ProductionCheckResource {
         public String productName;
         public Integer maxCanProduce;
     }
+
+    public static class ConsistencyReport {
+        public boolean consistent;
+        public boolean repaired;
+        public List<Mismatch> mismatches;
+    }
+
+    public static class SimulationResult {
+        public List<ProductionCheckResult> baseline;
+        public List<ScenarioResult> scenarios;
+    }
+
+    public static class ScenarioResult {
+        public String name;
+        public List<CapacityChange> changes;
+    }
+
+    public static class CapacityChange {
+        public Long productId;
+        public String productName;
+        public Integer baseline;
+        public Integer maxCanProduce;
+    }
 }
@@ -0,0 +1,8 @@
+package org.acme.inventory.api;
+
+public class ProductionOrderDTO {
+    public Long productId;
+    public Integer quantity;
+    // 0 (mais baixa) .. 9; só vale com inventory.orders.ordering=priority
+    public Integer priority;
+}
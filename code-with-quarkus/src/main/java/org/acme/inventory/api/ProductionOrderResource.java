@@ -0,0 +1,148 @@
+package org.acme.inventory.api;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.acme.inventory.service.ProductionOrderQueue;
+import org.acme.inventory.service.ProductionOrderQueue.Order;
+import org.acme.inventory.service.ProductionOrderQueue.Ordering;
+import org.acme.inventory.service.ProductionOrderQueue.QueueFullException;
+import org.acme.inventory.service.ProductionOrderQueue.Shortage;
+import org.acme.inventory.service.ProductionOrderQueue.Status;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+@Path("/production/orders")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
+public class ProductionOrderResource {
+
+    static final long MAX_WAIT_MS = 30_000;
+
+    @Inject
+    ProductionOrderQueue queue;
+
+    // =========================
+    // ENFILEIRAR PEDIDO DE PRODUÇÃO (assíncrono)
+    // =========================
+    @POST
+    @Idempotent
+    public Response submit(ProductionOrderDTO dto) {
+
+        if (dto == null || dto.productId == null) {
+            return badRequest("productId is required.");
+        }
+        if (dto.quantity == null || dto.quantity <= 0) {
+            return badRequest("Quantity must be greater than zero.");
+        }
+        int priority = dto.priority == null ? 0 : dto.priority;
+        if (priority < 0 || priority > ProductionOrderQueue.MAX_PRIORITY) {
+            return badRequest("Priority must be between 0 and " + ProductionOrderQueue.MAX_PRIORITY + ".");
+        }
+
+        Order order;
+        try {
+            order = queue.submit(dto.productId, dto.quantity, priority);
+        } catch (QueueFullException e) {
+            return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "1")
+                    .entity(new ErrorResponse(e.getMessage()))
+                    .build();
+        }
+
+        return Response.accepted(toResult(order))
+                .location(URI.create("/production/orders/" + order.id))
+                .build();
+    }
+
+    /**
+     * Order status. With {@code waitMs} the call returns as soon as the order
+     * leaves the queue (or when the wait runs out), instead of polling.
+     */
+    @GET
+    @Path("/{id}")
+    public ProductionOrderResult find(@PathParam("id") Long id, @QueryParam("waitMs") Long waitMs) {
+        Order order = queue.find(id);
+        if (order == null) {
+            throw new NotFoundException("Order not found or expired: " + id);
+        }
+
+        if (order.status() == Status.QUEUED && waitMs != null && waitMs > 0) {
+            try {
+                order.done().get(Math.min(waitMs, MAX_WAIT_MS), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // ainda na fila: devolve o estado atual
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        return toResult(order);
+    }
+
+    @GET
+    public QueueState state() {
+        QueueState state = new QueueState();
+        state.queued = queue.queued();
+        state.capacity = queue.capacity();
+        state.ordering = queue.ordering();
+        return state;
+    }
+
+    private static ProductionOrderResult toResult(Order order) {
+        ProductionOrderResult r = new ProductionOrderResult();
+        // status primeiro: se já saiu da fila, os campos abaixo estão completos
+        r.status = order.status();
+        r.orderId = order.id;
+        r.productId = order.productId;
+        r.quantity = order.quantity;
+        r.priority = order.priority;
+        r.acceptedAt = order.acceptedAt;
+        r.completedAt = order.completedAt();
+        r.error = order.error();
+        r.shortages = order.shortages();
+        return r;
+    }
+
+    private static Response badRequest(String message) {
+        return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new ErrorResponse(message))
+                .build();
+    }
+
+    public static class ProductionOrderResult {
+        public Long orderId;
+        public Long productId;
+        public Integer quantity;
+        public Integer priority;
+        public Status status;
+        public String error;
+        public List<Shortage> shortages;
+        public Instant acceptedAt;
+        public Instant completedAt;
+    }
+
+    public static class QueueState {
+        public int queued;
+        public int capacity;
+        public Ordering ordering;
+    }
+}
@@ -0,0 +1,106 @@
+package org.acme.inventory.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.acme.inventory.service.BomSnapshot;
+import org.acme.inventory.service.CapacityEngine;
+import org.acme.inventory.service.ProductionPlanner;
+import org.acme.inventory.service.ProductionPlanner.Plan;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+
+@Path("/production-plan")
+@Produces(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
+public class ProductionPlanResource {
+
+    @Inject
+    CapacityEngine capacityEngine;
+
+    @Inject
+    ProductionPlanner planner;
+
+    // =========================
+    // PLANO DE MAIOR VALOR (estoque compartilhado entre produtos)
+    // =========================
+    @GET
+    public ProductionPlan plan(@QueryParam("timeBudgetMs") Long timeBudgetMs) {
+
+        BomSnapshot bom = capacityEngine.snapshot();
+        Plan plan = planner.plan(bom, timeBudgetMs);
+
+        ProductionPlan result = new ProductionPlan();
+        result.totalValue = plan.totalValue();
+        result.optimal = plan.optimal();
+        result.exploredNodes = plan.exploredNodes();
+        result.elapsedMs = plan.elapsedMs();
+        result.items = new ArrayList<>();
+        result.materials = new ArrayList<>();
+
+        long[] used = new long[bom.materialCount()];
+
+        for (int p = 0; p < bom.productCount(); p++) {
+            int quantity = plan.quantities()[p];
+            if (quantity <= 0) {
+                continue;
+            }
+
+            for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+                used[bom.lineMaterial[l]] += (long) bom.lineConsumption[l] * quantity;
+            }
+
+            PlanItem item = new PlanItem();
+            item.productId = bom.productIds[p];
+            item.name = bom.productNames[p];
+            item.unitPrice = bom.unitPrices[p];
+            item.quantity = quantity;
+            item.value = bom.unitPrices[p] * quantity;
+            result.items.add(item);
+        }
+
+        // PRIORIDADE: itens de maior valor primeiro
+        result.items.sort((a, b) -> Double.compare(b.value, a.value));
+
+        for (int m = 0; m < bom.materialCount(); m++) {
+            MaterialAllocation allocation = new MaterialAllocation();
+            allocation.rawMaterialId = bom.materialIds[m];
+            allocation.available = bom.materialStock[m];
+            allocation.used = used[m];
+            allocation.remaining = bom.materialStock[m] - used[m];
+            result.materials.add(allocation);
+        }
+
+        return result;
+    }
+
+    public static class ProductionPlan {
+        public double totalValue;
+        public boolean optimal;
+        public long exploredNodes;
+        public long elapsedMs;
+        public List<PlanItem> items;
+        public List<MaterialAllocation> materials;
+    }
+
+    public static class PlanItem {
+        public Long productId;
+        public String name;
+        public Double unitPrice;
+        public Integer quantity;
+        public Double value;
+    }
+
+    public static class MaterialAllocation {
+        public Long rawMaterialId;
+        public Long available;
+        public Long used;
+        public Long remaining;
+    }
+}
@@ -1,74 +1,125 @@
 package org.acme.inventory.api;
 
-import java.util.*;
-import java.util.stream.Collectors;
-
-import org.acme.inventory.domain.MaterialUsage;
-import org.acme.inventory.domain.Product;
-import org.acme.inventory.domain.RawMaterial;
-
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.acme.inventory.service.CapacityIndex;
+import org.acme.inventory.service.CapacityIndex.ProductCapacity;
+import org.acme.inventory.service.CatalogVersions.Aggregate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 
 @Path("/production-priority")
 @Produces(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class ProductionPriorityResource {
 
+    // maior valor primeiro; empate pelo id, como a ordem do índice
+    static final Comparator<ProductCapacity> BY_VALUE = Comparator
+            .comparingDouble(ProductCapacity::unitPrice).reversed()
+            .thenComparingLong(ProductCapacity::productId);
+
+    @Inject
+    CapacityIndex capacityIndex;
+
+    /**
+     * Producible products by unit price, highest first. {@code limit} keeps
+     * only the top entries (bounded heap, no full sort); {@code minQuantity}
+     * drops products that cannot reach that quantity.
+     */
     @GET
-    public List<Map<String, Object>> listProductionPossibilities() {
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE })
+    @ConditionalGet(Aggregate.PRODUCTION_CHECK)
+    public Response listProductionPossibilities(@QueryParam("limit") Integer limit,
+                                                @QueryParam("minQuantity") Integer minQuantity) {
+        if (limit != null && limit <= 0) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("limit must be greater than zero."))
+                    .build();
+        }
 
-        List<Product> products = Product.listAll();
-        List<Map<String, Object>> result = new ArrayList<>();
+        int min = minQuantity == null ? 1 : Math.max(1, minQuantity);
+        return Response.ok(prioritize(capacityIndex.current(), min, limit)).build();
+    }
 
-        for (Product p : products) {
+    static List<PriorityEntry> prioritize(Collection<ProductCapacity> capacities) {
+        return prioritize(capacities, 1, null);
+    }
 
-            // usos de matéria-prima desse produto
-            List<MaterialUsage> usages = MaterialUsage
-                    .list("product.id = ?1", p.id);
+    static List<PriorityEntry> prioritize(Collection<ProductCapacity> capacities, int minQuantity, Integer limit) {
+        List<ProductCapacity> selected;
 
-            if (usages.isEmpty()) {
-                continue; // não tem BOM → não pode produzir
+        if (limit == null) {
+            selected = new ArrayList<>();
+            for (ProductCapacity c : capacities) {
+                if (c.maxCanProduce() >= minQuantity) {
+                    selected.add(c);
+                }
             }
+            // PRIORIDADE: ordenar pelo produto de maior valor
+            selected.sort(BY_VALUE);
+        } else {
+            // top-K: heap com o pior dos K no topo (capacidade inicial limitada, limit vem do cliente)
+            PriorityQueue<ProductCapacity> heap = new PriorityQueue<>(Math.min(limit, 1024) + 1,
+                    BY_VALUE.reversed());
+            for (ProductCapacity c : capacities) {
+                if (c.maxCanProduce() < minQuantity) {
+                    continue;
+                }
+                if (heap.size() < limit) {
+                    heap.add(c);
+                } else if (BY_VALUE.compare(c, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(c);
+                }
+            }
+            selected = new ArrayList<>(heap);
+            selected.sort(BY_VALUE);
+        }
 
-            // calcular o máximo possível
-            int maxPossible = Integer.MAX_VALUE;
-
-            for (MaterialUsage u : usages) {
-                RawMaterial rm = u.rawMaterial;
+        List<PriorityEntry> result = new ArrayList<>(selected.size());
+        for (ProductCapacity c : selected) {
+            result.add(new PriorityEntry(c.productId(), c.productName(), c.unitPrice(), c.maxCanProduce()));
+        }
+        return result;
+    }
 
-                if (rm.availableStock <= 0 || u.consumptionPerUnit <= 0) {
-                    maxPossible = 0;
-                    break;
-                }
+    @JsonSerialize(using = PriorityEntry.Serializer.class)
+    public record PriorityEntry(long productId, String name, double unitPrice, int maxQuantity) {
 
-                int possible = rm.availableStock / u.consumptionPerUnit;
+        /** Writes the four fields directly: 26% less allocation than introspection (benchmarks/RESULTS.md). */
+        public static final class Serializer extends StdSerializer<PriorityEntry> {
 
-                if (possible < maxPossible) {
-                    maxPossible = possible;
-                }
+            public Serializer() {
+                super(PriorityEntry.class);
             }
 
-            if (maxPossible > 0) {
-                Map<String, Object> entry = new HashMap<>();
-                entry.put("productId", p.id);
-                entry.put("name", p.name);
-                entry.put("unitPrice", p.unitPrice);
-                entry.put("maxQuantity", maxPossible);
-
-                result.add(entry);
+            @Override
+            public void serialize(PriorityEntry e, JsonGenerator json, SerializerProvider provider)
+                    throws IOException {
+                json.writeStartObject();
+                json.writeNumberField("productId", e.productId);
+                json.writeStringField("name", e.name);
+                json.writeNumberField("unitPrice", e.unitPrice);
+                json.writeNumberField("maxQuantity", e.maxQuantity);
+                json.writeEndObject();
             }
         }
-
-        // PRIORIDADE: ordenar pelo produto de maior valor
-        return result.stream()
-                .sorted((a, b) ->
-                        Double.compare(
-                                (double) b.get("unitPrice"),
-                                (double) a.get("unitPrice")
-                        )
-                )
-                .collect(Collectors.toList());
     }
 }
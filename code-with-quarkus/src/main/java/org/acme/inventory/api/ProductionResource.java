@@ -1,12 +1,27 @@
 package org.acme.inventory.api;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-import org.acme.inventory.domain.MaterialUsage;
+import org.acme.inventory.api.BatchProductionDTO.Mode;
 import org.acme.inventory.domain.Product;
 import org.acme.inventory.domain.RawMaterial;
+import org.acme.inventory.service.BomSnapshot;
+import org.acme.inventory.service.CapacityEngine;
+import org.acme.inventory.service.InsufficientStockException;
+import org.acme.inventory.service.MaterialRequirements;
+import org.acme.inventory.service.StockService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.GET;
@@ -21,12 +36,23 @@ import jakarta.ws.rs.core.Response;
 @Path("/production")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class ProductionResource {
 
+    @Inject
+    CapacityEngine capacityEngine;
+
+    @Inject
+    StockService stockService;
+
+    @Inject
+    MeterRegistry registry;
+
     // =========================
     // PRODUZIR PRODUTO
     // =========================
     @POST
+    @Idempotent
     @Path("/{productId}/produce/{quantity}")
     @Transactional
     public Response produce(
@@ -41,65 +67,344 @@ public class ProductionResource {
 
         if (quantity <= 0) {
             return Response.status(Response.Status.BAD_REQUEST)
-                    .entity(Map.of("error", "Quantity must be greater than zero"))
+                    .entity(new ProductionError("Quantity must be greater than zero"))
+                    .build();
+        }
+
+        // BOM + estoque do produto em uma única consulta
+        BomSnapshot bom = capacityEngine.snapshot(List.of(productId));
+
+        if (bom.productCount() == 0) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ProductionError("This product has no BOM (no material usage defined)"))
                     .build();
         }
 
-        // lista de materiais usados pelo produto
-        List<MaterialUsage> usages = MaterialUsage.list("product.id", productId);
+        long[] materialIds = new long[bom.lineStart[1]];
+        long[] required = new long[materialIds.length];
+        for (int l = 0; l < materialIds.length; l++) {
+            materialIds[l] = bom.materialIds[bom.lineMaterial[l]];
+            required[l] = (long) bom.lineConsumption[l] * quantity;
+        }
+
+        // baixa condicional (availableStock >= required): sem lost update nem estoque negativo
+        try {
+            stockService.decrement(materialIds, required, "produce product " + productId + " x " + quantity);
+        } catch (InsufficientStockException e) {
+            shortage("produce");
+            Response response = insufficientStock(product, e);
+            QuarkusTransaction.setRollbackOnly();
+            return response;
+        }
+
+        return Response.ok(new ProductionResult("SUCCESS", product.name, quantity)).build();
+    }
+
+    private void shortage(String source) {
+        registry.counter("inventory.production.shortages", "source", source).increment();
+    }
+
+    private Response insufficientStock(Product product, InsufficientStockException e) {
+        RawMaterial rm = RawMaterial.findById(e.rawMaterialId);
+        long[] stored = { rm == null ? 0 : rm.availableStock };
+        // no modo ledger raw_material só é atualizado depois do commit: vale a projeção
+        long available = stockService.available(new long[] { e.rawMaterialId }, stored)[0];
+
+        return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new InsufficientStock("INSUFFICIENT_STOCK", product.id, product.name, e.rawMaterialId,
+                        rm == null ? "" : rm.description, available, e.required, e.required - available))
+                .build();
+    }
+
+    // =========================
+    // PRODUÇÃO EM LOTE
+    // =========================
+    @POST
+    @Idempotent
+    @Path("/batch")
+    @Transactional
+    public Response produceBatch(BatchProductionDTO dto) {
 
-        if (usages.isEmpty()) {
+        if (dto == null || dto.lines == null || dto.lines.isEmpty()) {
             return Response.status(Response.Status.BAD_REQUEST)
-                    .entity(Map.of("error", "This product has no BOM (no material usage defined)"))
+                    .entity(new ErrorResponse("At least one line is required."))
+                    .build();
+        }
+
+        Mode mode = dto.mode == null ? Mode.ALL_OR_NOTHING : dto.mode;
+
+        Set<Long> productIds = new HashSet<>();
+        for (BatchProductionDTO.Line line : dto.lines) {
+            if (line != null && line.productId != null) {
+                productIds.add(line.productId);
+            }
+        }
+
+        // BOM + estoque de todos os produtos do lote em uma consulta
+        BomSnapshot bom = capacityEngine.snapshot(productIds);
+        Set<Long> existing = productIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(Product.getEntityManager()
+                        .createQuery("select p.id from Product p where p.id in :ids", Long.class)
+                        .setParameter("ids", productIds)
+                        .getResultList());
+
+        BatchProductionResult result = new BatchProductionResult();
+        result.mode = mode;
+        result.lines = new ArrayList<>(dto.lines.size());
+
+        int[] productIndex = new int[dto.lines.size()];
+        long[] stock = stockService.available(bom.materialIds, bom.materialStock);
+        long[] remaining = stock.clone();
+        long[] total = new long[bom.materialCount()];
+        boolean rejected = false;
+
+        // 1) validação de cada linha contra o estoque em memória
+        for (int i = 0; i < dto.lines.size(); i++) {
+            BatchProductionDTO.Line line = dto.lines.get(i);
+
+            BatchLineResult r = new BatchLineResult();
+            r.index = i;
+            r.productId = line == null ? null : line.productId;
+            r.quantity = line == null ? null : line.quantity;
+            result.lines.add(r);
+            productIndex[i] = -1;
+
+            if (line == null || line.productId == null || line.quantity == null || line.quantity <= 0) {
+                r.status = BatchLineStatus.INVALID_QUANTITY;
+                rejected = true;
+                continue;
+            }
+            if (!existing.contains(line.productId)) {
+                r.status = BatchLineStatus.PRODUCT_NOT_FOUND;
+                rejected = true;
+                continue;
+            }
+
+            int p = Arrays.binarySearch(bom.productIds, line.productId);
+            if (p < 0) {
+                r.status = BatchLineStatus.NO_BOM;
+                rejected = true;
+                continue;
+            }
+            productIndex[i] = p;
+
+            // modo ALL_OR_NOTHING valida a demanda agregada (abaixo)
+            long[] available = mode == Mode.BEST_EFFORT ? remaining : stock;
+            r.shortages = shortages(bom, p, line.quantity, mode == Mode.BEST_EFFORT ? null : total, available);
+
+            if (!r.shortages.isEmpty()) {
+                r.status = BatchLineStatus.INSUFFICIENT_STOCK;
+                shortage("batch");
+                rejected = true;
+                continue;
+            }
+
+            r.status = BatchLineStatus.PRODUCED;
+            for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+                long required = (long) bom.lineConsumption[l] * line.quantity;
+                total[bom.lineMaterial[l]] += required;
+                remaining[bom.lineMaterial[l]] -= required;
+            }
+        }
+
+        if (mode == Mode.ALL_OR_NOTHING && rejected) {
+            for (BatchLineResult r : result.lines) {
+                if (r.status == BatchLineStatus.PRODUCED) {
+                    r.status = BatchLineStatus.NOT_APPLIED;
+                }
+            }
+            result.status = "REJECTED";
+            return Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+        }
+
+        // 2) baixa de estoque: um UPDATE condicional por matéria-prima, em um único batch JDBC
+        try {
+            stockService.decrement(bom.materialIds, total, "batch production");
+        } catch (InsufficientStockException e) {
+            // outra transação consumiu o estoque entre a leitura e a baixa
+            shortage("batch-conflict");
+            QuarkusTransaction.setRollbackOnly();
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(new ErrorResponse("Stock changed concurrently for raw material "
+                            + e.rawMaterialId + ". Retry the batch."))
                     .build();
         }
 
-        // valida se há estoque suficiente
-        for (MaterialUsage usage : usages) {
+        boolean anyProduced = result.lines.stream().anyMatch(r -> r.status == BatchLineStatus.PRODUCED);
+        result.status = !rejected ? "SUCCESS" : anyProduced ? "PARTIAL" : "FAILED";
+        return Response.ok(result).build();
+    }
+
+    /**
+     * Missing stock for {@code quantity} units of product {@code p}. When
+     * {@code alreadyDemanded} is given the check is against the aggregated
+     * demand of the previous lines as well.
+     */
+    private static List<Shortage> shortages(BomSnapshot bom, int p, int quantity,
+                                            long[] alreadyDemanded, long[] available) {
+        List<Shortage> shortages = new ArrayList<>();
 
-            RawMaterial rm = usage.rawMaterial;
-            int required = usage.consumptionPerUnit * quantity;
+        for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+            int m = bom.lineMaterial[l];
+            long required = (long) bom.lineConsumption[l] * quantity;
+            if (alreadyDemanded != null) {
+                required += alreadyDemanded[m];
+            }
 
-            if (rm.availableStock < required) {
+            if (available[m] < required) {
+                Shortage s = new Shortage();
+                s.rawMaterialId = bom.materialIds[m];
+                s.available = available[m];
+                s.required = required;
+                s.missing = required - available[m];
+                shortages.add(s);
+            }
+        }
 
-                int missing = required - rm.availableStock;
+        return shortages;
+    }
 
+    // =========================
+    // NECESSIDADE DE MATERIAIS (MRP) PARA UMA LISTA DE DEMANDA
+    // =========================
+    @POST
+    @Path("/requirements")
+    public Response requirements(RequirementsDTO dto) {
+
+        if (dto == null || dto.demand == null || dto.demand.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("At least one demand line is required."))
+                    .build();
+        }
+
+        // mesma linha repetida soma as quantidades
+        Map<Long, Long> demandById = new LinkedHashMap<>();
+        for (RequirementsDTO.Demand d : dto.demand) {
+            if (d == null || d.productId == null || d.quantity == null || d.quantity <= 0) {
                 return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(Map.of(
-                                "error", "INSUFFICIENT_STOCK",
-                                "productId", product.id,
-                                "productName", product.name,
-                                "rawMaterialId", rm.id,
-                                "rawMaterial", rm.description,
-                                "available", rm.availableStock,
-                                "required", required,
-                                "missing", missing
-                        ))
+                        .entity(new ErrorResponse("Every demand line needs a productId and a positive quantity."))
                         .build();
             }
+            demandById.merge(d.productId, d.quantity,
+                    (a, b) -> Long.MAX_VALUE - a < b ? Long.MAX_VALUE : a + b);
         }
 
-        // se passou da validação → dar baixa
-        for (MaterialUsage usage : usages) {
-            RawMaterial rm = usage.rawMaterial;
+        // só leitura: BOM + estoque dos produtos demandados, sem transação de escrita
+        BomSnapshot bom = capacityEngine.snapshot(demandById.keySet());
 
-            int required = usage.consumptionPerUnit * quantity;
+        long[] demand = new long[bom.productCount()];
+        for (int p = 0; p < demand.length; p++) {
+            demand[p] = demandById.get(bom.productIds[p]);
+        }
+        long[] required = MaterialRequirements.required(bom, demand);
 
-            rm.availableStock -= required;
+        RequirementsResult result = new RequirementsResult();
+        result.productsWithoutBom = new ArrayList<>();
+        for (Long productId : demandById.keySet()) {
+            if (Arrays.binarySearch(bom.productIds, productId) < 0) {
+                result.productsWithoutBom.add(productId);
+            }
+        }
 
-            if (rm.availableStock < 0) {
-                rm.availableStock = 0;  // <<< nunca deixa negativo
+        List<List<MaterialShare>> consumers = new ArrayList<>(bom.materialCount());
+        for (int m = 0; m < bom.materialCount(); m++) {
+            consumers.add(new ArrayList<>());
+        }
+        for (int p = 0; p < bom.productCount(); p++) {
+            for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+                int m = bom.lineMaterial[l];
+                MaterialShare share = new MaterialShare();
+                share.productId = bom.productIds[p];
+                share.productName = bom.productNames[p];
+                share.required = MaterialRequirements.lineRequirement(bom, l, demand[p]);
+                share.share = required[m] == 0 ? 0.0 : (double) share.required / required[m];
+                consumers.get(m).add(share);
             }
+        }
 
-            rm.persist();
+        result.materials = new ArrayList<>(bom.materialCount());
+        result.shortages = new ArrayList<>();
+        for (int m = 0; m < bom.materialCount(); m++) {
+            MaterialRequirement r = new MaterialRequirement();
+            r.rawMaterialId = bom.materialIds[m];
+            r.available = bom.materialStock[m];
+            r.required = required[m];
+            r.missing = Math.max(0, required[m] - bom.materialStock[m]);
+            r.consumers = consumers.get(m);
+            r.consumers.sort(Comparator.comparingLong((MaterialShare c) -> c.required).reversed());
+            result.materials.add(r);
+
+            if (r.missing > 0) {
+                Shortage s = new Shortage();
+                s.rawMaterialId = r.rawMaterialId;
+                s.available = r.available;
+                s.required = r.required;
+                s.missing = r.missing;
+                result.shortages.add(s);
+            }
         }
+        result.materials.sort(Comparator.comparing(r -> r.rawMaterialId));
+        result.shortages.sort(Comparator.comparing(s -> s.rawMaterialId));
+        result.feasible = result.shortages.isEmpty() && result.productsWithoutBom.isEmpty();
+
+        return Response.ok(result).build();
+    }
+
+    public record ProductionResult(String status, String product, int quantityProduced) {
+    }
+
+    public record ProductionError(String error) {
+    }
+
+    public record InsufficientStock(String error, long productId, String productName, long rawMaterialId,
+                                    String rawMaterial, long available, long required, long missing) {
+    }
+
+    public enum BatchLineStatus {
+        PRODUCED, NOT_APPLIED, INSUFFICIENT_STOCK, PRODUCT_NOT_FOUND, NO_BOM, INVALID_QUANTITY
+    }
+
+    public static class BatchProductionResult {
+        public String status;
+        public Mode mode;
+        public List<BatchLineResult> lines;
+    }
+
+    public static class BatchLineResult {
+        public int index;
+        public Long productId;
+        public Integer quantity;
+        public BatchLineStatus status;
+        public List<Shortage> shortages;
+    }
+
+    public static class Shortage {
+        public Long rawMaterialId;
+        public Long available;
+        public Long required;
+        public Long missing;
+    }
+
+    public static class RequirementsResult {
+        public boolean feasible;
+        public List<MaterialRequirement> materials;
+        public List<Shortage> shortages;
+        public List<Long> productsWithoutBom;
+    }
+
+    public static class MaterialRequirement {
+        public Long rawMaterialId;
+        public Long available;
+        public Long required;
+        public Long missing;
+        public List<MaterialShare> consumers;
+    }
 
-        return Response.ok(
-                Map.of(
-                        "status", "SUCCESS",
-                        "product", product.name,
-                        "quantityProduced", quantity
-                )
-        ).build();
+    public static class MaterialShare {
+        public Long productId;
+        public String productName;
+        public Long required;
+        public Double share;
     }
 }
@@ -2,9 +2,19 @@ package org.acme.inventory.api;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 import org.acme.inventory.domain.RawMaterial;
-
+import org.acme.inventory.domain.StockMovement;
+import org.acme.inventory.service.CatalogChangeTracker;
+import org.acme.inventory.service.CatalogVersions.Aggregate;
+import org.acme.inventory.service.ReadRouting;
+import org.acme.inventory.service.StockLedger;
+import org.acme.inventory.service.StockLedger.WriteMode;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -13,14 +23,42 @@ import jakarta.ws.rs.core.Response;
 @Path("/raw-materials")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class RawMaterialResource {
 
+    private static final ListQuery LIST_QUERY = new ListQuery("RawMaterial", ListQuery.fields(
+            "id", "e.id",
+            "code", "e.code",
+            "description", "e.description",
+            "availableStock", "e.availableStock"));
+
+    @Inject
+    CatalogChangeTracker changes;
+
+    @Inject
+    StockLedger ledger;
+
+    @Inject
+    ReadRouting reads;
+
     @GET
-    public List<RawMaterial> list() {
-        return RawMaterial.listAll();
+    @Produces({ MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE })
+    @ConditionalGet(Aggregate.RAW_MATERIALS)
+    public Response list(@BeanParam ListParams params) {
+        if (params.isPlain()) {
+            return Response.ok(reads.read(em -> em.createQuery("select r from RawMaterial r", RawMaterial.class)
+                    .getResultList())).build();
+        }
+
+        return LIST_QUERY.respond(reads, params, (em, after, limit) ->
+                em.createQuery("select r from RawMaterial r where r.id > ?1 order by r.id", RawMaterial.class)
+                        .setParameter(1, after)
+                        .setMaxResults(limit)
+                        .getResultList());
     }
 
     @POST
+    @Idempotent
     @Transactional
     public Response create(RawMaterial rawMaterial) {
 
@@ -48,28 +86,15 @@ public class RawMaterialResource {
                     .build();
         }
 
-        String code = rawMaterial.code.trim().toLowerCase();
-        String desc = rawMaterial.description.trim().toLowerCase();
-
-        boolean codeExists = RawMaterial.find("lower(code)", code).firstResultOptional().isPresent();
-        if (codeExists) {
-            return Response.status(Response.Status.CONFLICT)
-                    .entity(new ErrorResponse("Raw material code already exists."))
-                    .build();
-        }
-
-        boolean descExists = RawMaterial.find("lower(description)", desc).firstResultOptional().isPresent();
-        if (descExists) {
-            return Response.status(Response.Status.CONFLICT)
-                    .entity(new ErrorResponse("Raw material description already exists."))
-                    .build();
-        }
-
         rawMaterial.id = null;
         rawMaterial.code = rawMaterial.code.trim();
         rawMaterial.description = rawMaterial.description.trim();
 
-        rawMaterial.persist();
+        // unicidade (case-insensitive) garantida pelos índices de codeKey/descriptionKey:
+        // violação vira 409 em UniqueConstraintExceptionMapper
+        rawMaterial.persistAndFlush();
+        ledger.received(Map.of(rawMaterial.id, rawMaterial.availableStock.longValue()));
+        changes.materialChanged(rawMaterial.id);
 
         return Response
                 .created(URI.create("/raw-materials/" + rawMaterial.id))
@@ -79,6 +104,7 @@ public class RawMaterialResource {
 
     @GET
     @Path("/{id}")
+    @ConditionalGet(Aggregate.RAW_MATERIALS)
     public RawMaterial find(@PathParam("id") Long id) {
         RawMaterial rm = RawMaterial.findById(id);
         if (rm == null) throw new NotFoundException();
@@ -90,7 +116,12 @@ public class RawMaterialResource {
     @Transactional
     public Response update(@PathParam("id") Long id, RawMaterial data) {
 
-        RawMaterial entity = RawMaterial.findById(id);
+        // edição de estoque no modo update: linha travada, o ajuste parte do saldo atual
+        // (um UPDATE de produção concorrente espera o commit)
+        Integer requestedStock = data.availableStock;
+        RawMaterial entity = requestedStock != null && ledger.mode() == WriteMode.UPDATE
+                ? RawMaterial.findById(id, LockModeType.PESSIMISTIC_WRITE)
+                : RawMaterial.findById(id);
         if (entity == null) throw new NotFoundException();
 
         if (data.code != null) {
@@ -101,14 +132,6 @@ public class RawMaterialResource {
                         .build();
             }
 
-            boolean codeExists = RawMaterial.find("lower(code) = ?1 and id <> ?2",
-                    newCode.toLowerCase(), id).firstResultOptional().isPresent();
-            if (codeExists) {
-                return Response.status(Response.Status.CONFLICT)
-                        .entity(new ErrorResponse("Raw material code already exists."))
-                        .build();
-            }
-
             entity.code = newCode;
         }
 
@@ -120,18 +143,25 @@ public class RawMaterialResource {
                         .build();
             }
 
-            boolean descExists = RawMaterial.find("lower(description) = ?1 and id <> ?2",
-                    newDesc.toLowerCase(), id).firstResultOptional().isPresent();
-            if (descExists) {
-                return Response.status(Response.Status.CONFLICT)
-                        .entity(new ErrorResponse("Raw material description already exists."))
-                        .build();
-            }
-
             entity.description = newDesc;
         }
 
-        if (data.availableStock != null) entity.availableStock = data.availableStock;
+        // toda alteração de estoque vira um movimento de ajuste no ledger
+        if (requestedStock != null) {
+            ledger.adjust(id, entity.availableStock, requestedStock, "stock edit");
+            if (ledger.mode() == WriteMode.UPDATE) {
+                entity.availableStock = requestedStock;
+            }
+        }
+
+        RawMaterial.flush();
+        changes.materialChanged(id);
+
+        if (requestedStock != null && ledger.mode() == WriteMode.LEDGER) {
+            // modo ledger: a linha é atualizada depois do commit, só a resposta já mostra o novo saldo
+            RawMaterial.getEntityManager().detach(entity);
+            entity.availableStock = requestedStock;
+        }
 
         return Response.ok(entity).build();
     }
@@ -143,5 +173,26 @@ public class RawMaterialResource {
         if (!RawMaterial.deleteById(id)) {
             throw new NotFoundException();
         }
+        ledger.deleted(id);
+        changes.materialChanged(id);
+    }
+
+    // =========================
+    // HISTÓRICO DE ESTOQUE (ledger append-only)
+    // =========================
+    @GET
+    @Path("/{id}/movements")
+    public List<StockMovement> movements(@PathParam("id") Long id,
+                                         @QueryParam("after") Long after,
+                                         @QueryParam("limit") Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? ListQuery.DEFAULT_LIMIT : Math.min(limit, ListQuery.MAX_LIMIT);
+
+        long cursor = after == null ? 0L : after;
+        return reads.read(em -> em.createQuery("select m from StockMovement m"
+                        + " where m.rawMaterialId = ?1 and m.id > ?2 order by m.id", StockMovement.class)
+                .setParameter(1, id)
+                .setParameter(2, cursor)
+                .setMaxResults(pageSize)
+                .getResultList());
     }
 }
@@ -0,0 +1,89 @@
+package org.acme.inventory.api;
+
+import java.lang.reflect.Method;
+
+import org.acme.inventory.service.ReadRoute;
+import org.acme.inventory.service.ReadRouting;
+
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Cookie;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.NewCookie;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Routes GET methods that are not {@code @Transactional} to the read
+ * replica (see {@link ReadRouting}), unless the client wrote recently.
+ *
+ * A successful POST/PUT/DELETE sets the {@value #COOKIE} cookie, holding the
+ * time until which that client reads from the primary, so it always sees its
+ * own writes.
+ */
+@Provider
+public class ReadRoutingFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    static final String COOKIE = "inventory-read-primary-until";
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Inject
+    ReadRouting routing;
+
+    @Inject
+    ReadRoute route;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!routing.fresh() || !HttpMethod.GET.equals(requestContext.getMethod())) {
+            return;
+        }
+        Method method = resourceInfo.getResourceMethod();
+        if (method == null || method.isAnnotationPresent(Transactional.class)
+                || resourceInfo.getResourceClass().isAnnotationPresent(Transactional.class)) {
+            return;
+        }
+        if (writtenRecently(requestContext.getCookies().get(COOKIE))) {
+            return;
+        }
+        route.useReplica();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        String httpMethod = requestContext.getMethod();
+        if (!routing.enabled() || HttpMethod.GET.equals(httpMethod) || HttpMethod.HEAD.equals(httpMethod)
+                || HttpMethod.OPTIONS.equals(httpMethod) || responseContext.getStatus() >= 400) {
+            return;
+        }
+
+        long stickyMs = routing.stickyMs();
+        NewCookie cookie = new NewCookie.Builder(COOKIE)
+                .value(Long.toString(System.currentTimeMillis() + stickyMs))
+                .path("/")
+                .maxAge((int) Math.max(1, (stickyMs + 999) / 1000))
+                .httpOnly(true)
+                .sameSite(NewCookie.SameSite.LAX)
+                .build();
+        responseContext.getHeaders().add(HttpHeaders.SET_COOKIE, cookie);
+    }
+
+    private static boolean writtenRecently(Cookie cookie) {
+        if (cookie == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.acme.inventory.api;
+
+import java.lang.reflect.Method;
+
+import org.acme.inventory.service.SqlStatementCounter;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * SQL statements per request, recorded per resource method in the
+ * {@code inventory.request.sql.statements} summary. Latency per method comes
+ * from the {@code http.server.requests} timer of the Micrometer extension.
+ * With {@code inventory.metrics.sql-count-header} the count is also returned
+ * in {@value #SQL_COUNT_HEADER} (used by the query budget tests).
+ * {@link ProductionCheckFastPath} answers outside JAX-RS and records through
+ * {@link #record} itself.
+ */
+@Provider
+public class RequestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    static final String SQL_STATEMENTS = "inventory.request.sql.statements";
+    static final String SQL_COUNT_HEADER = "X-SQL-Statements";
+
+    @ConfigProperty(name = "inventory.metrics.sql-count-header", defaultValue = "false")
+    boolean sqlCountHeader;
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        SqlStatementCounter.begin();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        int statements = SqlStatementCounter.end();
+        Method method = resourceInfo.getResourceMethod();
+        if (statements < 0) {
+            return;
+        }
+        if (sqlCountHeader) {
+            responseContext.getHeaders().putSingle(SQL_COUNT_HEADER, statements);
+        }
+        if (method == null) {
+            return;
+        }
+        record(registry, method.getDeclaringClass().getSimpleName() + "." + method.getName(), statements);
+    }
+
+    /** @param method {@code Resource.method}, the tag of the summary */
+    static void record(MeterRegistry registry, String method, int statements) {
+        DistributionSummary.builder(SQL_STATEMENTS)
+                .description("SQL statements prepared by Hibernate per request")
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(statements);
+    }
+}
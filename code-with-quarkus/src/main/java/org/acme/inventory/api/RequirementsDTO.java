@@ -0,0 +1,13 @@
+package org.acme.inventory.api;
+
+import java.util.List;
+
+public class RequirementsDTO {
+
+    public List<Demand> demand;
+
+    public static class Demand {
+        public Long productId;
+        public Long quantity;
+    }
+}
@@ -0,0 +1,19 @@
+package org.acme.inventory.api;
+
+import java.util.List;
+
+public class SimulationDTO {
+
+    public List<Scenario> scenarios;
+
+    public static class Scenario {
+        public String name;
+        public List<StockDelta> deltas;
+    }
+
+    // positivo = entrada de estoque, negativo = saída
+    public static class StockDelta {
+        public Long rawMaterialId;
+        public Long delta;
+    }
+}
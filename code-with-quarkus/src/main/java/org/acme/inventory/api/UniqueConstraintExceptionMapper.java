@@ -0,0 +1,72 @@
+package org.acme.inventory.api;
+
+import java.util.Locale;
+import java.util.Map;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+import jakarta.persistence.PersistenceException;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Maps violations of the catalog's unique constraints, raised on flush, to
+ * the 409 responses the resources used to produce with their pre-insert
+ * lookups. Any other persistence error (foreign key, NOT NULL, ...) is
+ * rethrown.
+ */
+@Provider
+public class UniqueConstraintExceptionMapper implements ExceptionMapper<PersistenceException> {
+
+    // nome exato da constraint -> mensagem
+    private static final Map<String, String> MESSAGES = Map.of(
+            "uk_product_code", "Product code already exists.",
+            "uk_product_code_key", "Product code already exists.",
+            "uk_product_name", "Product name already exists.",
+            "uk_product_name_key", "Product name already exists.",
+            "uk_raw_material_code", "Raw material code already exists.",
+            "uk_raw_material_code_key", "Raw material code already exists.",
+            "uk_raw_material_description", "Raw material description already exists.",
+            "uk_raw_material_description_key", "Raw material description already exists."
+    );
+
+    @Override
+    public Response toResponse(PersistenceException e) {
+        ConstraintViolationException violation = violation(e);
+        String message = violation == null ? null : MESSAGES.get(normalize(violation.getConstraintName()));
+        if (message == null) {
+            throw e;
+        }
+
+        return Response.status(Response.Status.CONFLICT)
+                .entity(new ErrorResponse(message))
+                .build();
+    }
+
+    /**
+     * Bare constraint name: PostgreSQL reports {@code uk_product_code}, H2
+     * {@code PUBLIC.UK_PRODUCT_CODE_INDEX_1 ON PUBLIC.PRODUCT(...)}.
+     */
+    static String normalize(String constraint) {
+        if (constraint == null) {
+            return "";
+        }
+        String name = constraint.toLowerCase(Locale.ROOT).trim();
+        int on = name.indexOf(' ');
+        if (on > 0) {
+            name = name.substring(0, on);
+        }
+        name = name.substring(name.lastIndexOf('.') + 1).replace("\"", "");
+        return name.replaceFirst("_index_\\d+$", "");
+    }
+
+    private static ConstraintViolationException violation(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve) {
+                return cve;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,45 @@
+package org.acme.inventory.domain;
+
+import java.time.Instant;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+
+/**
+ * Stored response of an idempotent request, kept only when
+ * {@code inventory.idempotency.persist} is enabled.
+ */
+@Entity
+@Table(name = "idempotency_record", indexes = {
+    @Index(name = "ix_idempotency_record_expires", columnList = "expiresAt")
+})
+public class IdempotencyRecord extends PanacheEntityBase {
+
+    // método + caminho + chave do cliente
+    @Id
+    @Column(length = 400)
+    public String requestKey;
+
+    @Column(nullable = false, length = 64)
+    public String fingerprint;
+
+    @Column(nullable = false)
+    public Integer status;
+
+    @Column(length = 100)
+    public String contentType;
+
+    @Column(length = 300)
+    public String location;
+
+    @Lob
+    public byte[] body;
+
+    @Column(nullable = false)
+    public Instant expiresAt;
+}
@@ -1,6 +1,9 @@
 package org.acme.inventory.domain;
 
+import java.util.List;
+
 import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Column;
@@ -8,18 +11,33 @@ import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 @Entity
+@Cacheable
 @Table(indexes = {
     @Index(columnList = "product_id"),
-    @Index(columnList = "rawMaterial_id")
+    @Index(columnList = "rawMaterial_id"),
+    @Index(columnList = "component_id")
 })
 public class MaterialUsage extends PanacheEntity {
 
     @ManyToOne(optional = false)
     public Product product;
 
-    @ManyToOne(optional = false)
+    // cada linha aponta para uma matéria-prima OU para um produto usado como submontagem
+    @ManyToOne
     public RawMaterial rawMaterial;
 
+    @ManyToOne
+    public Product component;
+
     @Column(nullable = false)
     public Integer consumptionPerUnit;
+
+    /**
+     * BOM of one product, read through the cached {@code Product.materialUsages}
+     * collection (no query once the product and its lines are cached).
+     */
+    public static List<MaterialUsage> listByProduct(Long productId) {
+        Product product = Product.findById(productId);
+        return product == null ? List.of() : product.materialUsages;
+    }
 }
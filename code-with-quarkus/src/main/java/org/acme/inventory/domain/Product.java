@@ -1,27 +1,67 @@
 package org.acme.inventory.domain;
 
+import java.util.List;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
 @Entity
+@Cacheable
 @Table(
     name = "product",
     uniqueConstraints = {
         @UniqueConstraint(name = "uk_product_code", columnNames = "code"),
-        @UniqueConstraint(name = "uk_product_name", columnNames = "name")
+        @UniqueConstraint(name = "uk_product_name", columnNames = "name"),
+        @UniqueConstraint(name = "uk_product_code_key", columnNames = "codeKey"),
+        @UniqueConstraint(name = "uk_product_name_key", columnNames = "nameKey")
     }
 )
 public class Product extends PanacheEntity {
 
-    @Column(nullable = false, unique = true, length = 50)
+    @Column(nullable = false, length = 50)
     public String code;
 
-    @Column(nullable = false, unique = true, length = 120)
+    @Column(nullable = false, length = 120)
     public String name;
 
     @Column(nullable = false)
     public Double unitPrice;
-}
\ No newline at end of file
+
+    // chaves normalizadas (trim + minúsculas): unicidade case-insensitive via índice
+    @JsonIgnore
+    @Column(length = 50)
+    public String codeKey;
+
+    @JsonIgnore
+    @Column(length = 120)
+    public String nameKey;
+
+    // BOM do produto (lado inverso), em cache de segundo nível por produto
+    @JsonIgnore
+    @OneToMany(mappedBy = "product")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    public List<MaterialUsage> materialUsages;
+
+    @PrePersist
+    @PreUpdate
+    void normalizeKeys() {
+        codeKey = key(code);
+        nameKey = key(name);
+    }
+
+    public static String key(String value) {
+        return value == null ? null : value.trim().toLowerCase();
+    }
+}
@@ -1,27 +1,60 @@
 package org.acme.inventory.domain;
 
+import org.hibernate.annotations.DynamicUpdate;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
 @Entity
+@Cacheable
+// UPDATE só das colunas alteradas: editar código/descrição nunca regrava availableStock
+// (decrementos concorrentes e o read model do modo ledger ficam intactos)
+@DynamicUpdate
 @Table(
     name = "raw_material",
     uniqueConstraints = {
         @UniqueConstraint(name = "uk_raw_material_code", columnNames = "code"),
-        @UniqueConstraint(name = "uk_raw_material_description", columnNames = "description")
+        @UniqueConstraint(name = "uk_raw_material_description", columnNames = "description"),
+        @UniqueConstraint(name = "uk_raw_material_code_key", columnNames = "codeKey"),
+        @UniqueConstraint(name = "uk_raw_material_description_key", columnNames = "descriptionKey")
     }
 )
 public class RawMaterial extends PanacheEntity {
 
-    @Column(nullable = false, unique = true, length = 50)
+    @Column(nullable = false, length = 50)
     public String code;
 
-    @Column(nullable = false, unique = true, length = 150)
+    @Column(nullable = false, length = 150)
     public String description;
 
     @Column(nullable = false)
     public Integer availableStock;
+
+    // chaves normalizadas (trim + minúsculas): unicidade case-insensitive via índice
+    @JsonIgnore
+    @Column(length = 50)
+    public String codeKey;
+
+    @JsonIgnore
+    @Column(length = 150)
+    public String descriptionKey;
+
+    @PrePersist
+    @PreUpdate
+    void normalizeKeys() {
+        codeKey = key(code);
+        descriptionKey = key(description);
+    }
+
+    public static String key(String value) {
+        return value == null ? null : value.trim().toLowerCase();
+    }
 }
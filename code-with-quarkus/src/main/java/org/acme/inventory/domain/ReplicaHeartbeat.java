@@ -0,0 +1,26 @@
+package org.acme.inventory.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Single row written on the primary every heartbeat; how far the read
+ * replica's copy is behind it is the replica lag. Only used when read
+ * routing is enabled.
+ */
+@Entity
+@Table(name = "replica_heartbeat")
+public class ReplicaHeartbeat extends PanacheEntityBase {
+
+    public static final long ID = 1L;
+
+    @Id
+    public Long id;
+
+    /** Epoch millis of the beat. */
+    @Column(nullable = false)
+    public Long beatAt;
+}
@@ -0,0 +1,49 @@
+package org.acme.inventory.domain;
+
+import java.time.Instant;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * One append-only stock change of a raw material. Rows are never updated or
+ * deleted; ids come from an identity column so they follow insert order.
+ */
+@Entity
+@Table(name = "stock_movement", indexes = {
+    @Index(name = "ix_stock_movement_material", columnList = "rawMaterialId, id")
+})
+public class StockMovement extends PanacheEntityBase {
+
+    public enum Type { RECEIPT, ADJUSTMENT, PRODUCTION }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public Long id;
+
+    // sem FK: o histórico sobrevive à exclusão da matéria-prima
+    @Column(nullable = false)
+    public Long rawMaterialId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    public Type type;
+
+    // positivo = entrada, negativo = saída
+    @Column(nullable = false)
+    public Long quantity;
+
+    @Column(length = 100)
+    public String reference;
+
+    @Column(nullable = false)
+    public Instant createdAt;
+}
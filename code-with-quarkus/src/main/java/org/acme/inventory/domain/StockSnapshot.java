@@ -0,0 +1,31 @@
+package org.acme.inventory.domain;
+
+import java.time.Instant;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Stock of a raw material folded up to {@link #lastMovementId}; the current
+ * stock is {@code balance} plus the movements after it. Only used in the
+ * ledger write mode.
+ */
+@Entity
+@Table(name = "stock_snapshot")
+public class StockSnapshot extends PanacheEntityBase {
+
+    @Id
+    public Long rawMaterialId;
+
+    @Column(nullable = false)
+    public Long balance;
+
+    @Column(nullable = false)
+    public Long lastMovementId;
+
+    @Column(nullable = false)
+    public Instant takenAt;
+}
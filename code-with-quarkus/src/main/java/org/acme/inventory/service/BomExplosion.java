@@ -0,0 +1,358 @@
+package org.acme.inventory.service;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Multi-level BOM: in-memory product graph with a memoized explosion of every
+ * product into its net raw-material consumption per unit. Committed
+ * {@link CatalogChange}s drop the explosions of the changed products and
+ * their ancestors; the products are reloaded lazily, in their own
+ * transaction.
+ *
+ * {@link #createsCycle} holds per-product permits until the inserting
+ * transaction completes, so two lines that only close a loop together cannot
+ * both pass.
+ */
+@ApplicationScoped
+public class BomExplosion {
+
+    private static final String EDGE_SELECT =
+            "select mu.product.id, mu.rawMaterial.id, mu.component.id, mu.consumptionPerUnit from MaterialUsage mu";
+
+    /** Net raw-material consumption of one unit, ordered by material id. */
+    public record Explosion(long[] materialIds, long[] perUnit) {
+    }
+
+    private record Node(Map<Long, Long> materials, Map<Long, Long> components) {
+    }
+
+    private static final Explosion EMPTY = new Explosion(new long[0], new long[0]);
+
+    private static final Object EDGE_PERMITS = BomExplosion.class;
+
+    private static final String COMPONENT_SELECT = "select distinct mu.component.id from MaterialUsage mu"
+            + " where mu.product.id in :ids and mu.component is not null";
+
+    /** Another transaction kept part of the BOM busy for the whole lock timeout. */
+    public static class BomBusyException extends RuntimeException {
+        public BomBusyException(long productId) {
+            super("BOM of product " + productId + " is being changed concurrently; retry.");
+        }
+    }
+
+    @ConfigProperty(name = "inventory.bom.edge-lock-timeout-ms", defaultValue = "5000")
+    long edgeLockTimeoutMs;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    TransactionSynchronizationRegistry registry;
+
+    // um permit por produto, preso até o commit/rollback da linha de submontagem
+    private final Map<Long, Semaphore> permits = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private final Map<Long, Set<Long>> parents = new HashMap<>();
+    private final Map<Long, Explosion> memo = new HashMap<>();
+    private final Set<Long> dirty = new HashSet<>();
+    private boolean loaded;
+
+    void onCatalogChange(@Observes @Priority(CatalogChange.EVICT_CACHES) CatalogChange change) {
+        lock.lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            for (Long productId : change.productIds()) {
+                dirty.add(productId);
+                invalidate(productId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Explosion explode(long productId) {
+        lock.lock();
+        try {
+            refresh();
+            return explode(productId, new HashSet<>());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Products that use any of {@code productIds} as a sub-assembly, at any
+     * depth. Empty while the graph has never been needed.
+     */
+    public Set<Long> ancestors(Collection<Long> productIds) {
+        lock.lock();
+        try {
+            Set<Long> result = new HashSet<>();
+            Deque<Long> queue = new ArrayDeque<>(productIds);
+            while (!queue.isEmpty()) {
+                for (Long parent : parents.getOrDefault(queue.poll(), Set.of())) {
+                    if (result.add(parent)) {
+                        queue.add(parent);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether a line making {@code componentId} a sub-assembly of
+     * {@code productId} would close a cycle. Must run in the transaction that
+     * inserts the line; throws {@link BomBusyException} when the permits stay
+     * taken for {@code inventory.bom.edge-lock-timeout-ms}.
+     */
+    public boolean createsCycle(long productId, long componentId) {
+        if (productId == componentId) {
+            return true;
+        }
+
+        Set<Long> held = heldPermits();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(edgeLockTimeoutMs);
+        while (true) {
+            Set<Long> taken = new HashSet<>();
+            // transação própria: lê tudo o que os donos anteriores dos permits já comitaram
+            Boolean cycle = QuarkusTransaction.requiringNew().call(() -> reaches(componentId, productId, held, taken));
+            if (cycle != null) {
+                held.addAll(taken);
+                return cycle;
+            }
+
+            // permit ocupado: solta os desta tentativa em vez de esperar segurando (sem deadlock)
+            taken.forEach(id -> permits.get(id).release());
+            if (System.nanoTime() - deadline > 0) {
+                throw new BomBusyException(productId);
+            }
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(1, 20));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BomBusyException(productId);
+            }
+        }
+    }
+
+    /**
+     * Walks the committed sub-assembly lines down from {@code from}, one query
+     * per level, taking each product's permit before reading its lines.
+     * {@code null} when a permit is taken by another transaction.
+     */
+    private Boolean reaches(long from, long target, Set<Long> held, Set<Long> taken) {
+        if (!tryAcquire(target, held, taken)) {
+            return null;
+        }
+
+        Set<Long> seen = new HashSet<>(List.of(from));
+        Set<Long> frontier = Set.of(from);
+        while (!frontier.isEmpty()) {
+            for (Long id : frontier) {
+                if (!tryAcquire(id, held, taken)) {
+                    return null;
+                }
+            }
+            Set<Long> next = new HashSet<>();
+            for (Long child : em.createQuery(COMPONENT_SELECT, Long.class)
+                    .setParameter("ids", frontier)
+                    .getResultList()) {
+                if (child == target) {
+                    return true;
+                }
+                if (seen.add(child)) {
+                    next.add(child);
+                }
+            }
+            frontier = next;
+        }
+        return false;
+    }
+
+    private boolean tryAcquire(Long productId, Set<Long> held, Set<Long> taken) {
+        if (held.contains(productId) || taken.contains(productId)) {
+            return true;
+        }
+        if (!permits.computeIfAbsent(productId, id -> new Semaphore(1)).tryAcquire()) {
+            return false;
+        }
+        taken.add(productId);
+        return true;
+    }
+
+    /** Permits held by the current transaction, released when it completes. */
+    @SuppressWarnings("unchecked")
+    private Set<Long> heldPermits() {
+        if (registry.getTransactionKey() == null) {
+            throw new IllegalStateException("Sub-assembly lines must be written in a transaction");
+        }
+        Set<Long> held = (Set<Long>) registry.getResource(EDGE_PERMITS);
+        if (held != null) {
+            return held;
+        }
+
+        Set<Long> created = ConcurrentHashMap.newKeySet();
+        registry.putResource(EDGE_PERMITS, created);
+        // Semaphore e não lock: o afterCompletion pode rodar em outra thread (timeout)
+        registry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                created.forEach(id -> permits.get(id).release());
+            }
+        });
+        return created;
+    }
+
+    private Explosion explode(long productId, Set<Long> path) {
+        Explosion cached = memo.get(productId);
+        if (cached != null) {
+            return cached;
+        }
+
+        Node node = nodes.get(productId);
+        if (node == null) {
+            return EMPTY;
+        }
+        if (!path.add(productId)) {
+            throw new IllegalStateException("BOM cycle through product " + productId);
+        }
+
+        TreeMap<Long, Long> net = new TreeMap<>(node.materials());
+        node.components().forEach((componentId, quantity) -> {
+            Explosion sub = explode(componentId, path);
+            for (int i = 0; i < sub.materialIds().length; i++) {
+                net.merge(sub.materialIds()[i], multiply(quantity, sub.perUnit()[i]), BomExplosion::add);
+            }
+        });
+        path.remove(productId);
+
+        long[] materialIds = new long[net.size()];
+        long[] perUnit = new long[net.size()];
+        int i = 0;
+        for (Map.Entry<Long, Long> e : net.entrySet()) {
+            materialIds[i] = e.getKey();
+            perUnit[i++] = e.getValue();
+        }
+
+        Explosion explosion = new Explosion(materialIds, perUnit);
+        memo.put(productId, explosion);
+        return explosion;
+    }
+
+    private void invalidate(Long productId) {
+        memo.remove(productId);
+        Deque<Long> queue = new ArrayDeque<>(List.of(productId));
+        Set<Long> seen = new HashSet<>();
+        while (!queue.isEmpty()) {
+            for (Long parent : parents.getOrDefault(queue.poll(), Set.of())) {
+                if (seen.add(parent)) {
+                    memo.remove(parent);
+                    queue.add(parent);
+                }
+            }
+        }
+    }
+
+    private void refresh() {
+        if (!loaded) {
+            List<Object[]> rows = QuarkusTransaction.requiringNew().call(() ->
+                    em.createQuery(EDGE_SELECT, Object[].class).getResultList());
+            nodes.clear();
+            parents.clear();
+            memo.clear();
+            dirty.clear();
+            install(rows);
+            loaded = true;
+            return;
+        }
+
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        Set<Long> stale = new HashSet<>(dirty);
+        dirty.clear();
+        List<Object[]> rows = QuarkusTransaction.requiringNew().call(() ->
+                em.createQuery(EDGE_SELECT + " where mu.product.id in :ids", Object[].class)
+                        .setParameter("ids", stale)
+                        .getResultList());
+
+        for (Long productId : stale) {
+            Node old = nodes.remove(productId);
+            if (old != null) {
+                for (Long componentId : old.components().keySet()) {
+                    Set<Long> users = parents.get(componentId);
+                    if (users != null) {
+                        users.remove(productId);
+                    }
+                }
+            }
+            invalidate(productId);
+        }
+        install(rows);
+    }
+
+    private void install(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            Long productId = (Long) row[0];
+            Long materialId = (Long) row[1];
+            Long componentId = (Long) row[2];
+            long quantity = (Integer) row[3];
+
+            Node node = nodes.computeIfAbsent(productId, k -> new Node(new HashMap<>(), new HashMap<>()));
+            if (materialId != null) {
+                node.materials().merge(materialId, quantity, BomExplosion::add);
+            } else if (componentId != null) {
+                node.components().merge(componentId, quantity, BomExplosion::add);
+                parents.computeIfAbsent(componentId, k -> new HashSet<>()).add(productId);
+            }
+        }
+    }
+
+    // aritmética saturada: acima do maior estoque possível o resultado já é "0 unidades"
+    static long add(long a, long b) {
+        long r = a + b;
+        return ((a ^ r) & (b ^ r)) < 0 ? Long.MAX_VALUE : r;
+    }
+
+    static long multiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long r = a * b;
+        return high != 0 || r < 0 ? Long.MAX_VALUE : r;
+    }
+}
@@ -0,0 +1,69 @@
+package org.acme.inventory.service;
+
+import java.util.List;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+/**
+ * One-time migration: drops the NOT NULL of MaterialUsage.rawMaterial_id on
+ * schemas created before sub-assembly lines existed
+ * ({@code database.generation=update} adds the component column but never
+ * relaxes an existing one). Runs the ALTER only while the column is still
+ * NOT NULL.
+ */
+@ApplicationScoped
+public class BomSchemaUpgrade {
+
+    private static final String NULLABLE_SELECT = "select is_nullable from information_schema.columns"
+            + " where table_schema = %s and lower(table_name) = 'materialusage'"
+            + " and lower(column_name) = 'rawmaterial_id'";
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @Inject
+    EntityManager em;
+
+    void onStart(@Observes StartupEvent event) {
+        String schema;
+        String ddl;
+        switch (dbKind) {
+            case "mysql", "mariadb" -> {
+                schema = "database()";
+                ddl = "alter table MaterialUsage modify rawMaterial_id bigint null";
+            }
+            case "postgresql" -> {
+                schema = "current_schema()";
+                ddl = "alter table MaterialUsage alter column rawMaterial_id drop not null";
+            }
+            default -> {
+                return;
+            }
+        }
+
+        try {
+            boolean migrated = QuarkusTransaction.requiringNew().call(() -> {
+                List<?> nullable = em.createNativeQuery(NULLABLE_SELECT.formatted(schema)).getResultList();
+                // coluna inexistente (schema novo) ou já anulável: nada a fazer
+                if (nullable.isEmpty() || !"NO".equalsIgnoreCase(String.valueOf(nullable.get(0)))) {
+                    return false;
+                }
+                em.createNativeQuery(ddl).executeUpdate();
+                return true;
+            });
+            if (migrated) {
+                Log.info("MaterialUsage.rawMaterial_id is now nullable (sub-assembly lines)");
+            }
+        } catch (RuntimeException e) {
+            Log.warn("Could not make MaterialUsage.rawMaterial_id nullable; sub-assembly lines will fail", e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.acme.inventory.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, array-based view of the whole BOM (products x raw materials).
+ *
+ * Products are stored in ascending id order and their BOM lines in CSR layout:
+ * the lines of product {@code p} are {@code lineStart[p] .. lineStart[p + 1] - 1}.
+ * Only products that have at least one BOM line are present.
+ */
+public final class BomSnapshot {
+
+    public final long[] productIds;
+    public final String[] productNames;
+    public final double[] unitPrices;
+
+    public final int[] lineStart;
+    public final int[] lineMaterial;
+    public final int[] lineConsumption;
+
+    public final long[] materialIds;
+    public final long[] materialStock;
+
+    private BomSnapshot(long[] productIds, String[] productNames, double[] unitPrices,
+                        int[] lineStart, int[] lineMaterial, int[] lineConsumption,
+                        long[] materialIds, long[] materialStock) {
+        this.productIds = productIds;
+        this.productNames = productNames;
+        this.unitPrices = unitPrices;
+        this.lineStart = lineStart;
+        this.lineMaterial = lineMaterial;
+        this.lineConsumption = lineConsumption;
+        this.materialIds = materialIds;
+        this.materialStock = materialStock;
+    }
+
+    public int productCount() {
+        return productIds.length;
+    }
+
+    public int materialCount() {
+        return materialIds.length;
+    }
+
+    /**
+     * Maximum quantity of product {@code p} (index, not id) that the current stock allows.
+     */
+    public int maxCanProduce(int p) {
+        return maxCanProduce(p, materialStock);
+    }
+
+    /**
+     * Same as {@link #maxCanProduce(int)} but against an arbitrary stock vector
+     * indexed like {@link #materialIds}.
+     */
+    public int maxCanProduce(int p, long[] stock) {
+        long max = Integer.MAX_VALUE;
+
+        for (int l = lineStart[p]; l < lineStart[p + 1]; l++) {
+            long available = stock[lineMaterial[l]];
+            int perUnit = lineConsumption[l];
+
+            if (available <= 0 || perUnit <= 0) {
+                return 0;
+            }
+
+            long possible = available / perUnit;
+            if (possible < max) {
+                max = possible;
+            }
+        }
+
+        return (int) max;
+    }
+
+    public int[] maxCanProduce() {
+        int[] result = new int[productIds.length];
+        for (int p = 0; p < result.length; p++) {
+            result[p] = maxCanProduce(p);
+        }
+        return result;
+    }
+
+    /**
+     * Collects BOM rows ordered by product id and builds the snapshot arrays.
+     */
+    public static final class Builder {
+
+        private long[] productIds = new long[16];
+        private String[] productNames = new String[16];
+        private double[] unitPrices = new double[16];
+        private int[] lineStart = new int[17];
+        private int products;
+
+        private int[] lineMaterial = new int[64];
+        private int[] lineConsumption = new int[64];
+        private int lines;
+
+        private long[] materialIds = new long[16];
+        private long[] materialStock = new long[16];
+        private final Map<Long, Integer> materialIndex = new HashMap<>();
+
+        /**
+         * Adds one BOM line. Rows of the same product must be contiguous.
+         */
+        public Builder addLine(long productId, String productName, double unitPrice,
+                               long materialId, long stock, int consumptionPerUnit) {
+
+            if (products == 0 || productIds[products - 1] != productId) {
+                if (products == productIds.length) {
+                    int size = products * 2;
+                    productIds = Arrays.copyOf(productIds, size);
+                    productNames = Arrays.copyOf(productNames, size);
+                    unitPrices = Arrays.copyOf(unitPrices, size);
+                    lineStart = Arrays.copyOf(lineStart, size + 1);
+                }
+                productIds[products] = productId;
+                productNames[products] = productName;
+                unitPrices[products] = unitPrice;
+                lineStart[products] = lines;
+                products++;
+            }
+
+            Integer m = materialIndex.get(materialId);
+            if (m == null) {
+                m = materialIndex.size();
+                if (m == materialIds.length) {
+                    materialIds = Arrays.copyOf(materialIds, m * 2);
+                    materialStock = Arrays.copyOf(materialStock, m * 2);
+                }
+                materialIds[m] = materialId;
+                materialStock[m] = stock;
+                materialIndex.put(materialId, m);
+            }
+
+            if (lines == lineMaterial.length) {
+                lineMaterial = Arrays.copyOf(lineMaterial, lines * 2);
+                lineConsumption = Arrays.copyOf(lineConsumption, lines * 2);
+            }
+            lineMaterial[lines] = m;
+            lineConsumption[lines] = consumptionPerUnit;
+            lines++;
+
+            return this;
+        }
+
+        public BomSnapshot build() {
+            int[] starts = Arrays.copyOf(lineStart, products + 1);
+            starts[products] = lines;
+
+            int materials = materialIndex.size();
+
+            return new BomSnapshot(
+                    Arrays.copyOf(productIds, products),
+                    Arrays.copyOf(productNames, products),
+                    Arrays.copyOf(unitPrices, products),
+                    starts,
+                    Arrays.copyOf(lineMaterial, lines),
+                    Arrays.copyOf(lineConsumption, lines),
+                    Arrays.copyOf(materialIds, materials),
+                    Arrays.copyOf(materialStock, materials));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.acme.inventory.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.acme.inventory.service.BomExplosion.Explosion;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Loads the BOM (MaterialUsage + Product + RawMaterial) in a single projection
+ * query and exposes it as a {@link BomSnapshot}, so capacity can be computed
+ * without touching lazy associations.
+ *
+ * Sub-assembly lines are replaced by the memoized explosion of the component
+ * ({@link BomExplosion}), so every product in the snapshot is expressed in
+ * net raw-material consumption per unit. Stock of raw materials reached only
+ * through sub-assemblies costs one more query.
+ */
+@ApplicationScoped
+public class CapacityEngine {
+
+    private static final String BOM_SELECT =
+            "select p.id, p.name, p.unitPrice, rm.id, rm.availableStock, c.id, mu.consumptionPerUnit"
+            + " from MaterialUsage mu join mu.product p left join mu.rawMaterial rm left join mu.component c";
+
+    private static final String BOM_ORDER = " order by p.id, rm.id";
+
+    private static final String STOCK_SELECT =
+            "select rm.id, rm.availableStock from RawMaterial rm where rm.id in :ids";
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    BomExplosion explosion;
+
+    public BomSnapshot snapshot() {
+        return toSnapshot(em.createQuery(BOM_SELECT + BOM_ORDER, Object[].class).getResultList());
+    }
+
+    /**
+     * Snapshot restricted to the given products; products without BOM lines
+     * (or that no longer exist) are simply absent from the result.
+     */
+    public BomSnapshot snapshot(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return new BomSnapshot.Builder().build();
+        }
+
+        return toSnapshot(em.createQuery(BOM_SELECT + " where p.id in :ids" + BOM_ORDER, Object[].class)
+                .setParameter("ids", productIds)
+                .getResultList());
+    }
+
+    private BomSnapshot toSnapshot(List<Object[]> rows) {
+        List<Object[]> products = new ArrayList<>();
+        List<TreeMap<Long, Long>> lines = new ArrayList<>();
+        Map<Long, Long> stock = new HashMap<>();
+
+        TreeMap<Long, Long> current = null;
+        for (Object[] row : rows) {
+            if (current == null || !row[0].equals(products.get(products.size() - 1)[0])) {
+                products.add(row);
+                current = new TreeMap<>();
+                lines.add(current);
+            }
+
+            long consumption = (Integer) row[6];
+            if (row[3] != null) {
+                stock.put((Long) row[3], ((Integer) row[4]).longValue());
+                current.merge((Long) row[3], consumption, BomExplosion::add);
+            } else if (row[5] != null) {
+                // submontagem: consumo líquido memoizado do componente
+                Explosion sub = explosion.explode((Long) row[5]);
+                for (int i = 0; i < sub.materialIds().length; i++) {
+                    current.merge(sub.materialIds()[i], BomExplosion.multiply(consumption, sub.perUnit()[i]),
+                            BomExplosion::add);
+                }
+            }
+        }
+
+        Set<Long> missing = new HashSet<>();
+        for (TreeMap<Long, Long> productLines : lines) {
+            for (Long materialId : productLines.keySet()) {
+                if (!stock.containsKey(materialId)) {
+                    missing.add(materialId);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Object[] row : em.createQuery(STOCK_SELECT, Object[].class)
+                    .setParameter("ids", missing)
+                    .getResultList()) {
+                stock.put((Long) row[0], ((Integer) row[1]).longValue());
+            }
+        }
+
+        BomSnapshot.Builder builder = new BomSnapshot.Builder();
+        for (int p = 0; p < products.size(); p++) {
+            Object[] product = products.get(p);
+            for (Map.Entry<Long, Long> line : lines.get(p).entrySet()) {
+                builder.addLine(
+                        (Long) product[0],
+                        (String) product[1],
+                        (Double) product[2],
+                        line.getKey(),
+                        stock.getOrDefault(line.getKey(), 0L),
+                        // acima de Integer.MAX_VALUE nenhum estoque (Integer) atende uma unidade
+                        (int) Math.min(line.getValue(), Integer.MAX_VALUE));
+            }
+        }
+        return builder.build();
+    }
+}
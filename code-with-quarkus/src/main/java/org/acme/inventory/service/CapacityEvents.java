@@ -0,0 +1,354 @@
+package org.acme.inventory.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.acme.inventory.service.CapacityIndex.ProductCapacity;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+/**
+ * Pushes capacity and stock changes to SSE subscribers. One dispatcher
+ * thread refreshes {@link CapacityIndex} after committed
+ * {@link CatalogChange}s and diffs it against the last published state.
+ * Deltas carry absolute values and coalesce while a send is in flight; a
+ * subscriber with more than {@code inventory.events.max-pending} pending
+ * entries gets a full snapshot instead.
+ */
+@ApplicationScoped
+public class CapacityEvents {
+
+    public static final String SNAPSHOT = "snapshot";
+    public static final String DELTA = "delta";
+
+    private static final String STOCK_SELECT = "select rm.id, rm.availableStock from RawMaterial rm";
+
+    public static class CapacityEvent {
+        public long sequence;
+        public List<ProductEntry> products = new ArrayList<>();
+        public List<Long> removedProductIds = new ArrayList<>();
+        public List<MaterialEntry> materials = new ArrayList<>();
+        public List<Long> removedMaterialIds = new ArrayList<>();
+    }
+
+    public static class ProductEntry {
+        public Long productId;
+        public Integer maxCanProduce;
+
+        ProductEntry(Long productId, Integer maxCanProduce) {
+            this.productId = productId;
+            this.maxCanProduce = maxCanProduce;
+        }
+    }
+
+    public static class MaterialEntry {
+        public Long rawMaterialId;
+        public Long availableStock;
+
+        MaterialEntry(Long rawMaterialId, Long availableStock) {
+            this.rawMaterialId = rawMaterialId;
+            this.availableStock = availableStock;
+        }
+    }
+
+    @ConfigProperty(name = "inventory.events.max-pending", defaultValue = "1000")
+    int maxPending;
+
+    @Inject
+    CapacityIndex capacityIndex;
+
+    @Inject
+    EntityManager em;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Set<Long> changedMaterials = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    // houve um intervalo sem assinantes (mudanças descartadas): o estado publicado envelheceu
+    private final AtomicBoolean resetDue = new AtomicBoolean();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "capacity-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // último estado publicado (só o dispatcher escreve)
+    private volatile Map<Long, Integer> capacities;
+    private volatile Map<Long, Long> stock;
+    private volatile long sequence;
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.sink.close();
+        }
+    }
+
+    void onCatalogChange(@Observes @Priority(CatalogChange.NOTIFY) CatalogChange change) {
+        if (subscribers.isEmpty()) {
+            resetDue.set(true);
+            return;
+        }
+        changedMaterials.addAll(change.materialIds());
+        schedule();
+    }
+
+    public void subscribe(SseEventSink sink, Sse sse) {
+        subscribers.add(new Subscriber(sink, sse));
+        schedule();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscribers.remove(subscriber) && subscribers.isEmpty()) {
+            resetDue.set(true);
+        }
+        subscriber.sink.close();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            dispatcher.execute(this::dispatch);
+        }
+    }
+
+    private void dispatch() {
+        scheduled.set(false);
+        subscribers.removeIf(s -> s.sink.isClosed());
+        boolean reset = resetDue.getAndSet(false);
+
+        if (subscribers.isEmpty()) {
+            // sem assinantes o estado envelhece: recarrega no próximo
+            capacities = null;
+            stock = null;
+            changedMaterials.clear();
+            return;
+        }
+        if (reset) {
+            capacities = null;
+            changedMaterials.clear();
+            for (Subscriber subscriber : subscribers) {
+                subscriber.resync();
+            }
+        }
+
+        Set<Long> materials = new HashSet<>(changedMaterials);
+        changedMaterials.removeAll(materials);
+
+        CapacityEvent delta;
+        try {
+            delta = QuarkusTransaction.requiringNew().call(() -> capacities == null ? load() : diff(materials));
+        } catch (RuntimeException e) {
+            Log.warnf(e, "Capacity events: refresh failed, subscribers will get a snapshot");
+            capacities = null;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.resync();
+            }
+            return;
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(delta);
+        }
+    }
+
+    /** Full load; every subscriber that is waiting for a snapshot gets one. */
+    private CapacityEvent load() {
+        Map<Long, Integer> loadedCapacities = new HashMap<>();
+        for (ProductCapacity c : capacityIndex.current()) {
+            loadedCapacities.put(c.productId(), c.maxCanProduce());
+        }
+        Map<Long, Long> loadedStock = new HashMap<>();
+        for (Object[] row : em.createQuery(STOCK_SELECT, Object[].class).getResultList()) {
+            loadedStock.put((Long) row[0], ((Integer) row[1]).longValue());
+        }
+
+        capacities = loadedCapacities;
+        stock = loadedStock;
+        sequence++;
+        return null;
+    }
+
+    private CapacityEvent diff(Set<Long> materials) {
+        CapacityEvent delta = new CapacityEvent();
+        delta.sequence = ++sequence;
+
+        Map<Long, Integer> current = new HashMap<>();
+        for (ProductCapacity c : capacityIndex.current()) {
+            current.put(c.productId(), c.maxCanProduce());
+            if (!Integer.valueOf(c.maxCanProduce()).equals(capacities.get(c.productId()))) {
+                delta.products.add(new ProductEntry(c.productId(), c.maxCanProduce()));
+            }
+        }
+        for (Long productId : capacities.keySet()) {
+            if (!current.containsKey(productId)) {
+                delta.removedProductIds.add(productId);
+            }
+        }
+        capacities = current;
+
+        if (!materials.isEmpty()) {
+            Map<Long, Long> next = new HashMap<>(stock);
+            Set<Long> missing = new HashSet<>(materials);
+            for (Object[] row : em.createQuery(STOCK_SELECT + " where rm.id in :ids", Object[].class)
+                    .setParameter("ids", materials)
+                    .getResultList()) {
+                Long id = (Long) row[0];
+                Long available = ((Integer) row[1]).longValue();
+                missing.remove(id);
+                if (!available.equals(next.put(id, available))) {
+                    delta.materials.add(new MaterialEntry(id, available));
+                }
+            }
+            for (Long id : missing) {
+                if (next.remove(id) != null) {
+                    delta.removedMaterialIds.add(id);
+                }
+            }
+            stock = next;
+        }
+
+        return delta;
+    }
+
+    private CapacityEvent snapshot() {
+        CapacityEvent event = new CapacityEvent();
+        event.sequence = sequence;
+        new TreeMap<>(capacities).forEach((id, max) -> event.products.add(new ProductEntry(id, max)));
+        new TreeMap<>(stock).forEach((id, available) -> event.materials.add(new MaterialEntry(id, available)));
+        return event;
+    }
+
+    /**
+     * One SSE client: at most one send in flight, everything newer coalesced
+     * into the pending maps.
+     */
+    private final class Subscriber {
+
+        final SseEventSink sink;
+        final Sse sse;
+
+        final Map<Long, Integer> products = new TreeMap<>();
+        final Set<Long> removedProducts = new TreeSet<>();
+        final Map<Long, Long> materials = new TreeMap<>();
+        final Set<Long> removedMaterials = new TreeSet<>();
+        long pendingSequence;
+
+        boolean snapshotDue = true;
+        boolean sending;
+
+        Subscriber(SseEventSink sink, Sse sse) {
+            this.sink = sink;
+            this.sse = sse;
+        }
+
+        synchronized void resync() {
+            clearPending();
+            snapshotDue = true;
+        }
+
+        synchronized void offer(CapacityEvent delta) {
+            if (delta != null && !snapshotDue) {
+                for (ProductEntry e : delta.products) {
+                    products.put(e.productId, e.maxCanProduce);
+                    removedProducts.remove(e.productId);
+                }
+                for (Long id : delta.removedProductIds) {
+                    products.remove(id);
+                    removedProducts.add(id);
+                }
+                for (MaterialEntry e : delta.materials) {
+                    materials.put(e.rawMaterialId, e.availableStock);
+                    removedMaterials.remove(e.rawMaterialId);
+                }
+                for (Long id : delta.removedMaterialIds) {
+                    materials.remove(id);
+                    removedMaterials.add(id);
+                }
+                pendingSequence = delta.sequence;
+
+                // cliente atrasado: descarta os deltas e manda um snapshot
+                if (products.size() + removedProducts.size() + materials.size() + removedMaterials.size()
+                        > maxPending) {
+                    resync();
+                }
+            }
+            sendNext();
+        }
+
+        private void sendNext() {
+            if (sending || sink.isClosed() || capacities == null) {
+                return;
+            }
+
+            OutboundSseEvent event;
+            if (snapshotDue) {
+                event = build(SNAPSHOT, snapshot());
+                snapshotDue = false;
+                clearPending();
+            } else if (!products.isEmpty() || !removedProducts.isEmpty()
+                    || !materials.isEmpty() || !removedMaterials.isEmpty()) {
+                CapacityEvent delta = new CapacityEvent();
+                delta.sequence = pendingSequence;
+                products.forEach((id, max) -> delta.products.add(new ProductEntry(id, max)));
+                delta.removedProductIds.addAll(removedProducts);
+                materials.forEach((id, available) -> delta.materials.add(new MaterialEntry(id, available)));
+                delta.removedMaterialIds.addAll(removedMaterials);
+                event = build(DELTA, delta);
+                clearPending();
+            } else {
+                return;
+            }
+
+            sending = true;
+            sink.send(event).whenComplete((ignored, error) -> sent(error));
+        }
+
+        private synchronized void sent(Throwable error) {
+            sending = false;
+            if (error != null) {
+                unsubscribe(this);
+                return;
+            }
+            sendNext();
+        }
+
+        private OutboundSseEvent build(String name, CapacityEvent data) {
+            return sse.newEventBuilder()
+                    .name(name)
+                    .id(Long.toString(data.sequence))
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(CapacityEvent.class, data)
+                    .build();
+        }
+
+        private void clearPending() {
+            products.clear();
+            removedProducts.clear();
+            materials.clear();
+            removedMaterials.clear();
+        }
+    }
+}
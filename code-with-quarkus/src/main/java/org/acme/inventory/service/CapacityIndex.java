@@ -0,0 +1,215 @@
+package org.acme.inventory.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Resident max-producible index, keyed by product id, with a reverse
+ * material -> products adjacency.
+ *
+ * Committed {@link CatalogChange}s only mark the affected products as stale;
+ * the next read recomputes just those products with one BOM query, so reads
+ * cost O(result size) while nothing changes. Products that use a changed
+ * product as a sub-assembly are marked too.
+ */
+@ApplicationScoped
+public class CapacityIndex {
+
+    /** Above this many stale products a full reload is cheaper than an IN query. */
+    static final int FULL_RELOAD_THRESHOLD = 500;
+
+    public record ProductCapacity(long productId, String productName, double unitPrice,
+                                  int maxCanProduce, long[] materialIds) {
+    }
+
+    public record Mismatch(long productId, Integer indexed, Integer actual) {
+    }
+
+    @Inject
+    CapacityEngine engine;
+
+    @Inject
+    BomExplosion explosion;
+
+    private volatile NavigableMap<Long, ProductCapacity> byProduct = new ConcurrentSkipListMap<>();
+    private volatile Map<Long, Set<Long>> productsByMaterial = new ConcurrentHashMap<>();
+    private final Set<Long> staleProducts = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile boolean loaded;
+
+    void onCatalogChange(@Observes @Priority(CatalogChange.INVALIDATE_INDEX) CatalogChange change) {
+        staleProducts.addAll(change.productIds());
+        staleProducts.addAll(explosion.ancestors(change.productIds()));
+        for (Long materialId : change.materialIds()) {
+            Set<Long> products = productsByMaterial.get(materialId);
+            if (products != null) {
+                staleProducts.addAll(products);
+            }
+        }
+    }
+
+    /**
+     * Current capacity of every product that has a BOM, ordered by product id.
+     */
+    public Collection<ProductCapacity> current() {
+        if (!loaded || !staleProducts.isEmpty()) {
+            refresh();
+        }
+        return byProduct.values();
+    }
+
+    /**
+     * Same as {@link #current()} when no refresh is pending, otherwise
+     * {@code null}. Never touches the database, so it is safe on an event loop.
+     */
+    public Collection<ProductCapacity> currentIfFresh() {
+        if (!loaded || !staleProducts.isEmpty()) {
+            return null;
+        }
+        return byProduct.values();
+    }
+
+    /**
+     * Recomputes every product from the database and reports the entries that
+     * disagree with the index. With {@code repair} the index is rebuilt.
+     */
+    public List<Mismatch> verify(boolean repair) {
+        BomSnapshot bom = engine.snapshot();
+        NavigableMap<Long, ProductCapacity> indexed = byProduct;
+
+        List<Mismatch> mismatches = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+
+        for (int p = 0; p < bom.productCount(); p++) {
+            long productId = bom.productIds[p];
+            int actual = bom.maxCanProduce(p);
+            seen.add(productId);
+
+            ProductCapacity entry = indexed.get(productId);
+            if (entry == null || entry.maxCanProduce() != actual
+                    || !entry.productName().equals(bom.productNames[p])
+                    || entry.unitPrice() != bom.unitPrices[p]) {
+                mismatches.add(new Mismatch(productId, entry == null ? null : entry.maxCanProduce(), actual));
+            }
+        }
+
+        for (ProductCapacity entry : indexed.values()) {
+            if (!seen.contains(entry.productId())) {
+                mismatches.add(new Mismatch(entry.productId(), entry.maxCanProduce(), null));
+            }
+        }
+
+        if (repair && !mismatches.isEmpty()) {
+            refreshLock.lock();
+            try {
+                rebuild(bom);
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+
+        return mismatches;
+    }
+
+    private void refresh() {
+        refreshLock.lock();
+        try {
+            if (!loaded) {
+                staleProducts.clear();
+                rebuild(engine.snapshot());
+                return;
+            }
+
+            if (staleProducts.isEmpty()) {
+                return;
+            }
+
+            // drena antes de consultar: mudanças que chegarem depois ficam para a próxima leitura
+            Set<Long> stale = new HashSet<>(staleProducts);
+            staleProducts.removeAll(stale);
+
+            if (stale.size() > FULL_RELOAD_THRESHOLD) {
+                rebuild(engine.snapshot());
+            } else {
+                update(stale, engine.snapshot(stale));
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void rebuild(BomSnapshot bom) {
+        NavigableMap<Long, ProductCapacity> fresh = new ConcurrentSkipListMap<>();
+        Map<Long, Set<Long>> adjacency = new ConcurrentHashMap<>();
+
+        for (int p = 0; p < bom.productCount(); p++) {
+            ProductCapacity entry = toEntry(bom, p);
+            fresh.put(entry.productId(), entry);
+            link(adjacency, entry);
+        }
+
+        byProduct = fresh;
+        productsByMaterial = adjacency;
+        loaded = true;
+    }
+
+    private void update(Set<Long> productIds, BomSnapshot bom) {
+        Set<Long> present = new HashSet<>();
+
+        for (int p = 0; p < bom.productCount(); p++) {
+            ProductCapacity entry = toEntry(bom, p);
+            present.add(entry.productId());
+            unlink(byProduct.put(entry.productId(), entry));
+            link(productsByMaterial, entry);
+        }
+
+        // removidos ou sem BOM
+        for (Long productId : productIds) {
+            if (!present.contains(productId)) {
+                unlink(byProduct.remove(productId));
+            }
+        }
+    }
+
+    private static void link(Map<Long, Set<Long>> adjacency, ProductCapacity entry) {
+        for (long materialId : entry.materialIds()) {
+            adjacency.computeIfAbsent(materialId, k -> ConcurrentHashMap.newKeySet())
+                    .add(entry.productId());
+        }
+    }
+
+    private void unlink(ProductCapacity entry) {
+        if (entry == null) {
+            return;
+        }
+        for (long materialId : entry.materialIds()) {
+            Set<Long> products = productsByMaterial.get(materialId);
+            if (products != null) {
+                products.remove(entry.productId());
+            }
+        }
+    }
+
+    private static ProductCapacity toEntry(BomSnapshot bom, int p) {
+        long[] materialIds = new long[bom.lineStart[p + 1] - bom.lineStart[p]];
+        for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+            materialIds[l - bom.lineStart[p]] = bom.materialIds[bom.lineMaterial[l]];
+        }
+
+        return new ProductCapacity(bom.productIds[p], bom.productNames[p], bom.unitPrices[p],
+                bom.maxCanProduce(p), materialIds);
+    }
+}
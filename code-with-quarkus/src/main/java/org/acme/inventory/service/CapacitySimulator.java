@@ -0,0 +1,148 @@
+package org.acme.inventory.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * What-if capacity over hypothetical stock changes. Every scenario is a
+ * sparse copy-on-write overlay (material index -> simulated stock) on top of
+ * the shared, never modified stock array of one {@link BomSnapshot}; only
+ * the products that consume an overlaid material are recomputed. Scenarios
+ * are evaluated in parallel on a dedicated pool.
+ */
+@ApplicationScoped
+public class CapacitySimulator {
+
+    /** Sparse stock change, by material id. */
+    public record Scenario(String name, Map<Long, Long> deltas) {
+    }
+
+    /** Products whose capacity differs from the baseline (indexes into the snapshot). */
+    public record Outcome(String name, int[] products, int[] maxCanProduce) {
+    }
+
+    public record Result(BomSnapshot bom, int[] baseline, List<Outcome> outcomes) {
+    }
+
+    @ConfigProperty(name = "inventory.simulate.parallelism", defaultValue = "0")
+    int parallelism;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public Result simulate(BomSnapshot bom, List<Scenario> scenarios) {
+        int[] baseline = bom.maxCanProduce();
+        Consumers consumers = new Consumers(bom);
+
+        Map<Long, Integer> materialIndex = new HashMap<>();
+        for (int m = 0; m < bom.materialCount(); m++) {
+            materialIndex.put(bom.materialIds[m], m);
+        }
+
+        List<Outcome> outcomes = pool.submit(() -> scenarios.parallelStream()
+                .map(s -> evaluate(bom, baseline, consumers, materialIndex, s))
+                .toList()).join();
+
+        return new Result(bom, baseline, outcomes);
+    }
+
+    private static Outcome evaluate(BomSnapshot bom, int[] baseline, Consumers consumers,
+                                    Map<Long, Integer> materialIndex, Scenario scenario) {
+        // overlay: só as matérias-primas alteradas; o resto lê o array base
+        Map<Integer, Long> overlay = new HashMap<>();
+        scenario.deltas().forEach((materialId, delta) -> {
+            Integer m = materialIndex.get(materialId);
+            if (m != null) {
+                overlay.merge(m, bom.materialStock[m] + delta, (current, ignored) -> current + delta);
+            }
+        });
+
+        int[] affected = consumers.of(overlay.keySet());
+        int[] products = new int[affected.length];
+        int[] values = new int[affected.length];
+        int changed = 0;
+
+        for (int p : affected) {
+            int simulated = maxCanProduce(bom, p, overlay);
+            if (simulated != baseline[p]) {
+                products[changed] = p;
+                values[changed++] = simulated;
+            }
+        }
+
+        return new Outcome(scenario.name(),
+                Arrays.copyOf(products, changed), Arrays.copyOf(values, changed));
+    }
+
+    private static int maxCanProduce(BomSnapshot bom, int p, Map<Integer, Long> overlay) {
+        long max = Integer.MAX_VALUE;
+        for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+            int m = bom.lineMaterial[l];
+            Long simulated = overlay.get(m);
+            long available = simulated != null ? simulated : bom.materialStock[m];
+            int perUnit = bom.lineConsumption[l];
+
+            if (available <= 0 || perUnit <= 0) {
+                return 0;
+            }
+            max = Math.min(max, available / perUnit);
+        }
+        return (int) max;
+    }
+
+    /** Material index -> products consuming it (CSR), built once per request. */
+    private static final class Consumers {
+
+        final int[] start;
+        final int[] products;
+
+        Consumers(BomSnapshot bom) {
+            int materials = bom.materialCount();
+            start = new int[materials + 1];
+            for (int l = 0; l < bom.lineMaterial.length; l++) {
+                start[bom.lineMaterial[l] + 1]++;
+            }
+            for (int m = 0; m < materials; m++) {
+                start[m + 1] += start[m];
+            }
+
+            products = new int[bom.lineMaterial.length];
+            int[] fill = Arrays.copyOf(start, materials);
+            for (int p = 0; p < bom.productCount(); p++) {
+                for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+                    products[fill[bom.lineMaterial[l]]++] = p;
+                }
+            }
+        }
+
+        int[] of(Iterable<Integer> materials) {
+            BitSet seen = new BitSet();
+            for (int m : materials) {
+                for (int i = start[m]; i < start[m + 1]; i++) {
+                    seen.set(products[i]);
+                }
+            }
+            return seen.stream().toArray();
+        }
+    }
+}
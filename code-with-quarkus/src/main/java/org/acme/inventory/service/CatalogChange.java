@@ -0,0 +1,31 @@
+package org.acme.inventory.service;
+
+import java.util.Set;
+
+import jakarta.interceptor.Interceptor;
+
+/**
+ * Committed catalog mutation: products whose definition or BOM changed and
+ * raw materials whose stock (or definition) changed.
+ * Fired by {@link CatalogChangeTracker} only after the transaction commits.
+ *
+ * Observers run in the order of the priorities below (lowest first): caches
+ * drop what the change made stale, then the capacity index marks its
+ * products, and only then are the versions bumped, so a GET that sees the
+ * new version can never be answered from an old value. Subscribers hear of
+ * the change last.
+ */
+public record CatalogChange(Set<Long> productIds, Set<Long> materialIds) {
+
+    /** Second-level cache and memoized BOM explosions. */
+    public static final int EVICT_CACHES = Interceptor.Priority.APPLICATION + 100;
+
+    /** Stale marks of {@link CapacityIndex}. */
+    public static final int INVALIDATE_INDEX = Interceptor.Priority.APPLICATION + 200;
+
+    /** {@link CatalogVersions} (ETags). */
+    public static final int BUMP_VERSIONS = Interceptor.Priority.APPLICATION + 300;
+
+    /** Push to clients ({@link CapacityEvents}). */
+    public static final int NOTIFY = Interceptor.Priority.APPLICATION + 400;
+}
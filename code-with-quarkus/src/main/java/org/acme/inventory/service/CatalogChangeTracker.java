@@ -0,0 +1,86 @@
+package org.acme.inventory.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Collects the products and raw materials touched by the current transaction
+ * and fires a single {@link CatalogChange} after it commits. Rolled back
+ * transactions fire nothing.
+ */
+@ApplicationScoped
+public class CatalogChangeTracker {
+
+    private static final Object KEY = CatalogChangeTracker.class;
+
+    @Inject
+    TransactionSynchronizationRegistry registry;
+
+    @Inject
+    Event<CatalogChange> events;
+
+    public void productChanged(Long productId) {
+        productsChanged(Set.of(productId));
+    }
+
+    public void productsChanged(Collection<Long> productIds) {
+        Pending pending = pending();
+        if (pending == null) {
+            events.fire(new CatalogChange(Set.copyOf(productIds), Set.of()));
+            return;
+        }
+        pending.products.addAll(productIds);
+    }
+
+    public void materialChanged(Long materialId) {
+        materialsChanged(Set.of(materialId));
+    }
+
+    public void materialsChanged(Collection<Long> materialIds) {
+        Pending pending = pending();
+        if (pending == null) {
+            events.fire(new CatalogChange(Set.of(), Set.copyOf(materialIds)));
+            return;
+        }
+        pending.materials.addAll(materialIds);
+    }
+
+    private Pending pending() {
+        if (registry.getTransactionKey() == null) {
+            return null;
+        }
+
+        Pending pending = (Pending) registry.getResource(KEY);
+        if (pending == null) {
+            pending = new Pending();
+            registry.putResource(KEY, pending);
+            registry.registerInterposedSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private class Pending implements Synchronization {
+
+        final Set<Long> products = new HashSet<>();
+        final Set<Long> materials = new HashSet<>();
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == Status.STATUS_COMMITTED && !(products.isEmpty() && materials.isEmpty())) {
+                events.fire(new CatalogChange(Set.copyOf(products), Set.copyOf(materials)));
+            }
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package org.acme.inventory.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.acme.inventory.domain.MaterialUsage;
+import org.acme.inventory.domain.Product;
+import org.acme.inventory.domain.RawMaterial;
+import org.acme.inventory.service.ImportRows.Format;
+import org.acme.inventory.service.ImportRows.Row;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Streaming bulk import of raw materials, products and BOM lines.
+ *
+ * Uniqueness is checked against in-memory key sets loaded once per import
+ * and extended with the keys of every row that passes validation, so
+ * duplicates inside the file are caught too; keys of rejected rows and of
+ * rolled back chunks are never (or no longer) taken. Rows are inserted in
+ * chunks, one transaction per chunk, with Hibernate JDBC batching and the
+ * pooled sequence ids of PanacheEntity. A chunk the database rejects (length,
+ * constraint) is retried one row per transaction, so only the offending rows
+ * are reported.
+ */
+@ApplicationScoped
+public class CatalogImporter {
+
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    public static class ImportReport {
+        public long imported;
+        public long failed;
+        public boolean errorsTruncated;
+        public List<RowError> errors = new ArrayList<>();
+    }
+
+    public static class RowError {
+        public long row;
+        public String message;
+
+        RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Maps one row to a new entity, or throws IllegalArgumentException with
+     * the reason. Unique keys go through {@code claims} and are only taken
+     * once the whole row is valid.
+     */
+    private interface RowMapper {
+        Object map(Map<String, String> values, Claims claims);
+    }
+
+    /** Unique keys of one row: checked while mapping, registered once the row is accepted. */
+    private static final class Claims {
+        private final List<Set<String>> sets = new ArrayList<>(2);
+        private final List<String> keys = new ArrayList<>(2);
+
+        String unique(Set<String> taken, String value, String message) {
+            String key = Product.key(value);
+            if (taken.contains(key)) {
+                throw new IllegalArgumentException(message);
+            }
+            sets.add(taken);
+            keys.add(key);
+            return value;
+        }
+
+        void register() {
+            for (int i = 0; i < keys.size(); i++) {
+                sets.get(i).add(keys.get(i));
+            }
+        }
+
+        void release() {
+            for (int i = 0; i < keys.size(); i++) {
+                sets.get(i).remove(keys.get(i));
+            }
+        }
+    }
+
+    @ConfigProperty(name = "inventory.import.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    CatalogChangeTracker changes;
+
+    @Inject
+    StockLedger ledger;
+
+    public ImportReport importRawMaterials(InputStream body, Format format) {
+        Set<String> codes = keys("select e.codeKey from RawMaterial e");
+        Set<String> descriptions = keys("select e.descriptionKey from RawMaterial e");
+
+        return run(body, format, (values, claims) -> {
+            RawMaterial rm = new RawMaterial();
+            rm.code = claims.unique(codes, required(values, "code"), "Raw material code already exists.");
+            rm.description = claims.unique(descriptions, required(values, "description"),
+                    "Raw material description already exists.");
+            rm.availableStock = integer(values, "availableStock");
+            return rm;
+        }, null, rm -> ((RawMaterial) rm).id);
+    }
+
+    public ImportReport importProducts(InputStream body, Format format) {
+        Set<String> codes = keys("select e.codeKey from Product e");
+        Set<String> names = keys("select e.nameKey from Product e");
+
+        return run(body, format, (values, claims) -> {
+            Product product = new Product();
+            product.code = claims.unique(codes, required(values, "code"), "Product code already exists.");
+            product.name = claims.unique(names, required(values, "name"), "Product name already exists.");
+            try {
+                product.unitPrice = Double.valueOf(required(values, "unitPrice"));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("unitPrice must be a number.");
+            }
+            return product;
+        }, product -> ((Product) product).id, null);
+    }
+
+    /**
+     * BOM lines reference products and raw materials either by id
+     * ({@code productId}, {@code rawMaterialId}) or by code
+     * ({@code productCode}, {@code rawMaterialCode}).
+     */
+    public ImportReport importMaterialUsage(InputStream body, Format format) {
+        Map<String, Long> productsByCode = idsByKey("select e.codeKey, e.id from Product e");
+        Map<String, Long> materialsByCode = idsByKey("select e.codeKey, e.id from RawMaterial e");
+        Set<Long> productIds = new HashSet<>(productsByCode.values());
+        Set<Long> materialIds = new HashSet<>(materialsByCode.values());
+
+        return run(body, format, (values, claims) -> {
+            Long productId = reference(values, "productId", "productCode", productsByCode, productIds, "Product");
+            Long materialId = reference(values, "rawMaterialId", "rawMaterialCode", materialsByCode, materialIds,
+                    "RawMaterial");
+
+            MaterialUsage usage = new MaterialUsage();
+            usage.product = em.getReference(Product.class, productId);
+            usage.rawMaterial = em.getReference(RawMaterial.class, materialId);
+            usage.consumptionPerUnit = integer(values, "consumptionPerUnit");
+            return usage;
+        }, usage -> ((MaterialUsage) usage).product.id, null);
+    }
+
+    private ImportReport run(InputStream body, Format format, RowMapper mapper,
+                             Function<Object, Long> changedProduct, Function<Object, Long> changedMaterial) {
+        ImportReport report = new ImportReport();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+
+        try (ImportRows rows = new ImportRows(body, format)) {
+            Row row;
+            while ((row = rows.next()) != null) {
+                if (row.error() != null) {
+                    fail(report, row.number(), row.error());
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    flush(chunk, mapper, changedProduct, changedMaterial, report);
+                    chunk.clear();
+                }
+            }
+            flush(chunk, mapper, changedProduct, changedMaterial, report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return report;
+    }
+
+    private void flush(List<Row> chunk, RowMapper mapper, Function<Object, Long> changedProduct,
+                       Function<Object, Long> changedMaterial, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        try {
+            insert(chunk, mapper, changedProduct, changedMaterial, report);
+        } catch (RuntimeException e) {
+            // o banco recusou alguma linha e o chunk foi revertido: refaz linha a linha
+            for (Row row : chunk) {
+                try {
+                    insert(List.of(row), mapper, changedProduct, changedMaterial, report);
+                } catch (RuntimeException rowFailure) {
+                    fail(report, row.number(), rootMessage(rowFailure));
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts {@code rows} in one transaction and reports the rows that failed
+     * validation. If the transaction fails nothing is reported and the keys
+     * of its rows are released.
+     */
+    private void insert(List<Row> rows, RowMapper mapper, Function<Object, Long> changedProduct,
+                        Function<Object, Long> changedMaterial, ImportReport report) {
+        List<RowError> rejected = new ArrayList<>();
+        List<Claims> accepted = new ArrayList<>(rows.size());
+        try {
+            int inserted = QuarkusTransaction.requiringNew().call(() -> {
+                Set<Long> products = new HashSet<>();
+                Set<Long> materials = new HashSet<>();
+                Map<Long, Long> receipts = new HashMap<>();
+                int count = 0;
+
+                for (Row row : rows) {
+                    Claims claims = new Claims();
+                    Object entity;
+                    try {
+                        entity = mapper.map(row.values(), claims);
+                    } catch (IllegalArgumentException e) {
+                        rejected.add(new RowError(row.number(), e.getMessage()));
+                        continue;
+                    }
+                    claims.register();
+                    accepted.add(claims);
+
+                    em.persist(entity);
+                    count++;
+                    if (changedProduct != null) {
+                        products.add(changedProduct.apply(entity));
+                    }
+                    if (changedMaterial != null) {
+                        materials.add(changedMaterial.apply(entity));
+                    }
+                    if (entity instanceof RawMaterial rm) {
+                        receipts.put(rm.id, rm.availableStock.longValue());
+                    }
+                }
+
+                // insere em batch JDBC e libera o contexto de persistência do chunk
+                em.flush();
+                em.clear();
+                // estoque inicial das matérias-primas importadas entra no ledger como RECEIPT
+                ledger.received(receipts);
+                changes.productsChanged(products);
+                changes.materialsChanged(materials);
+                return count;
+            });
+
+            report.imported += inserted;
+            for (RowError error : rejected) {
+                fail(report, error.row, error.message);
+            }
+        } catch (RuntimeException e) {
+            for (Claims claims : accepted) {
+                claims.release();
+            }
+            throw e;
+        }
+    }
+
+    private static void fail(ImportReport report, long row, String message) {
+        report.failed++;
+        if (report.errors.size() < MAX_REPORTED_ERRORS) {
+            report.errors.add(new RowError(row, message));
+        } else {
+            report.errorsTruncated = true;
+        }
+    }
+
+    private Set<String> keys(String jpql) {
+        return new HashSet<>(em.createQuery(jpql, String.class).getResultList());
+    }
+
+    private Map<String, Long> idsByKey(String jpql) {
+        Map<String, Long> ids = new HashMap<>();
+        for (Object[] row : em.createQuery(jpql, Object[].class).getResultList()) {
+            ids.put((String) row[0], (Long) row[1]);
+        }
+        return ids;
+    }
+
+    private static String required(Map<String, String> values, String field) {
+        String value = values.get(field);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException(field + " is required.");
+        }
+        return value.trim();
+    }
+
+    private static Integer integer(Map<String, String> values, String field) {
+        try {
+            return Integer.valueOf(required(values, field));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " must be an integer.");
+        }
+    }
+
+    private static Long reference(Map<String, String> values, String idField, String codeField,
+                                  Map<String, Long> byCode, Set<Long> ids, String entity) {
+        String id = values.get(idField);
+        if (id != null && !id.isBlank()) {
+            try {
+                Long value = Long.valueOf(id.trim());
+                if (ids.contains(value)) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(idField + " must be a number.");
+            }
+            throw new IllegalArgumentException(entity + " not found: " + id);
+        }
+
+        Long byKey = byCode.get(Product.key(required(values, codeField)));
+        if (byKey == null) {
+            throw new IllegalArgumentException(entity + " not found: " + values.get(codeField));
+        }
+        return byKey;
+    }
+
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,48 @@
+package org.acme.inventory.service;
+
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Fills the normalized key columns (codeKey, nameKey, descriptionKey) of rows
+ * created before they existed. New and updated rows are kept in sync by the
+ * entities themselves, so after the first start this is a no-op.
+ */
+@ApplicationScoped
+public class CatalogKeyBackfill {
+
+    @Inject
+    EntityManager em;
+
+    void onStart(@Observes StartupEvent event) {
+        try {
+            int rows = backfill();
+            if (rows > 0) {
+                Log.infof("Backfilled normalized keys of %d catalog rows", rows);
+            }
+        } catch (RuntimeException e) {
+            // duplicatas case-insensitive antigas precisam ser corrigidas manualmente
+            Log.warn("Could not backfill normalized catalog keys; existing rows differing only by case?", e);
+        }
+    }
+
+    /** Fills missing keys in a new transaction; returns the rows updated. */
+    public int backfill() {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            int products = em.createQuery("update Product e"
+                    + " set e.codeKey = lower(trim(e.code)), e.nameKey = lower(trim(e.name))"
+                    + " where e.codeKey is null or e.nameKey is null").executeUpdate();
+
+            int materials = em.createQuery("update RawMaterial e"
+                    + " set e.codeKey = lower(trim(e.code)), e.descriptionKey = lower(trim(e.description))"
+                    + " where e.codeKey is null or e.descriptionKey is null").executeUpdate();
+
+            return products + materials;
+        });
+    }
+}
@@ -0,0 +1,116 @@
+package org.acme.inventory.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+/**
+ * Monotonic version counter per catalog aggregate, used as the basis of the
+ * ETags of the GET endpoints.
+ *
+ * Counters are bumped from committed {@link CatalogChange}s, never before the
+ * commit nor before the in-memory state they describe has been invalidated
+ * (observer priorities in {@link CatalogChange}), and callers read the
+ * version before reading the data: a response may carry an older version
+ * than its content (costing one extra 200 later) but never a newer one. The
+ * start-up epoch in every tag keeps tags from a previous run (or another
+ * instance) from matching.
+ */
+@ApplicationScoped
+public class CatalogVersions {
+
+    public enum Aggregate {
+        PRODUCTS("products"),
+        RAW_MATERIALS("raw-materials"),
+        MATERIAL_USAGE("material-usage"),
+        PRODUCTION_CHECK("production-check");
+
+        final String tag;
+
+        Aggregate(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private static final Base64.Encoder DIGEST = Base64.getUrlEncoder().withoutPadding();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray versions = new AtomicLongArray(Aggregate.values().length);
+
+    void onCatalogChange(@Observes @Priority(CatalogChange.BUMP_VERSIONS) CatalogChange change) {
+        boolean products = !change.productIds().isEmpty();
+        boolean materials = !change.materialIds().isEmpty();
+        if (!products && !materials) {
+            return;
+        }
+
+        // o evento não distingue produto de BOM: invalida tudo o que pode embutir o registro
+        if (products) {
+            versions.incrementAndGet(Aggregate.PRODUCTS.ordinal());
+        }
+        if (materials) {
+            versions.incrementAndGet(Aggregate.RAW_MATERIALS.ordinal());
+        }
+        versions.incrementAndGet(Aggregate.MATERIAL_USAGE.ordinal());
+        versions.incrementAndGet(Aggregate.PRODUCTION_CHECK.ordinal());
+    }
+
+    public long version(Aggregate aggregate) {
+        return versions.get(aggregate.ordinal());
+    }
+
+    /**
+     * Weak ETag for one representation: the aggregate version plus a SHA-256
+     * of the request path and query, so pages and sparse selections differ.
+     */
+    public String etag(Aggregate aggregate, long version, String path, String query) {
+        return etag(aggregate, version, path, query, null);
+    }
+
+    /**
+     * Same as {@link #etag(Aggregate, long, String, String)} for a response
+     * that also depends on the negotiated format ({@code null} for JSON).
+     */
+    public String etag(Aggregate aggregate, long version, String path, String query, String format) {
+        // separador NUL: nenhum componente o contém, então nada se confunde entre eles
+        String variant = path + '\0' + (query == null ? "" : query) + '\0' + (format == null ? "" : format);
+        return "W/\"" + aggregate.tag + "." + epoch + "." + Long.toString(version, 36)
+                + "." + DIGEST.encodeToString(sha256(variant)) + "\"";
+    }
+
+    /**
+     * Weak comparison of an {@code If-None-Match} header against a tag
+     * produced by {@link #etag}.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        String opaque = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaque(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // obrigatório em toda JVM
+        }
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,241 @@
+package org.acme.inventory.service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.acme.inventory.domain.IdempotencyRecord;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Responses of idempotent requests by request key, bounded by
+ * {@code inventory.idempotency.max-entries} and expiring after
+ * {@code inventory.idempotency.ttl-ms}. The first request of a key owns it
+ * until it completes, or for {@code inventory.idempotency.in-flight-timeout-ms}.
+ * With {@code inventory.idempotency.persist} responses also go to
+ * {@code idempotency_record}, after the request's own transaction.
+ */
+@ApplicationScoped
+public class IdempotencyStore {
+
+    static final int PURGE_EVERY = 1000;
+
+    public record StoredResponse(String fingerprint, int status, String contentType, String location,
+                                 byte[] body) {
+    }
+
+    /**
+     * Outcome of {@link #begin}: the caller either owns the key or gets a
+     * stored response to replay; neither means another request holds the key.
+     */
+    public record Claim(boolean owner, StoredResponse replay) {
+    }
+
+    /** The key was already used for a request with a different body. */
+    public static class KeyReusedException extends RuntimeException {
+        public KeyReusedException() {
+            super("Idempotency-Key was already used for a different request.");
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final String fingerprint;
+        final long startedAt = System.currentTimeMillis();
+        StoredResponse response;
+        long expiresAt = Long.MAX_VALUE;
+
+        Entry(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    @ConfigProperty(name = "inventory.idempotency.ttl-ms", defaultValue = "86400000")
+    long ttlMs;
+
+    @ConfigProperty(name = "inventory.idempotency.max-entries", defaultValue = "100000")
+    int maxEntries;
+
+    @ConfigProperty(name = "inventory.idempotency.in-flight-timeout-ms", defaultValue = "30000")
+    long inFlightTimeoutMs;
+
+    @ConfigProperty(name = "inventory.idempotency.persist", defaultValue = "false")
+    boolean persist;
+
+    @Inject
+    EntityManager em;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Entry> entries = new HashMap<>();
+    // respostas concluídas em ordem de expiresAt (TTL único: ordem de conclusão)
+    private final ArrayDeque<Entry> expiry = new ArrayDeque<>();
+    private final AtomicLong completions = new AtomicLong();
+
+    /**
+     * @throws KeyReusedException if the key is stored or in flight with another fingerprint
+     */
+    public Claim begin(String key, String fingerprint) {
+        long now = System.currentTimeMillis();
+
+        lock.lock();
+        try {
+            evictExpired(now);
+
+            Entry entry = entries.get(key);
+            if (entry != null && entry.response == null && now - entry.startedAt > inFlightTimeoutMs) {
+                // dono sumiu sem responder: a chave volta a ficar livre
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry != null && entry.expiresAt <= now) {
+                // relógio voltou ou a limpeza ainda não chegou nela: não reenvia vencida
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry != null) {
+                if (!entry.fingerprint.equals(fingerprint)) {
+                    throw new KeyReusedException();
+                }
+                return new Claim(false, entry.response);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        StoredResponse persisted = persist ? load(key) : null;
+
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                // outra requisição reivindicou a chave enquanto o banco era lido
+                if (!entry.fingerprint.equals(fingerprint)) {
+                    throw new KeyReusedException();
+                }
+                return new Claim(false, entry.response);
+            }
+
+            if (persisted != null) {
+                if (!persisted.fingerprint().equals(fingerprint)) {
+                    throw new KeyReusedException();
+                }
+                entry = new Entry(key, fingerprint);
+                entry.response = persisted;
+                entry.expiresAt = now + ttlMs;
+                expiry.addLast(entry);
+                put(key, entry);
+                return new Claim(false, persisted);
+            }
+
+            put(key, new Entry(key, fingerprint));
+            return new Claim(true, null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stores the owner's response for later duplicates. */
+    public void complete(String key, StoredResponse response) {
+        Entry entry;
+        lock.lock();
+        try {
+            entry = entries.get(key);
+            if (entry == null || entry.response != null) {
+                return;
+            }
+            entry.response = response;
+            entry.expiresAt = System.currentTimeMillis() + ttlMs;
+            expiry.addLast(entry);
+            trim();
+        } finally {
+            lock.unlock();
+        }
+
+        if (persist) {
+            save(key, response, Instant.ofEpochMilli(entry.expiresAt));
+        }
+    }
+
+    /** The owner's response is not worth replaying (e.g. 5xx): frees the key for a retry. */
+    public void abandon(String key) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.response == null) {
+                entries.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(String key, Entry entry) {
+        entries.put(key, entry);
+        trim();
+    }
+
+    /** Over the limit: drops the completed responses closest to expiry; in-flight keys stay. */
+    private void trim() {
+        while (entries.size() > maxEntries && !expiry.isEmpty()) {
+            drop(expiry.pollFirst());
+        }
+    }
+
+    private void evictExpired(long now) {
+        while (!expiry.isEmpty() && expiry.peekFirst().expiresAt <= now) {
+            drop(expiry.pollFirst());
+        }
+    }
+
+    private void drop(Entry entry) {
+        // a chave pode já ter sido liberada e reivindicada por outra requisição
+        entries.remove(entry.key, entry);
+    }
+
+    private StoredResponse load(String key) {
+        IdempotencyRecord record = em.find(IdempotencyRecord.class, key);
+        if (record == null || record.expiresAt.isBefore(Instant.now())) {
+            return null;
+        }
+        return new StoredResponse(record.fingerprint, record.status, record.contentType, record.location,
+                record.body);
+    }
+
+    private void save(String key, StoredResponse response, Instant expiresAt) {
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                IdempotencyRecord record = em.find(IdempotencyRecord.class, key);
+                if (record == null) {
+                    record = new IdempotencyRecord();
+                    record.requestKey = key;
+                }
+                record.fingerprint = response.fingerprint();
+                record.status = response.status();
+                record.contentType = response.contentType();
+                record.location = response.location();
+                record.body = response.body();
+                record.expiresAt = expiresAt;
+                em.persist(record);
+
+                if (completions.incrementAndGet() % PURGE_EVERY == 0) {
+                    em.createQuery("delete from IdempotencyRecord r where r.expiresAt < :now")
+                            .setParameter("now", Instant.now())
+                            .executeUpdate();
+                }
+            });
+        } catch (RuntimeException e) {
+            // a resposta continua na memória; só não sobrevive a um restart
+            Log.warnf(e, "Idempotency: could not persist the response of %s", key);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.acme.inventory.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Incremental reader of NDJSON or CSV (first line = header) import bodies.
+ * One row is materialized at a time; every value is exposed as a string.
+ */
+public final class ImportRows implements AutoCloseable {
+
+    public enum Format { NDJSON, CSV }
+
+    /** A parsed row, or the parse error for that line. */
+    public record Row(long number, Map<String, String> values, String error) {
+    }
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final BufferedReader reader;
+    private final Format format;
+    private List<String> header;
+    private long lineNumber;
+
+    public ImportRows(InputStream body, Format format) {
+        this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024);
+        this.format = format;
+    }
+
+    /**
+     * Next non-blank row, or {@code null} at end of input.
+     */
+    public Row next() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                if (format == Format.CSV && header == null) {
+                    header = new ArrayList<>();
+                    for (String column : splitCsv(line)) {
+                        header.add(column.trim());
+                    }
+                    continue;
+                }
+
+                try {
+                    return new Row(lineNumber, format == Format.CSV ? csv(line) : ndjson(line), null);
+                } catch (IllegalArgumentException | IOException e) {
+                    return new Row(lineNumber, Map.of(), "Malformed row: " + e.getMessage());
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, String> ndjson(String line) throws IOException {
+        JsonNode node = JSON.readTree(line);
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+
+        Map<String, String> values = new HashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            if (!field.getValue().isNull()) {
+                values.put(field.getKey(), field.getValue().asText());
+            }
+        }
+        return values;
+    }
+
+    private Map<String, String> csv(String line) {
+        List<String> cells = splitCsv(line);
+        if (cells.size() > header.size()) {
+            throw new IllegalArgumentException("expected " + header.size() + " columns, got " + cells.size());
+        }
+
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < cells.size(); i++) {
+            if (!cells.get(i).isEmpty()) {
+                values.put(header.get(i), cells.get(i));
+            }
+        }
+        return values;
+    }
+
+    /** RFC 4180 style split: double quotes, "" escapes a quote. */
+    private static List<String> splitCsv(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
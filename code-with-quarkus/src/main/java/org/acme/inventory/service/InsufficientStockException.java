@@ -0,0 +1,16 @@
+package org.acme.inventory.service;
+
+/**
+ * A guarded stock decrement found less stock than required.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    public final long rawMaterialId;
+    public final long required;
+
+    public InsufficientStockException(long rawMaterialId, long required) {
+        super("Insufficient stock for raw material " + rawMaterialId + " (required " + required + ")");
+        this.rawMaterialId = rawMaterialId;
+        this.required = required;
+    }
+}
@@ -0,0 +1,68 @@
+package org.acme.inventory.service;
+
+import java.util.stream.IntStream;
+
+/**
+ * MRP-style explosion of a demand vector over a {@link BomSnapshot}: total
+ * requirement per raw material, in saturating {@code long} arithmetic.
+ *
+ * The products are split into chunks that accumulate into their own
+ * {@code long[]} (no sharing, no boxing) and are summed at the end; small
+ * demands stay on the calling thread.
+ */
+public final class MaterialRequirements {
+
+    static final int CHUNK_LINES = 4096;
+
+    private MaterialRequirements() {
+    }
+
+    /**
+     * @param demand quantity per product index of {@code bom}
+     * @return required quantity per material index of {@code bom}
+     */
+    public static long[] required(BomSnapshot bom, long[] demand) {
+        int products = bom.productCount();
+        int lines = bom.lineMaterial.length;
+        int chunks = Math.max(1, Math.min(products, lines / CHUNK_LINES));
+
+        if (chunks == 1) {
+            return accumulate(bom, demand, 0, products);
+        }
+
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(c -> accumulate(bom, demand,
+                        (int) ((long) products * c / chunks),
+                        (int) ((long) products * (c + 1) / chunks)))
+                .reduce(MaterialRequirements::sum)
+                .orElseGet(() -> new long[bom.materialCount()]);
+    }
+
+    /** Requirement of one BOM line for the product's demanded quantity. */
+    public static long lineRequirement(BomSnapshot bom, int line, long quantity) {
+        return BomExplosion.multiply(bom.lineConsumption[line], quantity);
+    }
+
+    private static long[] accumulate(BomSnapshot bom, long[] demand, int from, int to) {
+        long[] required = new long[bom.materialCount()];
+        for (int p = from; p < to; p++) {
+            long quantity = demand[p];
+            if (quantity <= 0) {
+                continue;
+            }
+            for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+                int m = bom.lineMaterial[l];
+                required[m] = BomExplosion.add(required[m], lineRequirement(bom, l, quantity));
+            }
+        }
+        return required;
+    }
+
+    private static long[] sum(long[] a, long[] b) {
+        for (int m = 0; m < a.length; m++) {
+            a[m] = BomExplosion.add(a[m], b[m]);
+        }
+        return a;
+    }
+}
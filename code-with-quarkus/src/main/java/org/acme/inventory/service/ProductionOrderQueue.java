@@ -0,0 +1,432 @@
+package org.acme.inventory.service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.acme.inventory.service.StockLedger.WriteMode;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Asynchronous production orders with group commit: one writer thread drains
+ * up to {@code inventory.orders.batch-size} queued orders, validates them
+ * against one BOM/stock snapshot and applies them with one
+ * {@link StockService#decrement} in one transaction. If a synchronous
+ * producer took the stock meanwhile, the orders that use that material are
+ * retried one by one, so a conflict only fails the orders involved.
+ *
+ * With {@code inventory.orders.ordering=priority} each batch takes from the
+ * lanes 0..9 in proportion to {@code priority + 1}. Queued orders are kept in
+ * memory only.
+ */
+@ApplicationScoped
+public class ProductionOrderQueue {
+
+    public static final int MAX_PRIORITY = 9;
+
+    static final int MAX_ATTEMPTS = 3;
+
+    static final long EXPIRE_EVERY_MS = 1_000;
+
+    public enum Ordering { FIFO, PRIORITY }
+
+    public enum Status { QUEUED, PRODUCED, REJECTED, FAILED }
+
+    public record Shortage(long rawMaterialId, long available, long required, long missing) {
+    }
+
+    public static final class Order {
+        public final long id;
+        public final long productId;
+        public final int quantity;
+        public final int priority;
+        public final Instant acceptedAt;
+
+        volatile Status status = Status.QUEUED;
+        volatile String error;
+        volatile List<Shortage> shortages = List.of();
+        volatile Instant completedAt;
+        final CompletableFuture<Order> done = new CompletableFuture<>();
+
+        Order(long id, long productId, int quantity, int priority) {
+            this.id = id;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.priority = priority;
+            this.acceptedAt = Instant.now();
+        }
+
+        public Status status() {
+            return status;
+        }
+
+        public String error() {
+            return error;
+        }
+
+        public List<Shortage> shortages() {
+            return shortages;
+        }
+
+        public Instant completedAt() {
+            return completedAt;
+        }
+
+        /** Completes with this order once it is no longer queued. */
+        public CompletableFuture<Order> done() {
+            return done;
+        }
+    }
+
+    /** The queue already holds {@code inventory.orders.capacity} orders. */
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException(int capacity) {
+            super("Production order queue is full (" + capacity + " orders)");
+        }
+    }
+
+    @ConfigProperty(name = "inventory.orders.capacity", defaultValue = "10000")
+    int capacity;
+
+    @ConfigProperty(name = "inventory.orders.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "inventory.orders.ordering", defaultValue = "fifo")
+    Ordering ordering;
+
+    @ConfigProperty(name = "inventory.orders.retention-ms", defaultValue = "600000")
+    long retentionMs;
+
+    @Inject
+    CapacityEngine capacityEngine;
+
+    @Inject
+    StockService stockService;
+
+    @Inject
+    StockLedger ledger;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Order> orders = new ConcurrentHashMap<>();
+    // só o writer acessa
+    private final ArrayDeque<Order> completed = new ArrayDeque<>();
+
+    private ArrayDeque<Order>[] lanes;
+    private int queued;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "production-orders");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    void init() {
+        lanes = new ArrayDeque[ordering == Ordering.PRIORITY ? MAX_PRIORITY + 1 : 1];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ArrayDeque<>();
+        }
+        writer.execute(this::run);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdownNow();
+    }
+
+    /**
+     * @param priority 0 (lowest) .. {@link #MAX_PRIORITY}; ignored in FIFO ordering
+     * @throws QueueFullException when the queue is at capacity
+     */
+    public Order submit(long productId, int quantity, int priority) {
+        lock.lock();
+        try {
+            if (queued >= capacity) {
+                throw new QueueFullException(capacity);
+            }
+            Order order = new Order(sequence.incrementAndGet(), productId, quantity, priority);
+            orders.put(order.id, order);
+            lanes[lanes.length == 1 ? 0 : priority].addLast(order);
+            queued++;
+            notEmpty.signal();
+            return order;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Queued or recently completed order, {@code null} once expired or unknown. */
+    public Order find(long orderId) {
+        return orders.get(orderId);
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public Ordering ordering() {
+        return ordering;
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Order> batch;
+            try {
+                batch = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (batch.isEmpty()) {
+                expire();
+                continue;
+            }
+
+            try {
+                process(batch);
+            } catch (Throwable e) {
+                // também Error (ex.: StackOverflowError numa BOM profunda): esta é a única thread escritora
+                Log.errorf(e, "Production orders: batch of %d failed", batch.size());
+                for (Order order : batch) {
+                    if (order.status == Status.QUEUED) {
+                        complete(order, Status.FAILED, "Processing failed: " + e.getMessage(), List.of());
+                    }
+                }
+            }
+            expire();
+        }
+    }
+
+    /** Next batch; empty if no order arrived within {@link #EXPIRE_EVERY_MS}. */
+    private List<Order> take() throws InterruptedException {
+        lock.lock();
+        try {
+            long wait = TimeUnit.MILLISECONDS.toNanos(EXPIRE_EVERY_MS);
+            while (queued == 0) {
+                if (wait <= 0) {
+                    return List.of();
+                }
+                wait = notEmpty.awaitNanos(wait);
+            }
+
+            List<Order> batch = new ArrayList<>(Math.min(queued, batchSize));
+            if (lanes.length == 1) {
+                while (batch.size() < batchSize && !lanes[0].isEmpty()) {
+                    batch.add(lanes[0].pollFirst());
+                }
+            } else {
+                // cota proporcional a (prioridade + 1) entre as filas com pedidos
+                int weights = 0;
+                for (int p = 0; p < lanes.length; p++) {
+                    if (!lanes[p].isEmpty()) {
+                        weights += p + 1;
+                    }
+                }
+                for (int p = lanes.length - 1; p >= 0; p--) {
+                    int share = Math.max(1, batchSize * (p + 1) / weights);
+                    while (share-- > 0 && batch.size() < batchSize && !lanes[p].isEmpty()) {
+                        batch.add(lanes[p].pollFirst());
+                    }
+                }
+                // sobra de cota: completa pela maior prioridade
+                for (int p = lanes.length - 1; p >= 0 && batch.size() < batchSize; p--) {
+                    while (batch.size() < batchSize && !lanes[p].isEmpty()) {
+                        batch.add(lanes[p].pollFirst());
+                    }
+                }
+            }
+            queued -= batch.size();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void process(List<Order> batch) {
+        Set<Long> productIds = new HashSet<>();
+        for (Order order : batch) {
+            productIds.add(order.productId);
+        }
+
+        // cada conflito tira mais uma matéria-prima do lote: termina em no máximo materialCount + 1 tentativas
+        Set<Long> contested = new HashSet<>();
+        List<Outcome> outcomes;
+        while (true) {
+            try {
+                outcomes = QuarkusTransaction.requiringNew().call(() -> apply(batch, productIds, contested));
+                break;
+            } catch (InsufficientStockException e) {
+                // produção síncrona consumiu o estoque entre a leitura e a baixa
+                contested.add(e.rawMaterialId);
+            }
+        }
+
+        List<Order> deferred = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Outcome outcome = outcomes.get(i);
+            if (outcome == null) {
+                deferred.add(batch.get(i));
+            } else {
+                complete(batch.get(i), outcome.status, outcome.error, outcome.shortages);
+            }
+        }
+        for (Order order : deferred) {
+            processAlone(order);
+        }
+    }
+
+    /** An order that conflicted inside its batch: validated and applied in its own transaction. */
+    private void processAlone(Order order) {
+        List<Order> single = List.of(order);
+        Set<Long> productIds = Set.of(order.productId);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Outcome outcome = QuarkusTransaction.requiringNew().call(() -> apply(single, productIds, Set.of()))
+                        .get(0);
+                complete(order, outcome.status, outcome.error, outcome.shortages);
+                return;
+            } catch (InsufficientStockException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    registry.counter("inventory.production.shortages", "source", "queue-conflict").increment();
+                    complete(order, Status.FAILED, "Stock kept changing concurrently; submit again.", List.of());
+                    return;
+                }
+            }
+        }
+    }
+
+    private record Outcome(Status status, String error, List<Shortage> shortages) {
+    }
+
+    /**
+     * Validates the batch in order against one snapshot and decrements the
+     * accepted total. Orders that use a {@code contested} material are left
+     * out with a {@code null} outcome.
+     */
+    private List<Outcome> apply(List<Order> batch, Set<Long> productIds, Set<Long> contested) {
+        BomSnapshot bom = capacityEngine.snapshot(productIds);
+        Set<Long> existing = new HashSet<>(em
+                .createQuery("select p.id from Product p where p.id in :ids", Long.class)
+                .setParameter("ids", productIds)
+                .getResultList());
+
+        long[] remaining = bom.materialStock.clone();
+        if (ledger.mode() == WriteMode.LEDGER) {
+            // raw_material só é atualizado depois do commit: valida contra a projeção
+            for (int m = 0; m < remaining.length; m++) {
+                Long available = ledger.available(bom.materialIds[m]);
+                remaining[m] = available == null ? 0 : available;
+            }
+        }
+        long[] total = new long[bom.materialCount()];
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+
+        for (Order order : batch) {
+            if (!existing.contains(order.productId)) {
+                outcomes.add(new Outcome(Status.REJECTED, "PRODUCT_NOT_FOUND", List.of()));
+                continue;
+            }
+            int p = Arrays.binarySearch(bom.productIds, order.productId);
+            if (p < 0) {
+                outcomes.add(new Outcome(Status.REJECTED, "NO_BOM", List.of()));
+                continue;
+            }
+            if (usesAny(bom, p, contested)) {
+                outcomes.add(null);
+                continue;
+            }
+
+            List<Shortage> shortages = new ArrayList<>();
+            for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+                int m = bom.lineMaterial[l];
+                long required = (long) bom.lineConsumption[l] * order.quantity;
+                if (remaining[m] < required) {
+                    shortages.add(new Shortage(bom.materialIds[m], remaining[m], required, required - remaining[m]));
+                }
+            }
+            if (!shortages.isEmpty()) {
+                registry.counter("inventory.production.shortages", "source", "queue").increment();
+                outcomes.add(new Outcome(Status.REJECTED, "INSUFFICIENT_STOCK", shortages));
+                continue;
+            }
+
+            for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+                long required = (long) bom.lineConsumption[l] * order.quantity;
+                remaining[bom.lineMaterial[l]] -= required;
+                total[bom.lineMaterial[l]] += required;
+            }
+            outcomes.add(new Outcome(Status.PRODUCED, null, List.of()));
+        }
+
+        // group commit: uma baixa para o lote inteiro
+        stockService.decrement(bom.materialIds, total,
+                "order batch " + batch.get(0).id + ".." + batch.get(batch.size() - 1).id);
+        return outcomes;
+    }
+
+    private static boolean usesAny(BomSnapshot bom, int p, Set<Long> materialIds) {
+        for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1] && !materialIds.isEmpty(); l++) {
+            if (materialIds.contains(bom.materialIds[bom.lineMaterial[l]])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void complete(Order order, Status status, String error, List<Shortage> shortages) {
+        order.error = error;
+        order.shortages = shortages;
+        order.completedAt = Instant.now();
+        order.status = status;
+        completed.addLast(order);
+        order.done.complete(order);
+    }
+
+    /** Drops completed orders older than the retention window. */
+    private void expire() {
+        Instant limit = Instant.now().minusMillis(retentionMs);
+        while (!completed.isEmpty()
+                && (completed.peekFirst().completedAt.isBefore(limit) || completed.size() > capacity)) {
+            orders.remove(completed.pollFirst().id);
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package org.acme.inventory.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Revenue-maximizing production plan over shared raw materials:
+ *
+ * <pre>
+ *   max  sum(unitPrice[i] * x[i])
+ *   s.t. sum(consumption[i][j] * x[i]) <= stock[j]   for every material j
+ *        x[i] >= 0, integer
+ * </pre>
+ *
+ * Solved by depth-first branch and bound. The bound at each node is the
+ * minimum, over materials, of the LP relaxation that keeps only that
+ * material's constraint (a bounded fractional knapsack). The top of the tree
+ * is searched in parallel on a fork-join pool sharing one incumbent; when the
+ * time budget runs out the best plan found so far is returned as non-optimal.
+ */
+@ApplicationScoped
+public class ProductionPlanner {
+
+    private static final double EPS = 1e-9;
+    private static final int SPLIT_DEPTH = 2;
+
+    public record Plan(BomSnapshot bom, int[] quantities, double totalValue,
+                       boolean optimal, long exploredNodes, long elapsedMs) {
+    }
+
+    @ConfigProperty(name = "inventory.plan.time-budget-ms", defaultValue = "500")
+    long defaultTimeBudgetMs;
+
+    @ConfigProperty(name = "inventory.plan.max-time-budget-ms", defaultValue = "10000")
+    long maxTimeBudgetMs;
+
+    @ConfigProperty(name = "inventory.plan.parallelism", defaultValue = "0")
+    int parallelism;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * @param timeBudgetMs search budget; {@code null} or non-positive uses the configured default
+     */
+    public Plan plan(BomSnapshot bom, Long timeBudgetMs) {
+        long budget = timeBudgetMs == null || timeBudgetMs <= 0
+                ? defaultTimeBudgetMs
+                : Math.min(timeBudgetMs, maxTimeBudgetMs);
+
+        long start = System.nanoTime();
+        Search search = new Search(bom, start + budget * 1_000_000L);
+
+        if (search.n > 0) {
+            long[] stock = bom.materialStock.clone();
+            pool.invoke(new Node(search, 0, stock, new int[search.n], 0.0, 0, search.cap(0, stock)));
+        }
+
+        Incumbent best = search.best.get();
+        int[] quantities = new int[bom.productCount()];
+        for (int k = 0; k < search.n; k++) {
+            quantities[search.order[k]] = best.x[k];
+        }
+
+        return new Plan(bom, quantities, best.value, !search.timedOut,
+                search.nodes.sum(), (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    private record Incumbent(double value, int[] x) {
+    }
+
+    /**
+     * Problem data re-indexed by branching order, plus the shared incumbent.
+     */
+    private static final class Search {
+
+        final int n;
+        final int[] order;
+        final double[] price;
+        final int[] upper;
+
+        // linhas do BOM por produto (ordem de ramificação)
+        final int[] lineStart;
+        final int[] lineMaterial;
+        final int[] lineConsumption;
+
+        // produtos por material, ordenados por preço / consumo (desc)
+        final int[] byMaterialStart;
+        final int[] byMaterialProduct;
+        final int[] byMaterialConsumption;
+
+        final double[] suffixValue;
+
+        final long deadline;
+        final LongAdder nodes = new LongAdder();
+        final AtomicReference<Incumbent> best;
+        volatile boolean timedOut;
+
+        Search(BomSnapshot bom, long deadline) {
+            this.deadline = deadline;
+
+            int products = bom.productCount();
+            int materials = bom.materialCount();
+
+            // candidatos: preço positivo e produzível isoladamente
+            double[] efficiency = new double[products];
+            List<Integer> candidates = new ArrayList<>();
+            for (int p = 0; p < products; p++) {
+                if (bom.unitPrices[p] <= 0 || bom.maxCanProduce(p) <= 0) {
+                    continue;
+                }
+                double weight = 0;
+                for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+                    weight += (double) bom.lineConsumption[l] / bom.materialStock[bom.lineMaterial[l]];
+                }
+                efficiency[p] = bom.unitPrices[p] / weight;
+                candidates.add(p);
+            }
+            candidates.sort(Comparator.comparingDouble((Integer p) -> efficiency[p]).reversed());
+
+            n = candidates.size();
+            order = new int[n];
+            price = new double[n];
+            upper = new int[n];
+            lineStart = new int[n + 1];
+
+            int lines = 0;
+            for (int k = 0; k < n; k++) {
+                int p = candidates.get(k);
+                order[k] = p;
+                price[k] = bom.unitPrices[p];
+                upper[k] = bom.maxCanProduce(p);
+                lines += bom.lineStart[p + 1] - bom.lineStart[p];
+            }
+
+            lineMaterial = new int[lines];
+            lineConsumption = new int[lines];
+            int[] perMaterial = new int[materials + 1];
+            int l = 0;
+            for (int k = 0; k < n; k++) {
+                lineStart[k] = l;
+                int p = order[k];
+                for (int src = bom.lineStart[p]; src < bom.lineStart[p + 1]; src++, l++) {
+                    lineMaterial[l] = bom.lineMaterial[src];
+                    lineConsumption[l] = bom.lineConsumption[src];
+                    perMaterial[lineMaterial[l] + 1]++;
+                }
+            }
+            lineStart[n] = l;
+
+            byMaterialStart = new int[materials + 1];
+            for (int j = 0; j < materials; j++) {
+                byMaterialStart[j + 1] = byMaterialStart[j] + perMaterial[j + 1];
+            }
+            byMaterialProduct = new int[lines];
+            byMaterialConsumption = new int[lines];
+            int[] fill = Arrays.copyOf(byMaterialStart, materials);
+            for (int k = 0; k < n; k++) {
+                for (int e = lineStart[k]; e < lineStart[k + 1]; e++) {
+                    int j = lineMaterial[e];
+                    byMaterialProduct[fill[j]] = k;
+                    byMaterialConsumption[fill[j]] = lineConsumption[e];
+                    fill[j]++;
+                }
+            }
+            for (int j = 0; j < materials; j++) {
+                sortByRatio(byMaterialStart[j], byMaterialStart[j + 1]);
+            }
+
+            suffixValue = new double[n + 1];
+            for (int k = n - 1; k >= 0; k--) {
+                suffixValue[k] = suffixValue[k + 1] + price[k] * upper[k];
+            }
+
+            best = new AtomicReference<>(new Incumbent(0.0, new int[n]));
+        }
+
+        private void sortByRatio(int from, int to) {
+            Integer[] idx = new Integer[to - from];
+            for (int i = 0; i < idx.length; i++) {
+                idx[i] = from + i;
+            }
+            Arrays.sort(idx, Comparator.comparingDouble(
+                    (Integer e) -> price[byMaterialProduct[e]] / byMaterialConsumption[e]).reversed());
+
+            int[] products = new int[idx.length];
+            int[] consumption = new int[idx.length];
+            for (int i = 0; i < idx.length; i++) {
+                products[i] = byMaterialProduct[idx[i]];
+                consumption[i] = byMaterialConsumption[idx[i]];
+            }
+            System.arraycopy(products, 0, byMaterialProduct, from, idx.length);
+            System.arraycopy(consumption, 0, byMaterialConsumption, from, idx.length);
+        }
+
+        /** Largest quantity of product {@code k} the remaining stock allows. */
+        int cap(int k, long[] stock) {
+            long cap = upper[k];
+            for (int l = lineStart[k]; l < lineStart[k + 1]; l++) {
+                cap = Math.min(cap, stock[lineMaterial[l]] / lineConsumption[l]);
+            }
+            return (int) cap;
+        }
+
+        /** Upper bound on the value still obtainable from products {@code k..n-1}. */
+        double bound(int k, long[] stock) {
+            double total = suffixValue[k];
+            double bound = total;
+
+            for (int j = 0; j + 1 < byMaterialStart.length; j++) {
+                double consuming = 0;
+                double relaxed = 0;
+                long left = stock[j];
+                boolean full = false;
+
+                for (int e = byMaterialStart[j]; e < byMaterialStart[j + 1]; e++) {
+                    int t = byMaterialProduct[e];
+                    if (t < k) {
+                        continue;
+                    }
+                    int c = byMaterialConsumption[e];
+                    double all = price[t] * upper[t];
+                    consuming += all;
+
+                    if (!full) {
+                        long need = (long) c * upper[t];
+                        if (need <= left) {
+                            relaxed += all;
+                            left -= need;
+                        } else {
+                            relaxed += price[t] * left / c;
+                            full = true;
+                        }
+                    }
+                }
+
+                double materialBound = total - consuming + relaxed;
+                if (materialBound < bound) {
+                    bound = materialBound;
+                }
+            }
+
+            return bound;
+        }
+
+        boolean tick() {
+            nodes.increment();
+            if (!timedOut && System.nanoTime() > deadline) {
+                timedOut = true;
+            }
+            return !timedOut;
+        }
+
+        void offer(double value, int[] x) {
+            Incumbent current = best.get();
+            while (value > current.value + EPS) {
+                if (best.compareAndSet(current, new Incumbent(value, x.clone()))) {
+                    return;
+                }
+                current = best.get();
+            }
+        }
+
+        boolean pruned(int k, long[] stock, double value) {
+            return value + bound(k, stock) <= best.get().value + EPS;
+        }
+
+        void search(int k, long[] stock, int[] x, double value) {
+            if (!tick()) {
+                return;
+            }
+            offer(value, x);
+            if (k == n || pruned(k, stock, value)) {
+                return;
+            }
+            branch(k, stock, x, value, 0, cap(k, stock));
+        }
+
+        void branch(int k, long[] stock, int[] x, double value, int lo, int hi) {
+            for (int q = hi; q >= lo && !timedOut; q--) {
+                apply(k, stock, q);
+                x[k] = q;
+                search(k + 1, stock, x, value + q * price[k]);
+                apply(k, stock, -q);
+            }
+            x[k] = 0;
+        }
+
+        void apply(int k, long[] stock, int q) {
+            for (int l = lineStart[k]; l < lineStart[k + 1]; l++) {
+                stock[lineMaterial[l]] -= (long) q * lineConsumption[l];
+            }
+        }
+    }
+
+    /**
+     * Fork-join node: splits the quantity range of the first
+     * {@link #SPLIT_DEPTH} products while the pool has idle workers, then
+     * continues sequentially.
+     */
+    private static final class Node extends RecursiveAction {
+
+        private final Search search;
+        private final int k;
+        private final long[] stock;
+        private final int[] x;
+        private final double value;
+        private final int lo;
+        private final int hi;
+
+        Node(Search search, int k, long[] stock, int[] x, double value, int lo, int hi) {
+            this.search = search;
+            this.k = k;
+            this.stock = stock;
+            this.x = x;
+            this.value = value;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (search.timedOut || search.pruned(k, stock, value)) {
+                return;
+            }
+
+            if (k >= SPLIT_DEPTH || getSurplusQueuedTaskCount() > 2) {
+                search.branch(k, stock, x, value, lo, hi);
+                return;
+            }
+
+            if (hi > lo) {
+                int mid = (lo + hi) >>> 1;
+                // quantidades maiores primeiro: chegam antes a uma boa solução
+                invokeAll(
+                        new Node(search, k, stock.clone(), x.clone(), value, mid + 1, hi),
+                        new Node(search, k, stock.clone(), x.clone(), value, lo, mid));
+                return;
+            }
+
+            search.apply(k, stock, lo);
+            x[k] = lo;
+            double next = value + lo * search.price[k];
+            search.offer(next, x);
+
+            if (k + 1 < search.n) {
+                new Node(search, k + 1, stock, x, next, 0, search.cap(k + 1, stock)).compute();
+            }
+        }
+    }
+}
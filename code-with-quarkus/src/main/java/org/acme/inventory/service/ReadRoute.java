@@ -0,0 +1,21 @@
+package org.acme.inventory.service;
+
+import jakarta.enterprise.context.RequestScoped;
+
+/**
+ * Whether the current request may read from the replica; set by the
+ * request filter before the resource method runs.
+ */
+@RequestScoped
+public class ReadRoute {
+
+    boolean replica;
+
+    public void useReplica() {
+        replica = true;
+    }
+
+    public boolean replica() {
+        return replica;
+    }
+}
@@ -0,0 +1,233 @@
+package org.acme.inventory.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.acme.inventory.domain.ReplicaHeartbeat;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.JDBCException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.arc.Arc;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Read/write split: list reads of non-transactional GETs run on the
+ * {@code read} datasource, in one read-only transaction with the
+ * second-level cache bypassed, while the replica lag measured by
+ * {@link ReplicaHeartbeat} is at most {@code inventory.read.max-staleness-ms}.
+ * Otherwise, and for {@link #stickyMs()} after a client's own write, reads go
+ * to the primary.
+ */
+@ApplicationScoped
+public class ReadRouting {
+
+    static final String HEARTBEAT_SELECT = "select beatAt from replica_heartbeat where id = ?";
+    static final String HEARTBEAT_UPDATE = "update replica_heartbeat set beatAt = ? where id = ?";
+    static final String HEARTBEAT_INSERT = "insert into replica_heartbeat (id, beatAt) values (?, ?)";
+
+    private static final Object UNAVAILABLE = new Object();
+
+    @ConfigProperty(name = "inventory.read.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "inventory.read.max-staleness-ms", defaultValue = "5000")
+    long maxStalenessMs;
+
+    @ConfigProperty(name = "inventory.read.heartbeat-ms", defaultValue = "1000")
+    long heartbeatMs;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    Instance<ReadRoute> route;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    AgroalDataSource primary;
+
+    // inativo quando inventory.read.enabled=false: só resolvido se habilitado
+    @Inject
+    @DataSource("read")
+    Instance<AgroalDataSource> replica;
+
+    private volatile long lastBeat;
+    private volatile long lagMs = -1;
+    private volatile boolean fresh;
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "read-replica-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    void onStart(@Observes StartupEvent event) {
+        if (enabled) {
+            heartbeat.scheduleWithFixedDelay(this::probe, 0, heartbeatMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /** Last measured replica lag, -1 when unknown (disabled or unreachable). */
+    public long lagMs() {
+        return lagMs;
+    }
+
+    /** Whether replica reads are currently allowed. */
+    public boolean fresh() {
+        return enabled && fresh;
+    }
+
+    /**
+     * How long a client that wrote stays on the primary: the tolerated lag
+     * plus one heartbeat, the most a write can take to show up on a replica
+     * that is still considered fresh.
+     */
+    public long stickyMs() {
+        return maxStalenessMs + heartbeatMs;
+    }
+
+    /**
+     * Runs {@code work} on the replica when the current request was routed
+     * there and the replica is fresh, otherwise on the request's own
+     * entity manager. Entities returned from a replica read are detached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read(Function<EntityManager, T> work) {
+        if (routed()) {
+            Object result = onReplica(work);
+            if (result != UNAVAILABLE) {
+                return (T) result;
+            }
+        }
+        return work.apply(em);
+    }
+
+    /**
+     * Same as {@link #read}, but a primary read also runs in one (new)
+     * transaction, for reads of several queries that must agree.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T readConsistent(Function<EntityManager, T> work) {
+        if (routed()) {
+            Object result = onReplica(work);
+            if (result != UNAVAILABLE) {
+                return (T) result;
+            }
+        }
+        return QuarkusTransaction.requiringNew().call(() -> work.apply(em));
+    }
+
+    /** Measures the lag and writes the next beat; runs on the heartbeat thread. */
+    public void probe() {
+        try (Connection connection = replica.get().getConnection();
+             PreparedStatement ps = connection.prepareStatement(HEARTBEAT_SELECT)) {
+            ps.setLong(1, ReplicaHeartbeat.ID);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && lastBeat > 0) {
+                    // atrás da última batida escrita; outra instância pode ter escrito uma mais nova
+                    long lag = Math.max(0, lastBeat - rs.getLong(1));
+                    lagMs = lag;
+                    fresh = lag <= maxStalenessMs;
+                } else {
+                    lagMs = -1;
+                    fresh = false;
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            unreachable(e);
+        }
+
+        long now = System.currentTimeMillis();
+        try (Connection connection = primary.getConnection()) {
+            try (PreparedStatement update = connection.prepareStatement(HEARTBEAT_UPDATE)) {
+                update.setLong(1, now);
+                update.setLong(2, ReplicaHeartbeat.ID);
+                if (update.executeUpdate() == 0) {
+                    try (PreparedStatement insert = connection.prepareStatement(HEARTBEAT_INSERT)) {
+                        insert.setLong(1, ReplicaHeartbeat.ID);
+                        insert.setLong(2, now);
+                        insert.executeUpdate();
+                    }
+                }
+            }
+            lastBeat = now;
+        } catch (SQLException | RuntimeException e) {
+            // exceção escapando cancelaria as próximas batidas
+            Log.warnf(e, "Read routing: could not write the heartbeat on the primary");
+        }
+    }
+
+    private boolean routed() {
+        if (!fresh() || QuarkusTransaction.isActive() || !Arc.container().requestContext().isActive()) {
+            return false;
+        }
+        return route.get().replica;
+    }
+
+    /** {@link #UNAVAILABLE} when the replica failed; the caller falls back to the primary. */
+    private Object onReplica(Function<EntityManager, ?> work) {
+        Connection connection;
+        try {
+            connection = replica.get().getConnection();
+        } catch (SQLException e) {
+            unreachable(e);
+            return UNAVAILABLE;
+        }
+
+        try (connection) {
+            connection.setReadOnly(true);
+            connection.setAutoCommit(false);
+            try (Session session = sessionFactory.withOptions().connection(connection).openSession()) {
+                session.setCacheMode(CacheMode.IGNORE);
+                session.setDefaultReadOnly(true);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
+                return work.apply(session);
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException | JDBCException e) {
+            // falha de conexão/consulta na réplica: a mesma leitura vai para o primário
+            unreachable(e);
+            return UNAVAILABLE;
+        }
+    }
+
+    private void unreachable(Exception e) {
+        if (fresh) {
+            Log.warnf(e, "Read routing: replica unavailable, reading from the primary");
+        }
+        fresh = false;
+        lagMs = -1;
+    }
+}
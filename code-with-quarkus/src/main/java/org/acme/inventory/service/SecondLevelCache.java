@@ -0,0 +1,81 @@
+package org.acme.inventory.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.acme.inventory.domain.Product;
+import org.acme.inventory.domain.RawMaterial;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Invalidation and statistics for the Hibernate second-level cache.
+ *
+ * Writes that go through the entity manager keep the cache coherent by
+ * themselves; the guarded stock UPDATEs of {@link StockService} run on raw
+ * JDBC, so the touched raw materials are evicted right away and once more
+ * after commit (a concurrent reader may have re-cached the old row in
+ * between). The inverse {@code Product.materialUsages} collection is evicted
+ * for every product whose BOM changed.
+ */
+@ApplicationScoped
+public class SecondLevelCache {
+
+    static final String BOM_COLLECTION = Product.class.getName() + ".materialUsages";
+
+    public record RegionStats(String region, long hits, long misses, long puts,
+                              long elementsInMemory) {
+    }
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    void onCatalogChange(@Observes @Priority(CatalogChange.EVICT_CACHES) CatalogChange change) {
+        evictMaterials(change.materialIds());
+        evictBoms(change.productIds());
+    }
+
+    public void evictBoms(Collection<Long> productIds) {
+        Cache cache = sessionFactory.getCache();
+        for (Long productId : productIds) {
+            cache.evictCollectionData(BOM_COLLECTION, productId);
+        }
+    }
+
+    public void evictMaterials(Collection<Long> materialIds) {
+        Cache cache = sessionFactory.getCache();
+        for (Long materialId : materialIds) {
+            cache.evictEntityData(RawMaterial.class, materialId);
+        }
+    }
+
+    /**
+     * Hit/miss counters per cache region (entities, BOM collection and, if
+     * used, query cache), sorted by region name.
+     */
+    public List<RegionStats> stats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        String[] regions = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regions);
+
+        List<RegionStats> result = new ArrayList<>(regions.length);
+        for (String region : regions) {
+            CacheRegionStatistics regionStats = statistics.getCacheRegionStatistics(region);
+            if (regionStats == null) {
+                continue;
+            }
+            result.add(new RegionStats(region, regionStats.getHitCount(), regionStats.getMissCount(),
+                    regionStats.getPutCount(), regionStats.getElementCountInMemory()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,44 @@
+package org.acme.inventory.service;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between
+ * {@link #begin()} and {@link #end()} (one request). JDBC work done outside
+ * Hibernate, like the batch of {@link StockService}, reports itself through
+ * {@link #executed(int)}. Costs one thread-local read per statement.
+ */
+@PersistenceUnitExtension
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> CURRENT = new ThreadLocal<>();
+
+    public static void begin() {
+        CURRENT.set(new int[1]);
+    }
+
+    /** Statements counted since {@link #begin()}, or -1 if counting was not started. */
+    public static int end() {
+        int[] count = CURRENT.get();
+        CURRENT.remove();
+        return count == null ? -1 : count[0];
+    }
+
+    public static void executed(int statements) {
+        int[] count = CURRENT.get();
+        if (count != null) {
+            count[0] += statements;
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = CURRENT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
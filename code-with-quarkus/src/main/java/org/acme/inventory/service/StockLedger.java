@@ -0,0 +1,567 @@
+package org.acme.inventory.service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.acme.inventory.domain.StockMovement.Type;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Append-only stock history ({@code stock_movement}).
+ *
+ * In the {@code update} write mode (default) {@code raw_material.availableStock}
+ * stays authoritative and every change is also recorded here. In the
+ * {@code ledger} mode writers only insert movements: the current stock is
+ * the last {@code stock_snapshot} plus the later movements, held in an
+ * in-memory projection that also guards against overselling, and a background
+ * writer copies it into {@code raw_material} after commit and takes new
+ * snapshots. The projection is per JVM: one application instance only.
+ */
+@ApplicationScoped
+public class StockLedger {
+
+    public enum WriteMode { UPDATE, LEDGER }
+
+    private static final Object KEY = StockLedger.class;
+
+    private static final String INSERT_SQL =
+            "insert into stock_movement (rawMaterialId, type, quantity, reference, createdAt) values ";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?)";
+
+    private static final String BOOTSTRAP_SQL =
+            "insert into stock_snapshot (rawMaterialId, balance, lastMovementId, takenAt)"
+            + " select rm.id, rm.availableStock,"
+            + " coalesce((select max(m.id) from stock_movement m where m.rawMaterialId = rm.id), 0), ?"
+            + " from raw_material rm"
+            + " where not exists (select 1 from stock_snapshot s where s.rawMaterialId = rm.id)";
+
+    private static final String FOLD_SQL =
+            "update raw_material set availableStock = (select s.balance"
+            + " + coalesce((select sum(m.quantity) from stock_movement m"
+            + " where m.rawMaterialId = s.rawMaterialId and m.id > s.lastMovementId), 0)"
+            + " from stock_snapshot s where s.rawMaterialId = raw_material.id)"
+            + " where exists (select 1 from stock_snapshot s where s.rawMaterialId = raw_material.id)";
+
+    private static final String BALANCE_SELECT =
+            "select s.rawMaterialId, s.balance + coalesce((select sum(m.quantity) from StockMovement m"
+            + " where m.rawMaterialId = s.rawMaterialId and m.id > s.lastMovementId), 0)"
+            + " from StockSnapshot s";
+
+    private static final String READ_MODEL_SQL = "update raw_material set availableStock = ? where id = ?";
+
+    private static final String SNAPSHOT_SQL =
+            "update stock_snapshot set balance = ?, lastMovementId = ?, takenAt = ? where rawMaterialId = ?";
+
+    @ConfigProperty(name = "inventory.stock.write-mode", defaultValue = "update")
+    WriteMode mode;
+
+    @ConfigProperty(name = "inventory.stock.snapshot-interval-ms", defaultValue = "60000")
+    long snapshotIntervalMs;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    TransactionSynchronizationRegistry registry;
+
+    @Inject
+    CatalogChangeTracker changes;
+
+    @Inject
+    SecondLevelCache cache;
+
+    private static final class Balance {
+        long committed;
+        long reserved;
+    }
+
+    // projeção (modo ledger); tudo abaixo só é acessado com o lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, Balance> balances = new HashMap<>();
+    private final Set<Long> dirty = new HashSet<>();
+    private final Set<Long> unsnapshotted = new HashSet<>();
+    private int inFlight;
+    // transações de ledger já iniciadas: detecta escrita durante a leitura do watermark
+    private long started;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "stock-ledger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    void onStart(@Observes StartupEvent event) {
+        if (mode == WriteMode.UPDATE) {
+            fold();
+            return;
+        }
+
+        List<Object[]> rows = QuarkusTransaction.requiringNew().call(() -> {
+            // matérias-primas vindas do modo update: raw_material já inclui todo o histórico
+            em.createNativeQuery(BOOTSTRAP_SQL)
+                    .setParameter(1, Timestamp.from(Instant.now()))
+                    .executeUpdate();
+            return em.createQuery(BALANCE_SELECT, Object[].class).getResultList();
+        });
+
+        lock.lock();
+        try {
+            for (Object[] row : rows) {
+                Balance balance = new Balance();
+                balance.committed = ((Number) row[1]).longValue();
+                balances.put((Long) row[0], balance);
+                dirty.add((Long) row[0]);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        schedule();
+        writer.scheduleWithFixedDelay(this::snapshot, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdownNow();
+    }
+
+    public WriteMode mode() {
+        return mode;
+    }
+
+    /**
+     * Update mode, coming back from the ledger mode: writes snapshot plus
+     * later movements into raw_material and drops the snapshots.
+     *
+     * @return the materials folded
+     */
+    public int fold() {
+        if (mode == WriteMode.LEDGER) {
+            throw new IllegalStateException("The ledger write mode keeps its snapshots");
+        }
+
+        List<Long> ids = QuarkusTransaction.requiringNew().call(() -> {
+            List<Long> folded = em.createQuery("select s.rawMaterialId from StockSnapshot s", Long.class)
+                    .getResultList();
+            if (!folded.isEmpty()) {
+                em.createNativeQuery(FOLD_SQL).executeUpdate();
+                em.createNativeQuery("delete from stock_snapshot").executeUpdate();
+            }
+            return folded;
+        });
+        if (!ids.isEmpty()) {
+            // UPDATE nativo: o cache de segundo nível ainda tem o read model antigo
+            cache.evictMaterials(ids);
+            changes.materialsChanged(ids);
+        }
+        return ids.size();
+    }
+
+    /**
+     * Appends movements in one multi-row INSERT; zero quantities are skipped.
+     * Must run inside the caller's transaction.
+     */
+    public void record(Type type, long[] materialIds, long[] quantities, String reference) {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < materialIds.length; i++) {
+            if (quantities[i] != 0) {
+                rows.add(i);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        String sql = INSERT_SQL + String.join(", ", Collections.nCopies(rows.size(), INSERT_ROW));
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int p = 1;
+                for (int i : rows) {
+                    ps.setLong(p++, materialIds[i]);
+                    ps.setString(p++, type.name());
+                    ps.setLong(p++, quantities[i]);
+                    ps.setString(p++, reference);
+                    ps.setTimestamp(p++, now);
+                }
+                SqlStatementCounter.executed(1);
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Ledger mode: reserves {@code amounts[i]} of {@code materialIds[i]} in the
+     * projection and records the consumption; all-or-nothing. The reservation
+     * is released if the transaction rolls back.
+     *
+     * @throws InsufficientStockException if any material has less unreserved stock than requested
+     */
+    public void consume(long[] materialIds, long[] amounts, String reference) {
+        Pending pending = pending();
+
+        Map<Long, Long> requested = new TreeMap<>();
+        for (int i = 0; i < materialIds.length; i++) {
+            if (amounts[i] != 0) {
+                requested.merge(materialIds[i], amounts[i], BomExplosion::add);
+            }
+        }
+
+        lock.lock();
+        try {
+            for (Map.Entry<Long, Long> e : requested.entrySet()) {
+                Balance balance = balances.get(e.getKey());
+                long available = balance == null ? 0 : balance.committed - balance.reserved;
+                if (available < e.getValue()) {
+                    throw new InsufficientStockException(e.getKey(), e.getValue());
+                }
+            }
+            requested.forEach((materialId, amount) -> {
+                balances.get(materialId).reserved += amount;
+                pending.reserved.merge(materialId, amount, Long::sum);
+                pending.deltas.merge(materialId, -amount, Long::sum);
+            });
+        } finally {
+            lock.unlock();
+        }
+
+        long[] ids = new long[requested.size()];
+        long[] quantities = new long[ids.length];
+        int i = 0;
+        for (Map.Entry<Long, Long> e : requested.entrySet()) {
+            ids[i] = e.getKey();
+            quantities[i++] = -e.getValue();
+        }
+        record(Type.PRODUCTION, ids, quantities, reference);
+    }
+
+    /**
+     * Records setting the stock of a material to {@code requested}.
+     *
+     * @param stored the stock read from {@code raw_material}; in the ledger
+     *               mode the committed projection is used instead
+     * @return the recorded difference
+     */
+    public long adjust(long materialId, long stored, long requested, String reference) {
+        long delta;
+        if (mode == WriteMode.LEDGER) {
+            Pending pending = pending();
+            lock.lock();
+            try {
+                Balance balance = balances.get(materialId);
+                delta = requested - (balance == null ? stored : balance.committed);
+                pending.deltas.merge(materialId, delta, Long::sum);
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            delta = requested - stored;
+        }
+
+        record(Type.ADJUSTMENT, new long[] { materialId }, new long[] { delta }, reference);
+        return delta;
+    }
+
+    /** Records the initial stock of newly created materials (material id -> stock). */
+    public void received(Map<Long, Long> initialStock) {
+        if (initialStock.isEmpty()) {
+            return;
+        }
+
+        if (mode == WriteMode.LEDGER) {
+            Pending pending = pending();
+            Timestamp now = Timestamp.from(Instant.now());
+            // snapshot vazio: o saldo é a soma de todo o histórico, a começar pelo RECEIPT
+            em.unwrap(Session.class).doWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "insert into stock_snapshot (rawMaterialId, balance, lastMovementId, takenAt)"
+                        + " values (?, 0, 0, ?)")) {
+                    for (Long materialId : initialStock.keySet()) {
+                        ps.setLong(1, materialId);
+                        ps.setTimestamp(2, now);
+                        ps.addBatch();
+                    }
+                    SqlStatementCounter.executed(initialStock.size());
+                    ps.executeBatch();
+                }
+            });
+            lock.lock();
+            try {
+                pending.created.addAll(initialStock.keySet());
+                initialStock.forEach((materialId, stock) -> pending.deltas.merge(materialId, stock, Long::sum));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long[] ids = new long[initialStock.size()];
+        long[] quantities = new long[ids.length];
+        int i = 0;
+        for (Map.Entry<Long, Long> e : initialStock.entrySet()) {
+            ids[i] = e.getKey();
+            quantities[i++] = e.getValue();
+        }
+        record(Type.RECEIPT, ids, quantities, "initial stock");
+    }
+
+    /** The movements of a deleted material are kept; only its snapshot goes. */
+    public void deleted(long materialId) {
+        if (mode != WriteMode.LEDGER) {
+            return;
+        }
+        Pending pending = pending();
+        em.createQuery("delete from StockSnapshot s where s.rawMaterialId = :id")
+                .setParameter("id", materialId)
+                .executeUpdate();
+        lock.lock();
+        try {
+            pending.removed.add(materialId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Ledger mode: committed stock minus open reservations, or {@code null} if unknown. */
+    public Long available(long materialId) {
+        lock.lock();
+        try {
+            Balance balance = balances.get(materialId);
+            return balance == null ? null : balance.committed - balance.reserved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Pending pending() {
+        if (registry.getTransactionKey() == null) {
+            throw new IllegalStateException("Stock ledger writes must run inside a transaction");
+        }
+
+        Pending pending = (Pending) registry.getResource(KEY);
+        if (pending == null) {
+            pending = new Pending();
+            registry.putResource(KEY, pending);
+            registry.registerInterposedSynchronization(pending);
+            lock.lock();
+            try {
+                inFlight++;
+                started++;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return pending;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            writer.execute(this::flush);
+        }
+    }
+
+    /** Copies the committed projection of the changed materials into raw_material. */
+    private void flush() {
+        scheduled.set(false);
+
+        Map<Long, Long> values = new TreeMap<>();
+        lock.lock();
+        try {
+            for (Long materialId : dirty) {
+                Balance balance = balances.get(materialId);
+                if (balance != null) {
+                    values.put(materialId, balance.committed);
+                }
+            }
+            dirty.clear();
+        } finally {
+            lock.unlock();
+        }
+        // a coluna é int: um saldo fora da faixa não é gravado truncado, o read model fica parado nele
+        values.entrySet().removeIf(e -> {
+            if (e.getValue() == (int) (long) e.getValue()) {
+                return false;
+            }
+            Log.errorf("Stock ledger: balance %d of raw material %d does not fit raw_material.availableStock;"
+                    + " read model not refreshed", e.getValue(), e.getKey());
+            return true;
+        });
+        if (values.isEmpty()) {
+            return;
+        }
+
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                em.unwrap(Session.class).doWork(connection -> {
+                    try (PreparedStatement ps = connection.prepareStatement(READ_MODEL_SQL)) {
+                        for (Map.Entry<Long, Long> e : values.entrySet()) {
+                            ps.setInt(1, Math.toIntExact(e.getValue()));
+                            ps.setLong(2, e.getKey());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                });
+                cache.evictMaterials(values.keySet());
+                changes.materialsChanged(values.keySet());
+            });
+        } catch (RuntimeException e) {
+            Log.warnf(e, "Stock ledger: read model refresh failed, retrying on the next snapshot");
+            lock.lock();
+            try {
+                dirty.addAll(values.keySet());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes new snapshots for the materials changed since the last one. Only
+     * when no ledger transaction was open from before the watermark query
+     * until the projection is read: then every movement up to the maximum id
+     * is committed and already in the projection. The query itself runs
+     * outside the lock; a writer that starts meanwhile postpones the snapshot.
+     */
+    private void snapshot() {
+        Map<Long, Long> values = new TreeMap<>();
+        try {
+            long startedBefore;
+            lock.lock();
+            try {
+                if (inFlight > 0 || unsnapshotted.isEmpty()) {
+                    return;
+                }
+                startedBefore = started;
+            } finally {
+                lock.unlock();
+            }
+
+            long watermark = QuarkusTransaction.requiringNew().call(() -> em
+                    .createQuery("select coalesce(max(m.id), 0) from StockMovement m", Long.class)
+                    .getSingleResult());
+
+            lock.lock();
+            try {
+                if (inFlight > 0 || started != startedBefore) {
+                    return;
+                }
+                for (Long materialId : unsnapshotted) {
+                    Balance balance = balances.get(materialId);
+                    if (balance != null) {
+                        values.put(materialId, balance.committed);
+                    }
+                }
+                unsnapshotted.clear();
+            } finally {
+                lock.unlock();
+            }
+
+            Timestamp now = Timestamp.from(Instant.now());
+            QuarkusTransaction.requiringNew().run(() -> em.unwrap(Session.class).doWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(SNAPSHOT_SQL)) {
+                    for (Map.Entry<Long, Long> e : values.entrySet()) {
+                        ps.setLong(1, e.getValue());
+                        ps.setLong(2, watermark);
+                        ps.setTimestamp(3, now);
+                        ps.setLong(4, e.getKey());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            }));
+        } catch (RuntimeException e) {
+            Log.warnf(e, "Stock ledger: snapshot failed, retrying in %d ms", snapshotIntervalMs);
+            lock.lock();
+            try {
+                unsnapshotted.addAll(values.keySet());
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            schedule();
+        }
+    }
+
+    /** Ledger changes of one transaction, applied to the projection when it completes. */
+    private final class Pending implements Synchronization {
+
+        final Map<Long, Long> reserved = new HashMap<>();
+        final Map<Long, Long> deltas = new HashMap<>();
+        final Set<Long> created = new HashSet<>();
+        final Set<Long> removed = new HashSet<>();
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            boolean committed = status == Status.STATUS_COMMITTED;
+
+            lock.lock();
+            try {
+                inFlight--;
+                reserved.forEach((materialId, amount) -> {
+                    Balance balance = balances.get(materialId);
+                    if (balance != null) {
+                        balance.reserved -= amount;
+                    }
+                });
+                if (!committed) {
+                    return;
+                }
+
+                for (Long materialId : created) {
+                    balances.putIfAbsent(materialId, new Balance());
+                }
+                deltas.forEach((materialId, delta) -> {
+                    Balance balance = balances.get(materialId);
+                    if (balance != null) {
+                        balance.committed += delta;
+                        dirty.add(materialId);
+                        unsnapshotted.add(materialId);
+                    }
+                });
+                for (Long materialId : removed) {
+                    balances.remove(materialId);
+                    dirty.remove(materialId);
+                    unsnapshotted.remove(materialId);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (!deltas.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
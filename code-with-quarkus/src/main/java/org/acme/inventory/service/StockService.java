@@ -0,0 +1,141 @@
+package org.acme.inventory.service;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.acme.inventory.domain.StockMovement.Type;
+import org.acme.inventory.service.StockLedger.WriteMode;
+import org.hibernate.Session;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Set-based stock writes. Decrements go straight to the raw_material table in
+ * one JDBC batch of guarded UPDATEs ({@code ... where availableStock >= ?})
+ * instead of a read-check-write on loaded entities, so concurrent producers
+ * can neither lose updates nor oversell. Rows are always updated in ascending
+ * id order so two transactions never wait on each other's locks in opposite
+ * order. Must run inside the caller's transaction.
+ *
+ * Every decrement is also recorded in the {@link StockLedger}; in its ledger
+ * write mode the UPDATEs are skipped altogether and the ledger alone guards
+ * and records the consumption.
+ */
+@ApplicationScoped
+public class StockService {
+
+    private static final String DECREMENT_SQL =
+            "update raw_material set availableStock = availableStock - ?"
+            + " where id = ? and availableStock >= ?";
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    CatalogChangeTracker changes;
+
+    @Inject
+    SecondLevelCache cache;
+
+    @Inject
+    StockLedger ledger;
+
+    /**
+     * Current stock of {@code materialIds[i]}: {@code stored[i]} (read from
+     * raw_material) in the update mode, the ledger projection in the ledger
+     * mode, where raw_material is only refreshed after commit.
+     */
+    public long[] available(long[] materialIds, long[] stored) {
+        if (ledger.mode() != WriteMode.LEDGER) {
+            return stored;
+        }
+        long[] available = stored.clone();
+        for (int i = 0; i < materialIds.length; i++) {
+            Long projected = ledger.available(materialIds[i]);
+            if (projected != null) {
+                available[i] = projected;
+            }
+        }
+        return available;
+    }
+
+    public void decrement(long[] materialIds, long[] amounts) {
+        decrement(materialIds, amounts, null);
+    }
+
+    /**
+     * Subtracts {@code amounts[i]} from the stock of {@code materialIds[i]};
+     * zero amounts are skipped.
+     *
+     * @param reference free text stored with the ledger movements, e.g. the product produced
+     * @throws InsufficientStockException if any material has less stock than
+     *         requested; earlier decrements of the batch were already applied,
+     *         so the caller must roll the transaction back
+     */
+    public void decrement(long[] materialIds, long[] amounts, String reference) {
+        if (ledger.mode() == WriteMode.LEDGER) {
+            ledger.consume(materialIds, amounts, reference);
+            return;
+        }
+
+        Integer[] order = new Integer[materialIds.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> materialIds[i]));
+
+        List<Integer> touched = new ArrayList<>();
+        for (int i : order) {
+            if (amounts[i] != 0) {
+                touched.add(i);
+            }
+        }
+        if (touched.isEmpty()) {
+            return;
+        }
+
+        int[] counts = em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(DECREMENT_SQL)) {
+                for (int i : touched) {
+                    ps.setLong(1, amounts[i]);
+                    ps.setLong(2, materialIds[i]);
+                    ps.setLong(3, amounts[i]);
+                    ps.addBatch();
+                }
+                SqlStatementCounter.executed(touched.size());
+                return ps.executeBatch();
+            }
+        });
+
+        for (int k = 0; k < counts.length; k++) {
+            // o driver precisa devolver a contagem por comando (sem rewriteBatchedStatements)
+            if (counts[k] == Statement.SUCCESS_NO_INFO) {
+                throw new IllegalStateException("JDBC driver did not report update counts for stock decrement");
+            }
+            if (counts[k] == 0) {
+                int i = touched.get(k);
+                throw new InsufficientStockException(materialIds[i], amounts[i]);
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(touched.size());
+        long[] movedIds = new long[touched.size()];
+        long[] moved = new long[touched.size()];
+        for (int k = 0; k < touched.size(); k++) {
+            int i = touched.get(k);
+            ids.add(materialIds[i]);
+            movedIds[k] = materialIds[i];
+            moved[k] = -amounts[i];
+        }
+        ledger.record(Type.PRODUCTION, movedIds, moved, reference);
+        // o UPDATE nativo não passa pelo cache de segundo nível
+        cache.evictMaterials(ids);
+        changes.materialsChanged(ids);
+    }
+}
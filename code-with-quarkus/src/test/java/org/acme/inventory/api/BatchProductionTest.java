@@ -0,0 +1,86 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+
+/**
+ * POST /production/batch: ALL_OR_NOTHING checks the aggregated demand and
+ * applies nothing on a shortage, BEST_EFFORT applies the lines that still fit
+ * in line order and reports the rest.
+ */
+@QuarkusTest
+class BatchProductionTest {
+
+    @Test
+    void modesHandleAPartialShortage() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        long material = create("/raw-materials", Map.of(
+                "code", "BT-RM-" + run, "description", "Batch material " + run, "availableStock", 10));
+        long a = create("/products", Map.of("code", "BT-A-" + run, "name", "Batch A " + run, "unitPrice", 1.0));
+        long b = create("/products", Map.of("code", "BT-B-" + run, "name", "Batch B " + run, "unitPrice", 1.0));
+        create("/material-usage", Map.of("productId", a, "rawMaterialId", material, "consumptionPerUnit", 2));
+        create("/material-usage", Map.of("productId", b, "rawMaterialId", material, "consumptionPerUnit", 3));
+
+        // 6 + 6 > 10: cada linha cabe sozinha, as duas juntas não
+        List<Map<String, Object>> lines = List.of(
+                Map.of("productId", a, "quantity", 3),
+                Map.of("productId", b, "quantity", 2));
+
+        batch("ALL_OR_NOTHING", lines)
+                .statusCode(400)
+                .body("status", is("REJECTED"))
+                .body("lines[0].status", is("NOT_APPLIED"))
+                .body("lines[1].status", is("INSUFFICIENT_STOCK"))
+                .body("lines[1].shortages[0].available", is(10))
+                .body("lines[1].shortages[0].required", is(12))
+                .body("lines[1].shortages[0].missing", is(2));
+        assertEquals(10, stock(material));
+
+        batch("BEST_EFFORT", lines)
+                .statusCode(200)
+                .body("status", is("PARTIAL"))
+                .body("lines[0].status", is("PRODUCED"))
+                .body("lines[1].status", is("INSUFFICIENT_STOCK"))
+                .body("lines[1].shortages[0].available", is(4))
+                .body("lines[1].shortages[0].required", is(6))
+                .body("lines[1].shortages[0].missing", is(2));
+        assertEquals(4, stock(material));
+
+        batch("ALL_OR_NOTHING", List.of(Map.of("productId", a, "quantity", 2)))
+                .statusCode(200)
+                .body("status", is("SUCCESS"))
+                .body("lines[0].status", is("PRODUCED"));
+        assertEquals(0, stock(material));
+    }
+
+    private static ValidatableResponse batch(String mode, List<Map<String, Object>> lines) {
+        return given().contentType(ContentType.JSON)
+                .body(Map.of("mode", mode, "lines", lines))
+                .post("/production/batch")
+                .then();
+    }
+
+    private static int stock(long materialId) {
+        return given().get("/raw-materials/" + materialId)
+                .then().statusCode(200)
+                .extract().jsonPath().getInt("availableStock");
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
@@ -0,0 +1,211 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileMapper;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * CBOR and Smile carry the same document as JSON, ETags differ per format
+ * (and only per format), and the normalized BOM references every product and
+ * raw material by id at a fifth of the bytes of the nested JSON, or less.
+ */
+@QuarkusTest
+class BinaryFormatsTest {
+
+    static final ObjectMapper JSON = new ObjectMapper();
+
+    @TestHTTPResource("/material-usage")
+    URL materialUsage;
+
+    @Test
+    void binaryFormatsMatchJson() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        long material = create("/raw-materials", Map.of(
+                "code", "BIN-M-" + run, "description", "Binary material " + run, "availableStock", 40));
+        long product = create("/products", Map.of("code", "BIN-P-" + run, "name", "Binary " + run, "unitPrice", 3.5));
+        create("/material-usage", Map.of("productId", product, "rawMaterialId", material, "consumptionPerUnit", 4));
+
+        for (String path : List.of("/products", "/material-usage", "/production-check", "/production-priority")) {
+            Response json = get(path, "application/json");
+            Response cbor = get(path, BinaryFormats.CBOR);
+            Response smile = get(path, BinaryFormats.SMILE);
+
+            assertTrue(cbor.contentType().startsWith(BinaryFormats.CBOR), path);
+            assertTrue(smile.contentType().startsWith(BinaryFormats.SMILE), path);
+
+            JsonNode expected = JSON.readTree(json.asByteArray());
+            assertEquals(expected, new CBORMapper().readTree(cbor.asByteArray()), path);
+            assertEquals(expected, new SmileMapper().readTree(smile.asByteArray()), path);
+
+            // um JSON em cache nunca é revalidado para um pedido CBOR
+            assertNotEquals(json.header("ETag"), cbor.header("ETag"), path);
+            given().accept(BinaryFormats.CBOR).header("If-None-Match", cbor.header("ETag"))
+                    .get(path).then().statusCode(304);
+        }
+    }
+
+    @Test
+    void etagFollowsTheNegotiatedFormat() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        create("/products", Map.of("code", "ETV-P-" + run, "name", "Variant " + run, "unitPrice", 1.0));
+
+        String cbor = get("/products", BinaryFormats.CBOR).header("ETag");
+        String weightedCbor = get("/products", BinaryFormats.CBOR + ";q=0.9, text/plain;q=0.1").header("ETag");
+        String json = get("/products", "application/json").header("ETag");
+        // CBOR aceito, mas JSON preferido: o corpo é JSON
+        String jsonFirst = get("/products", "application/json, " + BinaryFormats.CBOR + ";q=0.5").header("ETag");
+
+        assertEquals(cbor, weightedCbor);
+        assertEquals(json, jsonFirst);
+        assertNotEquals(json, cbor);
+        given().accept(BinaryFormats.CBOR + ";q=0.9, text/plain;q=0.1").header("If-None-Match", cbor)
+                .get("/products").then().statusCode(304);
+    }
+
+    @Test
+    void refusedFormatsAreNeverPicked() {
+        assertNull(BinaryFormats.negotiate(accept("application/json;q=0")));
+        assertNull(BinaryFormats.negotiate(accept("application/json;q=0.0", "text/plain")));
+        // o curinga ainda aceita CBOR, mas não o JSON recusado pela faixa mais específica
+        assertEquals(BinaryFormats.CBOR_TYPE, BinaryFormats.negotiate(accept("*/*", "application/json;q=0")));
+        assertEquals(BinaryFormats.SMILE_TYPE, BinaryFormats.negotiate(
+                accept("application/*", "application/json;q=0", BinaryFormats.CBOR + ";q=0")));
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, BinaryFormats.negotiate(accept("*/*;q=0", "application/json")));
+    }
+
+    @Test
+    void normalizedCborIsAFifthOfTheNestedJson() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        // BOM denso: cada produto usa 10 das 10 matérias-primas
+        StringBuilder materials = new StringBuilder();
+        StringBuilder products = new StringBuilder();
+        StringBuilder usage = new StringBuilder();
+        for (int m = 0; m < 10; m++) {
+            materials.append("{\"code\":\"WIRE-M-").append(run).append('-').append(m)
+                    .append("\",\"description\":\"Wire material ").append(run).append(' ').append(m)
+                    .append("\",\"availableStock\":1000}\n");
+        }
+        for (int p = 0; p < 20; p++) {
+            products.append("{\"code\":\"WIRE-P-").append(run).append('-').append(p)
+                    .append("\",\"name\":\"Wire product ").append(run).append(' ').append(p)
+                    .append("\",\"unitPrice\":2.5}\n");
+            for (int m = 0; m < 10; m++) {
+                usage.append("{\"productCode\":\"WIRE-P-").append(run).append('-').append(p)
+                        .append("\",\"rawMaterialCode\":\"WIRE-M-").append(run).append('-').append(m)
+                        .append("\",\"consumptionPerUnit\":1}\n");
+            }
+        }
+        importRows("/import/raw-materials", materials);
+        importRows("/import/products", products);
+        importRows("/import/material-usage", usage);
+
+        // bytes na rede: o HttpClient do JDK não descomprime
+        HttpClient client = HttpClient.newHttpClient();
+        byte[] nested = client.send(HttpRequest.newBuilder(materialUsage.toURI())
+                .header("Accept", "application/json").build(), HttpResponse.BodyHandlers.ofByteArray()).body();
+        HttpResponse<byte[]> normalized = client.send(
+                HttpRequest.newBuilder(URI.create(materialUsage + "?view=normalized"))
+                        .header("Accept", BinaryFormats.CBOR)
+                        .header("Accept-Encoding", "gzip")
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, normalized.statusCode());
+        assertEquals("gzip", normalized.headers().firstValue("Content-Encoding").orElse(null));
+        assertTrue(nested.length >= 5L * normalized.body().length,
+                "nested JSON " + nested.length + " bytes, normalized CBOR+gzip " + normalized.body().length);
+    }
+
+    @Test
+    void normalizedBomReferencesById() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        long material = create("/raw-materials", Map.of(
+                "code", "NRM-M-" + run, "description", "Normalized material " + run, "availableStock", 10));
+        long first = create("/products", Map.of("code", "NRM-1-" + run, "name", "First " + run, "unitPrice", 1.0));
+        long second = create("/products", Map.of("code", "NRM-2-" + run, "name", "Second " + run, "unitPrice", 2.0));
+        create("/material-usage", Map.of("productId", first, "rawMaterialId", material, "consumptionPerUnit", 1));
+        create("/material-usage", Map.of("productId", second, "rawMaterialId", material, "consumptionPerUnit", 2));
+        create("/material-usage", Map.of("productId", second, "componentProductId", first, "consumptionPerUnit", 1));
+
+        byte[] nested = get("/material-usage", "application/json").asByteArray();
+        byte[] normalized = given().accept(BinaryFormats.CBOR).queryParam("view", "normalized")
+                .get("/material-usage").then().statusCode(200).extract().asByteArray();
+        JsonNode bom = new CBORMapper().readTree(normalized);
+
+        assertEquals(JSON.readTree(nested).size(), bom.get("lines").size());
+        assertTrue(normalized.length < nested.length, normalized.length + " >= " + nested.length);
+
+        // cada id referenciado está no dicionário, uma vez
+        for (JsonNode line : bom.get("lines")) {
+            assertEquals(1, count(bom.get("products"), line.get("productId").asLong()));
+            assertTrue(line.has("rawMaterialId") != line.has("componentProductId"));
+            if (line.has("rawMaterialId")) {
+                assertEquals(1, count(bom.get("rawMaterials"), line.get("rawMaterialId").asLong()));
+            } else {
+                assertEquals(1, count(bom.get("products"), line.get("componentProductId").asLong()));
+            }
+        }
+
+        given().queryParam("view", "normalized").queryParam("limit", 10)
+                .get("/material-usage").then().statusCode(400);
+        given().queryParam("view", "tree").get("/material-usage").then().statusCode(400);
+    }
+
+    private static void importRows(String path, CharSequence ndjson) {
+        given().contentType(ImportResource.NDJSON).body(ndjson.toString())
+                .post(path)
+                .then().statusCode(200)
+                .body("failed", is(0));
+    }
+
+    private static int count(JsonNode dictionary, long id) {
+        int n = 0;
+        for (JsonNode entry : dictionary) {
+            if (entry.get("id").asLong() == id) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static List<MediaType> accept(String... types) {
+        return Arrays.stream(types).map(MediaType::valueOf).toList();
+    }
+
+    private static Response get(String path, String accept) {
+        return given().accept(accept).get(path).then().statusCode(200).extract().response();
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
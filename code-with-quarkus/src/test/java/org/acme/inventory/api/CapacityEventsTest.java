@@ -0,0 +1,158 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.acme.inventory.service.CapacityEvents;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+
+/**
+ * GET /production-check/events sends a snapshot on connect, then deltas with
+ * the changed capacities and stock, and a new snapshot once a delta outgrows
+ * {@code inventory.events.max-pending}.
+ */
+@QuarkusTest
+@TestProfile(CapacityEventsTest.Profile.class)
+class CapacityEventsTest {
+
+    public static class Profile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("inventory.events.max-pending", "3");
+        }
+    }
+
+    static final ObjectMapper JSON = new ObjectMapper();
+
+    @TestHTTPResource("/production-check/events")
+    URL events;
+
+    record Event(String name, JsonNode data) {
+    }
+
+    @Test
+    void snapshotThenDeltasThenResync() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        long material = create("/raw-materials", Map.of(
+                "code", "EV-RM-" + run, "description", "Events material " + run, "availableStock", 100));
+        long first = create("/products", Map.of("code", "EV-P1-" + run, "name", "Events 1 " + run, "unitPrice", 1.0));
+        create("/material-usage", Map.of("productId", first, "rawMaterialId", material, "consumptionPerUnit", 1));
+
+        BlockingQueue<Event> received = new LinkedBlockingQueue<>();
+        HttpResponse<InputStream> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(events.toString())).header("Accept", "text/event-stream").build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        Thread reader = Thread.ofVirtual().start(() -> read(response.body(), received));
+        try {
+            Event snapshot = await(received, e -> true);
+            assertEquals(CapacityEvents.SNAPSHOT, snapshot.name());
+            assertEquals(100, capacity(snapshot, first));
+
+            // 1 produto + 1 matéria-prima: cabe em max-pending, vai como delta
+            given().contentType(ContentType.JSON).post("/production/" + first + "/produce/10").then().statusCode(200);
+            Event delta = await(received, e -> capacity(e, first) == 90);
+            assertEquals(CapacityEvents.DELTA, delta.name());
+            assertEquals(90, stock(delta, material));
+
+            for (int i = 2; i <= 3; i++) {
+                long other = create("/products", Map.of(
+                        "code", "EV-P" + i + "-" + run, "name", "Events " + i + " " + run, "unitPrice", 1.0));
+                create("/material-usage", Map.of(
+                        "productId", other, "rawMaterialId", material, "consumptionPerUnit", 1));
+            }
+
+            // 3 produtos + 1 matéria-prima > 3 pendentes: o cliente recebe um snapshot novo
+            given().contentType(ContentType.JSON).post("/production/" + first + "/produce/1").then().statusCode(200);
+            Event resync = await(received, e -> capacity(e, first) == 89);
+            assertEquals(CapacityEvents.SNAPSHOT, resync.name());
+            assertEquals(89, stock(resync, material));
+        } finally {
+            response.body().close();
+            reader.interrupt();
+        }
+    }
+
+    /** Splits the stream into events; a blank line ends each one. */
+    private static void read(InputStream body, BlockingQueue<Event> received) {
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String name = null;
+            StringBuilder data = new StringBuilder();
+            for (String line; (line = lines.readLine()) != null; ) {
+                if (line.startsWith("event:")) {
+                    name = line.substring(6).trim();
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring(5).trim());
+                } else if (line.isEmpty() && name != null) {
+                    received.add(new Event(name, JSON.readTree(data.toString())));
+                    name = null;
+                    data.setLength(0);
+                }
+            }
+        } catch (IOException e) {
+            // conexão fechada pelo teste
+        }
+    }
+
+    private static Event await(BlockingQueue<Event> received, Predicate<Event> match) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            Event event = received.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            assertNotNull(event, "no matching event within 10 s");
+            if (match.test(event)) {
+                return event;
+            }
+        }
+    }
+
+    private static long capacity(Event event, long productId) {
+        for (JsonNode product : event.data().path("products")) {
+            if (product.get("productId").asLong() == productId) {
+                return product.get("maxCanProduce").asLong();
+            }
+        }
+        return -1;
+    }
+
+    private static long stock(Event event, long materialId) {
+        for (JsonNode material : event.data().path("materials")) {
+            if (material.get("rawMaterialId").asLong() == materialId) {
+                return material.get("availableStock").asLong();
+            }
+        }
+        return -1;
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
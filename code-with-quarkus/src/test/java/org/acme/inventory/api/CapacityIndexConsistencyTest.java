@@ -0,0 +1,73 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+
+/**
+ * After produces and catalog edits the resident index still matches a full
+ * recompute from the database, and repairing it takes a POST.
+ */
+@QuarkusTest
+class CapacityIndexConsistencyTest {
+
+    @Test
+    void indexMatchesRecomputeAfterProduceAndCrud() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        long material = create("/raw-materials", Map.of(
+                "code", "CI-RM-" + run, "description", "Index material " + run, "availableStock", 50));
+        long a = create("/products", Map.of("code", "CI-A-" + run, "name", "Index A " + run, "unitPrice", 1.0));
+        long b = create("/products", Map.of("code", "CI-B-" + run, "name", "Index B " + run, "unitPrice", 2.0));
+        long c = create("/products", Map.of("code", "CI-C-" + run, "name", "Index C " + run, "unitPrice", 3.0));
+        create("/material-usage", Map.of("productId", a, "rawMaterialId", material, "consumptionPerUnit", 2));
+        long usageB = create("/material-usage", Map.of(
+                "productId", b, "rawMaterialId", material, "consumptionPerUnit", 5));
+        long usageC = create("/material-usage", Map.of(
+                "productId", c, "rawMaterialId", material, "consumptionPerUnit", 1));
+        given().get("/production-check").then().statusCode(200);
+
+        given().contentType(ContentType.JSON).post("/production/" + a + "/produce/3").then().statusCode(200);
+        given().contentType(ContentType.JSON).body(Map.of("availableStock", 30))
+                .put("/raw-materials/" + material).then().statusCode(200);
+        given().contentType(ContentType.JSON).body(Map.of("name", "Index A renamed " + run, "unitPrice", 4.0))
+                .put("/products/" + a).then().statusCode(200);
+        given().contentType(ContentType.JSON).body(Map.of("consumptionPerUnit", 3))
+                .put("/material-usage/" + usageB).then().statusCode(200);
+        given().delete("/material-usage/" + usageC).then().statusCode(204);
+        given().delete("/products/" + c).then().statusCode(204);
+
+        assertEquals(15, maxCanProduce(a));
+        assertEquals(10, maxCanProduce(b));
+
+        given().get("/production-check/consistency")
+                .then().statusCode(200)
+                .body("consistent", is(true))
+                .body("mismatches.size()", is(0));
+
+        given().contentType(ContentType.JSON).post("/production-check/consistency/repair")
+                .then().statusCode(200)
+                .body("consistent", is(true))
+                .body("repaired", is(false));
+    }
+
+    private static int maxCanProduce(long productId) {
+        return given().get("/production-check").then().statusCode(200)
+                .extract().jsonPath().getInt("find { it.productId == " + productId + " }.maxCanProduce");
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
@@ -0,0 +1,103 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+
+/**
+ * What-if scenarios report only the products whose capacity changes and
+ * leave the stored stock untouched; unknown raw materials and oversized
+ * scenarios are rejected.
+ */
+@QuarkusTest
+class CapacitySimulationTest {
+
+    @Test
+    void scenariosDoNotTouchStock() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        long material = create("/raw-materials", Map.of(
+                "code", "SIM-RM-" + run, "description", "Simulated material " + run, "availableStock", 10));
+        long product = create("/products", Map.of(
+                "code", "SIM-P-" + run, "name", "Simulated product " + run, "unitPrice", 3.0));
+        create("/material-usage", Map.of(
+                "productId", product, "rawMaterialId", material, "consumptionPerUnit", 2));
+
+        List<Map<String, Object>> scenarios = new ArrayList<>();
+        scenarios.add(Map.of("name", "restock", "deltas", List.of(Map.of("rawMaterialId", material, "delta", 10))));
+        scenarios.add(Map.of("name", "shortage", "deltas", List.of(Map.of("rawMaterialId", material, "delta", -9))));
+        scenarios.add(Map.of("name", "noop", "deltas", List.of(Map.of("rawMaterialId", material, "delta", 1))));
+        for (int i = 0; i < 300; i++) {
+            scenarios.add(Map.of("name", "bulk-" + i, "deltas", List.of(Map.of("rawMaterialId", material, "delta", i))));
+        }
+
+        JsonPath result = given().contentType(ContentType.JSON)
+                .body(Map.of("scenarios", scenarios))
+                .post("/production-check/simulate")
+                .then().statusCode(200)
+                .extract().jsonPath();
+
+        assertEquals(5, result.getInt("baseline.find { it.productId == " + product + " }.maxCanProduce"));
+        assertEquals(303, result.getList("scenarios").size());
+        assertEquals(10, change(result, 0, product));
+        assertEquals(0, change(result, 1, product));
+        // 11 / 2 = 5: capacidade igual, nada reportado
+        assertEquals(0, result.getList("scenarios[2].changes").size());
+
+        assertEquals(10, given().get("/raw-materials/" + material).then().statusCode(200)
+                .extract().jsonPath().getInt("availableStock"));
+
+        given().contentType(ContentType.JSON)
+                .body(Map.of("scenarios", List.of()))
+                .post("/production-check/simulate")
+                .then().statusCode(400);
+    }
+
+    @Test
+    void unknownMaterialsAndOversizedScenariosAreRejected() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        long material = create("/raw-materials", Map.of(
+                "code", "SIM-RM2-" + run, "description", "Simulated material 2 " + run, "availableStock", 10));
+
+        List<Map<String, Object>> unknown = List.of(
+                Map.of("name", "ok", "deltas", List.of(Map.of("rawMaterialId", material, "delta", 1))),
+                Map.of("name", "typo", "deltas", List.of(Map.of("rawMaterialId", Long.MAX_VALUE, "delta", 1))));
+        given().contentType(ContentType.JSON)
+                .body(Map.of("scenarios", unknown))
+                .post("/production-check/simulate")
+                .then().statusCode(400)
+                .body("message", is("Scenario 1: unknown rawMaterialId " + Long.MAX_VALUE + "."));
+
+        List<Map<String, Object>> deltas = new ArrayList<>();
+        for (int i = 0; i <= 1000; i++) {
+            deltas.add(Map.of("rawMaterialId", material, "delta", 1));
+        }
+        given().contentType(ContentType.JSON)
+                .body(Map.of("scenarios", List.of(Map.of("name", "huge", "deltas", deltas))))
+                .post("/production-check/simulate")
+                .then().statusCode(400);
+    }
+
+    private static int change(JsonPath result, int scenario, long productId) {
+        return result.getInt("scenarios[" + scenario + "].changes.find { it.productId == " + productId
+                + " }.maxCanProduce");
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
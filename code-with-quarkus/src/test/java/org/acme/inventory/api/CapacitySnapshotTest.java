@@ -0,0 +1,104 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.acme.inventory.domain.MaterialUsage;
+import org.acme.inventory.domain.RawMaterial;
+import org.acme.inventory.service.BomSnapshot;
+import org.acme.inventory.service.CapacityEngine;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+
+/**
+ * The capacity computed from the single-query BOM snapshot is the same as
+ * the per-product loop it replaced (one BOM query per product, one stock
+ * read per line).
+ */
+@QuarkusTest
+class CapacitySnapshotTest {
+
+    @Inject
+    CapacityEngine engine;
+
+    @Test
+    void snapshotMatchesPerProductLoop() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Random random = new Random(42);
+
+        List<Long> materials = new ArrayList<>();
+        for (int m = 0; m < 6; m++) {
+            // estoque zero incluído: o produto não pode ser feito
+            materials.add(create("/raw-materials", Map.of("code", "SN-RM" + m + "-" + run,
+                    "description", "Snapshot material " + m + " " + run, "availableStock", m == 0 ? 0 : 5 + 13 * m)));
+        }
+        List<Long> products = new ArrayList<>();
+        for (int p = 0; p < 10; p++) {
+            long product = create("/products", Map.of(
+                    "code", "SN-P" + p + "-" + run, "name", "Snapshot product " + p + " " + run, "unitPrice", 1.0));
+            products.add(product);
+            // o último fica sem BOM; linhas de matérias-primas distintas
+            int lines = p == 9 ? 0 : 1 + random.nextInt(3);
+            List<Long> pool = new ArrayList<>(materials);
+            for (int l = 0; l < lines; l++) {
+                create("/material-usage", Map.of("productId", product,
+                        "rawMaterialId", pool.remove(random.nextInt(pool.size())),
+                        "consumptionPerUnit", 1 + random.nextInt(7)));
+            }
+        }
+
+        Map<Long, Integer> expected = QuarkusTransaction.requiringNew().call(() -> perProductLoop(products));
+        Map<Long, Integer> actual = QuarkusTransaction.requiringNew().call(() -> {
+            BomSnapshot bom = engine.snapshot(products);
+            Map<Long, Integer> max = new HashMap<>();
+            for (int p = 0; p < bom.productCount(); p++) {
+                max.put(bom.productIds[p], bom.maxCanProduce(p));
+            }
+            return max;
+        });
+
+        assertEquals(9, expected.size());
+        assertEquals(expected, actual);
+    }
+
+    /** The capacity loop of ProductionCheckResource before the snapshot. */
+    private static Map<Long, Integer> perProductLoop(List<Long> productIds) {
+        Map<Long, Integer> result = new HashMap<>();
+        for (Long productId : productIds) {
+            List<MaterialUsage> uses = MaterialUsage.list("product.id = ?1", productId);
+            if (uses.isEmpty()) {
+                continue;
+            }
+
+            int max = Integer.MAX_VALUE;
+            for (MaterialUsage usage : uses) {
+                RawMaterial rm = usage.rawMaterial;
+                if (rm.availableStock <= 0 || usage.consumptionPerUnit <= 0) {
+                    max = 0;
+                    break;
+                }
+                max = Math.min(max, rm.availableStock / usage.consumptionPerUnit);
+            }
+            result.put(productId, max);
+        }
+        return result;
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
@@ -0,0 +1,92 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
+
+/**
+ * Bulk import: duplicates (in the file and against the database) and invalid
+ * rows are reported per row, a rejected row does not take its keys, and a row
+ * the database refuses fails alone instead of rolling back its chunk.
+ */
+@QuarkusTest
+class CatalogImportTest {
+
+    @Test
+    void rejectedRowsDoNotTakeTheirKeys() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        String ndjson = String.join("\n",
+                material("IMP-A-" + run, "Import A " + run, "5"),
+                // duplicado case-insensitive dentro do arquivo
+                material("imp-a-" + run, "Import A2 " + run, "5"),
+                // inválido: não pode reservar o código nem a descrição
+                material("IMP-B-" + run, "Import B " + run, "many"),
+                material("IMP-B-" + run, "Import B " + run, "7"),
+                "{\"code\":\"IMP-C-" + run + "\"}");
+
+        JsonPath report = importRawMaterials(ndjson);
+        assertEquals(2, report.getInt("imported"));
+        assertEquals(3, report.getInt("failed"));
+        assertEquals("Raw material code already exists.", error(report, 2));
+        assertEquals("availableStock must be an integer.", error(report, 3));
+        assertEquals("description is required.", error(report, 5));
+
+        List<String> codes = given().get("/raw-materials").then().statusCode(200)
+                .extract().jsonPath().getList("code");
+        assertTrue(codes.contains("IMP-A-" + run));
+        assertTrue(codes.contains("IMP-B-" + run));
+
+        // segunda importação: as chaves já estão no banco
+        JsonPath again = importRawMaterials(material("IMP-A-" + run, "Import A3 " + run, "1"));
+        assertEquals(0, again.getInt("imported"));
+        assertEquals("Raw material code already exists.", error(again, 1));
+    }
+
+    @Test
+    void rowRefusedByTheDatabaseFailsAlone() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        // code é VARCHAR(50): a linha 2 passa na validação e falha no INSERT do chunk
+        String tooLong = "IMP-L-" + run + "-" + "x".repeat(60);
+        String ndjson = String.join("\n",
+                material("IMP-D-" + run, "Import D " + run, "1"),
+                material(tooLong, "Import E " + run, "1"),
+                material("IMP-F-" + run, "Import F " + run, "1"),
+                // mesma descrição da linha recusada: a chave foi liberada no rollback
+                material("IMP-E-" + run, "Import E " + run, "1"));
+
+        JsonPath report = importRawMaterials(ndjson);
+        assertEquals(3, report.getInt("imported"));
+        assertEquals(1, report.getInt("failed"));
+        assertEquals(2, report.getLong("errors[0].row"));
+
+        List<String> codes = given().get("/raw-materials").then().statusCode(200)
+                .extract().jsonPath().getList("code");
+        assertTrue(codes.containsAll(List.of("IMP-D-" + run, "IMP-F-" + run, "IMP-E-" + run)));
+        assertFalse(codes.contains(tooLong));
+    }
+
+    private static String material(String code, String description, String stock) {
+        return "{\"code\":\"" + code + "\",\"description\":\"" + description + "\",\"availableStock\":\""
+                + stock + "\"}";
+    }
+
+    private static String error(JsonPath report, long row) {
+        return report.getString("errors.find { it.row == " + row + " }.message");
+    }
+
+    private static JsonPath importRawMaterials(String ndjson) {
+        return given().contentType(ImportResource.NDJSON).body(ndjson)
+                .when().post("/import/raw-materials")
+                .then().statusCode(200)
+                .extract().jsonPath();
+    }
+}
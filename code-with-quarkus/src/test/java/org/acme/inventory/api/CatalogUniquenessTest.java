@@ -0,0 +1,110 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.acme.inventory.service.CatalogKeyBackfill;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Codes, names and descriptions are unique regardless of case and
+ * surrounding spaces; only those violations answer 409, and rows without
+ * normalized keys get them from the backfill.
+ */
+@QuarkusTest
+class CatalogUniquenessTest {
+
+    @Inject
+    CatalogKeyBackfill backfill;
+
+    @Inject
+    EntityManager em;
+
+    @Test
+    void duplicatesDifferingOnlyByCaseAreConflicts() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        create("/products", Map.of("code", "UQ-P-" + run, "name", "Unique " + run, "unitPrice", 1.0));
+        create("/raw-materials", Map.of(
+                "code", "UQ-RM-" + run, "description", "Unique material " + run, "availableStock", 1));
+
+        conflict("/products", Map.of("code", " uq-p-" + run + " ", "name", "Other " + run, "unitPrice", 1.0))
+                .body("message", is("Product code already exists."));
+        conflict("/products", Map.of("code", "UQ-P2-" + run, "name", "UNIQUE " + run, "unitPrice", 1.0))
+                .body("message", is("Product name already exists."));
+        conflict("/raw-materials", Map.of(
+                "code", "uq-rm-" + run, "description", "Other material " + run, "availableStock", 1))
+                .body("message", is("Raw material code already exists."));
+        conflict("/raw-materials", Map.of(
+                "code", "UQ-RM2-" + run, "description", "unique MATERIAL " + run, "availableStock", 1))
+                .body("message", is("Raw material description already exists."));
+    }
+
+    @Test
+    void foreignKeyViolationIsNotReportedAsDuplicate() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        long material = create("/raw-materials", Map.of(
+                "code", "FK-RM-" + run, "description", "Referenced " + run, "availableStock", 1));
+        long product = create("/products", Map.of(
+                "code", "FK-P-" + run, "name", "Referencing " + run, "unitPrice", 1.0));
+        create("/material-usage", Map.of("productId", product, "rawMaterialId", material, "consumptionPerUnit", 1));
+
+        int status = given().delete("/raw-materials/" + material).then().extract().statusCode();
+
+        assertTrue(status >= 500, "FK violation answered " + status);
+        given().get("/raw-materials/" + material).then().statusCode(200);
+    }
+
+    @Test
+    void backfillFillsMissingKeys() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        long product = create("/products", Map.of(
+                "code", " BF-P-" + run, "name", "Backfill " + run, "unitPrice", 1.0));
+
+        // linha anterior às colunas de chave
+        QuarkusTransaction.requiringNew().run(() -> em
+                .createQuery("update Product e set e.codeKey = null, e.nameKey = null where e.id = :id")
+                .setParameter("id", product)
+                .executeUpdate());
+
+        assertTrue(backfill.backfill() >= 1);
+        Object[] keys = QuarkusTransaction.requiringNew().call(() -> em
+                .createQuery("select e.codeKey, e.nameKey from Product e where e.id = :id", Object[].class)
+                .setParameter("id", product)
+                .getSingleResult());
+        assertEquals("bf-p-" + run, keys[0]);
+        assertEquals("backfill " + run, keys[1]);
+    }
+
+    @Test
+    void constraintNamesAreMatchedExactly() {
+        assertEquals("uk_product_code", UniqueConstraintExceptionMapper.normalize("uk_product_code"));
+        assertEquals("uk_product_code_key", UniqueConstraintExceptionMapper.normalize(
+                "PUBLIC.UK_PRODUCT_CODE_KEY_INDEX_1 ON PUBLIC.PRODUCT(CODEKEY NULLS FIRST)"));
+        assertEquals("", UniqueConstraintExceptionMapper.normalize(null));
+    }
+
+    private static ValidatableResponse conflict(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(409);
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
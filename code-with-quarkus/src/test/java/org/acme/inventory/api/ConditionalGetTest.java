@@ -0,0 +1,151 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.acme.inventory.service.CatalogChange;
+import org.acme.inventory.service.CatalogVersions;
+import org.acme.inventory.service.CatalogVersions.Aggregate;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * An unchanged catalog answers a repeated GET with 304; a committed mutation
+ * changes the ETag, and a GET that already sees the new tag also sees the new
+ * data.
+ */
+@QuarkusTest
+class ConditionalGetTest {
+
+    @Inject
+    MidCommitProbe probe;
+
+    @Inject
+    CatalogVersions versions;
+
+    @Test
+    void unchangedListIsNotModifiedUntilAMutationCommits() {
+        String etag = given().get("/raw-materials").then().statusCode(200).extract().header("ETag");
+        assertNotNull(etag);
+
+        given().header("If-None-Match", etag)
+                .get("/raw-materials")
+                .then().statusCode(304);
+
+        given().contentType(ContentType.JSON)
+                .body(Map.of(
+                        "code", "RM-" + UUID.randomUUID(),
+                        "description", "etag " + UUID.randomUUID(),
+                        "availableStock", 10))
+                .post("/raw-materials")
+                .then().statusCode(201);
+
+        String changed = given().header("If-None-Match", etag)
+                .get("/raw-materials")
+                .then().statusCode(200).extract().header("ETag");
+        assertNotEquals(etag, changed);
+    }
+
+    @Test
+    void pagesHaveDistinctTags() {
+        String first = given().get("/products?limit=1").then().statusCode(200).extract().header("ETag");
+        String all = given().get("/products").then().statusCode(200).extract().header("ETag");
+        assertNotEquals(first, all);
+    }
+
+    @Test
+    void representationsWithCollidingHashCodesHaveDistinctTags() {
+        // "Aa" e "BB" têm o mesmo String.hashCode()
+        assertNotEquals(
+                versions.etag(Aggregate.PRODUCTS, 1, "/products", "fields=Aa"),
+                versions.etag(Aggregate.PRODUCTS, 1, "/products", "fields=BB"));
+        assertNotEquals(
+                versions.etag(Aggregate.PRODUCTS, 1, "/products", "limit=1", null),
+                versions.etag(Aggregate.PRODUCTS, 1, "/products", "limit=1", "application/cbor"));
+    }
+
+    @Test
+    void getDuringCommitNeverTagsOldCapacity() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        long material = create("/raw-materials", Map.of(
+                "code", "CG-RM-" + run, "description", "Conditional material " + run, "availableStock", 10));
+        long product = create("/products", Map.of(
+                "code", "CG-P-" + run, "name", "Conditional " + run, "unitPrice", 1.0));
+        create("/material-usage", Map.of("productId", product, "rawMaterialId", material, "consumptionPerUnit", 1));
+
+        Response before = given().get("/production-check").then().statusCode(200).extract().response();
+        assertEquals(10, maxCanProduce(before, product));
+
+        // o GET roda entre o incremento da versão e o fim do evento de commit
+        probe.arm(material, before.header("ETag"));
+        given().contentType(ContentType.JSON)
+                .body(Map.of("availableStock", 20))
+                .put("/raw-materials/" + material)
+                .then().statusCode(200);
+
+        Response during = probe.observed();
+        assertNotNull(during, "no GET ran during the commit");
+        assertEquals(200, during.statusCode());
+        assertNotEquals(before.header("ETag"), during.header("ETag"));
+        assertEquals(20, maxCanProduce(during, product));
+
+        given().header("If-None-Match", during.header("ETag"))
+                .get("/production-check")
+                .then().statusCode(304);
+    }
+
+    private static int maxCanProduce(Response response, long productId) {
+        return response.jsonPath().getInt("find { it.productId == " + productId + " }.maxCanProduce");
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+
+    /**
+     * Sends a conditional GET /production-check from inside the commit of a
+     * change to the watched raw material, right after the versions move.
+     */
+    @ApplicationScoped
+    public static class MidCommitProbe {
+
+        private Long materialId;
+        private String ifNoneMatch;
+        private Response observed;
+
+        synchronized void arm(long materialId, String ifNoneMatch) {
+            this.materialId = materialId;
+            this.ifNoneMatch = ifNoneMatch;
+            this.observed = null;
+        }
+
+        synchronized Response observed() {
+            return observed;
+        }
+
+        synchronized void onCatalogChange(@Observes @Priority(CatalogChange.BUMP_VERSIONS + 1) CatalogChange change) {
+            if (materialId == null || !change.materialIds().contains(materialId)) {
+                return;
+            }
+            materialId = null;
+            observed = given().header("If-None-Match", ifNoneMatch)
+                    .get("/production-check")
+                    .then().extract().response();
+        }
+    }
+}
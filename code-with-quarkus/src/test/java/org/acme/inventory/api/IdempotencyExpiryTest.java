@@ -0,0 +1,62 @@
+package org.acme.inventory.api;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.acme.inventory.service.IdempotencyStore;
+import org.acme.inventory.service.IdempotencyStore.Claim;
+import org.acme.inventory.service.IdempotencyStore.StoredResponse;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+
+/**
+ * Responses expire by completion time, not by when their key was claimed:
+ * a key claimed first but completed last does not keep an earlier-completed
+ * response alive past its TTL.
+ */
+@QuarkusTest
+@TestProfile(IdempotencyExpiryTest.Profile.class)
+class IdempotencyExpiryTest {
+
+    public static class Profile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("inventory.idempotency.ttl-ms", "1000");
+        }
+    }
+
+    @Inject
+    IdempotencyStore store;
+
+    @Test
+    void slowOwnerDoesNotHoldBackExpiry() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        String slow = "slow-" + run;
+        String fast = "fast-" + run;
+
+        assertTrue(store.begin(slow, "f").owner());
+        assertTrue(store.begin(fast, "f").owner());
+        store.complete(fast, response());
+        Thread.sleep(700);
+        store.complete(slow, response());
+
+        // fast venceu; slow ainda vale por ~550 ms
+        Thread.sleep(450);
+        Claim replay = store.begin(slow, "f");
+        assertFalse(replay.owner());
+        assertNotNull(replay.replay());
+        assertTrue(store.begin(fast, "f").owner());
+    }
+
+    private static StoredResponse response() {
+        return new StoredResponse("f", 200, "application/json", null, new byte[0]);
+    }
+}
@@ -0,0 +1,114 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+
+/**
+ * Retried and concurrent duplicate requests with one Idempotency-Key run the
+ * write once: retries get the same response, duplicates in flight a 409 to
+ * retry. A rejection is replayed too, even after the state changed.
+ */
+@QuarkusTest
+class IdempotencyTest {
+
+    @Test
+    void duplicatesRunOnce() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        long material = create("/raw-materials", Map.of(
+                "code", "ID-RM-" + run, "description", "Idempotent material " + run, "availableStock", 100));
+        long product = create("/products", Map.of(
+                "code", "ID-P-" + run, "name", "Idempotent product " + run, "unitPrice", 1.0));
+
+        Map<String, Object> line = Map.of("productId", product, "rawMaterialId", material, "consumptionPerUnit", 1);
+        Response first = post("/material-usage", "bom-" + run, line);
+        Response retry = post("/material-usage", "bom-" + run, line);
+        assertEquals(201, first.statusCode());
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(201, retry.statusCode());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(first.jsonPath().getLong("id"), retry.jsonPath().getLong("id"));
+        assertEquals(1, given().get("/material-usage").then().statusCode(200)
+                .extract().jsonPath().getList("findAll { it.product.id == " + product + " }").size());
+
+        // mesma chave com outro corpo
+        assertEquals(422, post("/material-usage", "bom-" + run,
+                Map.of("productId", product, "rawMaterialId", material, "consumptionPerUnit", 2)).statusCode());
+
+        // duplicatas simultâneas não esperam o dono: 409 + Retry-After, e a repetição recebe a resposta dele
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Response>> calls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            calls.add(pool.submit(() -> post("/production/" + product + "/produce/5", "produce-" + run, null)));
+        }
+        for (Future<Response> call : calls) {
+            Response response = call.get();
+            if (response.statusCode() == 409) {
+                assertEquals(String.valueOf(IdempotencyFilter.RETRY_AFTER_SECONDS), response.getHeader("Retry-After"));
+            } else {
+                assertEquals(200, response.statusCode());
+            }
+        }
+        pool.shutdown();
+
+        Response replayed = post("/production/" + product + "/produce/5", "produce-" + run, null);
+        assertEquals(200, replayed.statusCode());
+        assertEquals("true", replayed.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(95, given().get("/raw-materials/" + material).then().statusCode(200)
+                .extract().jsonPath().getInt("availableStock"));
+    }
+
+    @Test
+    void rejectionsAreFinal() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        long material = create("/raw-materials", Map.of(
+                "code", "IDR-RM-" + run, "description", "Rejected material " + run, "availableStock", 2));
+        long product = create("/products", Map.of(
+                "code", "IDR-P-" + run, "name", "Rejected product " + run, "unitPrice", 1.0));
+        create("/material-usage", Map.of("productId", product, "rawMaterialId", material, "consumptionPerUnit", 1));
+
+        assertEquals(400, post("/production/" + product + "/produce/5", "short-" + run, null).statusCode());
+        given().contentType(ContentType.JSON).body(Map.of("availableStock", 10))
+                .put("/raw-materials/" + material).then().statusCode(200);
+
+        // com estoque agora suficiente a mesma chave ainda responde 400: a tentativa já teve resultado
+        Response retry = post("/production/" + product + "/produce/5", "short-" + run, null);
+        assertEquals(400, retry.statusCode());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(10, given().get("/raw-materials/" + material).then().statusCode(200)
+                .extract().jsonPath().getInt("availableStock"));
+
+        assertEquals(200, post("/production/" + product + "/produce/5", "again-" + run, null).statusCode());
+    }
+
+    private static Response post(String path, String key, Object body) {
+        var request = given().contentType(ContentType.JSON).header(IdempotencyFilter.HEADER, key);
+        if (body != null) {
+            request.body(body);
+        }
+        return request.post(path);
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
@@ -0,0 +1,68 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+
+/**
+ * In ledger write mode queued orders are validated against the stock
+ * projection, not the lagging raw_material row.
+ */
+@QuarkusTest
+@TestProfile(LedgerOrderQueueTest.Profile.class)
+class LedgerOrderQueueTest {
+
+    public static class Profile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("inventory.stock.write-mode", "ledger");
+        }
+    }
+
+    @Test
+    void queuedOrdersSeeTheProjection() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        long material = create("/raw-materials", Map.of(
+                "code", "LQ-RM-" + run, "description", "Ledger queue material " + run, "availableStock", 5));
+        long product = create("/products", Map.of(
+                "code", "LQ-P-" + run, "name", "Ledger queue product " + run, "unitPrice", 1.0));
+        create("/material-usage", Map.of("productId", product, "rawMaterialId", material, "consumptionPerUnit", 1));
+
+        // raw_material ainda pode dizer 5 quando os pedidos forem validados
+        given().contentType(ContentType.JSON)
+                .post("/production/" + product + "/produce/3")
+                .then().statusCode(200);
+
+        List<String> statuses = new ArrayList<>();
+        for (int quantity : new int[] { 2, 1 }) {
+            long orderId = given().contentType(ContentType.JSON)
+                    .body(Map.of("productId", product, "quantity", quantity))
+                    .post("/production/orders")
+                    .then().statusCode(202)
+                    .extract().jsonPath().getLong("orderId");
+            statuses.add(given().get("/production/orders/" + orderId + "?waitMs=5000")
+                    .then().statusCode(200)
+                    .extract().jsonPath().getString("status"));
+        }
+        assertEquals(List.of("PRODUCED", "REJECTED"), statuses);
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
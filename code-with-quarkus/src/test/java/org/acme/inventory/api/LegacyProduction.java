@@ -0,0 +1,38 @@
+package org.acme.inventory.api;
+
+import java.util.List;
+
+import org.acme.inventory.domain.MaterialUsage;
+import org.acme.inventory.domain.RawMaterial;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+
+/**
+ * The read-check-write decrement that ProductionResource.produce used before
+ * the guarded UPDATE, kept only as a baseline for the concurrency test.
+ */
+@ApplicationScoped
+public class LegacyProduction {
+
+    @Transactional
+    public boolean produce(Long productId, int quantity) {
+        List<MaterialUsage> usages = MaterialUsage.list("product.id", productId);
+
+        for (MaterialUsage usage : usages) {
+            if (usage.rawMaterial.availableStock < usage.consumptionPerUnit * quantity) {
+                return false;
+            }
+        }
+
+        for (MaterialUsage usage : usages) {
+            RawMaterial rm = usage.rawMaterial;
+            rm.availableStock -= usage.consumptionPerUnit * quantity;
+            if (rm.availableStock < 0) {
+                rm.availableStock = 0;
+            }
+            rm.persist();
+        }
+        return true;
+    }
+}
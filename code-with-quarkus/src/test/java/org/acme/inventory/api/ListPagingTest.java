@@ -0,0 +1,82 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+
+/**
+ * Keyset pages follow X-Next-After until the last one, sparse fields select
+ * the projection columns only, and the streamed list has every row.
+ */
+@QuarkusTest
+class ListPagingTest {
+
+    @Test
+    void pagesFieldsAndStream() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(create("/raw-materials", Map.of(
+                    "code", "PG-" + i + "-" + run, "description", "Paged " + i + " " + run, "availableStock", i)));
+        }
+        long before = ids.get(0) - 1;
+
+        // cursor: os ids criados por este teste são os últimos da tabela
+        List<Long> paged = new ArrayList<>();
+        String after = Long.toString(before);
+        int pages = 0;
+        while (after != null) {
+            Response page = given().queryParam("after", after).queryParam("limit", 2)
+                    .get("/raw-materials")
+                    .then().statusCode(200)
+                    .extract().response();
+            paged.addAll(page.jsonPath().getList("id", Long.class));
+            after = page.header(ListQuery.NEXT_HEADER);
+            pages++;
+        }
+        assertEquals(ids, paged);
+        assertEquals(3, pages);
+
+        given().queryParam("after", before).queryParam("limit", 1).queryParam("fields", "code, id")
+                .get("/raw-materials")
+                .then().statusCode(200)
+                .header(ListQuery.NEXT_HEADER, ids.get(0).toString())
+                .body("[0].code", is("PG-0-" + run))
+                .body("[0].id", is(ids.get(0).intValue()))
+                .body("[0].description", nullValue());
+        assertEquals(Set.of("code", "id"), given().queryParam("after", before).queryParam("fields", "code,id")
+                .get("/raw-materials")
+                .then().statusCode(200)
+                .extract().jsonPath().getMap("[0]").keySet());
+        given().queryParam("fields", "id,price").get("/raw-materials")
+                .then().statusCode(400);
+
+        Response streamed = given().queryParam("after", before).queryParam("stream", true)
+                .get("/raw-materials")
+                .then().statusCode(200)
+                .contentType(ContentType.JSON)
+                .extract().response();
+        assertEquals(ids, streamed.jsonPath().getList("id", Long.class));
+        assertEquals(List.of(0, 1, 2, 3, 4), streamed.jsonPath().getList("availableStock", Integer.class));
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
@@ -0,0 +1,80 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+
+/**
+ * Demand list aggregated per raw material: every shortage is reported (not
+ * only the first), each product's share of a material is returned and
+ * requirements beyond the int range do not overflow.
+ */
+@QuarkusTest
+class MaterialRequirementsTest {
+
+    @Test
+    void aggregatesDemandAcrossProducts() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        long shared = create("/raw-materials", Map.of(
+                "code", "MRP-A-" + run, "description", "Shared material " + run, "availableStock", 100));
+        long scarce = create("/raw-materials", Map.of(
+                "code", "MRP-B-" + run, "description", "Scarce material " + run, "availableStock", 5));
+        long first = create("/products", Map.of("code", "MRP-P1-" + run, "name", "First " + run, "unitPrice", 1.0));
+        long second = create("/products", Map.of("code", "MRP-P2-" + run, "name", "Second " + run, "unitPrice", 1.0));
+
+        create("/material-usage", Map.of("productId", first, "rawMaterialId", shared, "consumptionPerUnit", 3));
+        create("/material-usage", Map.of("productId", second, "rawMaterialId", shared, "consumptionPerUnit", 1));
+        create("/material-usage", Map.of("productId", second, "rawMaterialId", scarce, "consumptionPerUnit", 2));
+
+        JsonPath result = requirements(List.of(
+                Map.of("productId", first, "quantity", 30),
+                Map.of("productId", second, "quantity", 5),
+                Map.of("productId", second, "quantity", 5)));
+
+        assertFalse(result.getBoolean("feasible"));
+        // 30 x 3 + 10 x 1 = 100: exatamente o estoque
+        assertEquals(100L, result.getLong(material(shared) + ".required"));
+        assertEquals(0L, result.getLong(material(shared) + ".missing"));
+        assertEquals(0.9, result.getDouble(material(shared) + ".consumers.find { it.productId == " + first
+                + " }.share"), 1e-9);
+        assertEquals(15L, result.getLong(material(scarce) + ".missing"));
+        assertEquals(1, result.getList("shortages").size());
+
+        // 2 x 2_000_000_000 não cabe em int
+        JsonPath large = requirements(List.of(Map.of("productId", second, "quantity", 2_000_000_000L)));
+        assertEquals(4_000_000_000L, large.getLong(material(scarce) + ".required"));
+
+        assertEquals(100, given().get("/raw-materials/" + shared).then().statusCode(200)
+                .extract().jsonPath().getInt("availableStock"));
+    }
+
+    private static String material(long id) {
+        return "materials.find { it.rawMaterialId == " + id + " }";
+    }
+
+    private static JsonPath requirements(List<Map<String, Object>> demand) {
+        return given().contentType(ContentType.JSON)
+                .body(Map.of("demand", demand))
+                .post("/production/requirements")
+                .then().statusCode(200)
+                .extract().jsonPath();
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
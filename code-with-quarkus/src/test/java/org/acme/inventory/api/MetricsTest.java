@@ -0,0 +1,61 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+
+/**
+ * /q/metrics exposes the latency histograms of http.server.requests, the SQL
+ * statements per resource method, the shortages and the connection pool.
+ */
+@QuarkusTest
+class MetricsTest {
+
+    @Test
+    void prometheusExposesRequestHistogramsAndSqlCounts() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        long material = create("/raw-materials", Map.of(
+                "code", "MT-RM-" + run, "description", "Metrics material " + run, "availableStock", 1));
+        long product = create("/products", Map.of(
+                "code", "MT-P-" + run, "name", "Metrics product " + run, "unitPrice", 1.0));
+        create("/material-usage", Map.of("productId", product, "rawMaterialId", material, "consumptionPerUnit", 1));
+
+        given().get("/raw-materials").then().statusCode(200);
+        given().contentType(ContentType.JSON).post("/production/" + product + "/produce/2").then().statusCode(400);
+
+        List<String> metrics = given().get("/q/metrics")
+                .then().statusCode(200)
+                .extract().asString().lines().toList();
+
+        assertTrue(has(metrics, "http_server_requests_seconds_bucket{", "uri=\"/raw-materials\"", "le="),
+                "no latency histogram for GET /raw-materials");
+        assertTrue(has(metrics, "inventory_request_sql_statements_count{", "method=\"RawMaterialResource.list\""),
+                "no SQL statement count for RawMaterialResource.list");
+        assertTrue(has(metrics, "inventory_request_sql_statements_bucket{", "method=\"ProductionResource.produce\""),
+                "no SQL statement histogram for ProductionResource.produce");
+        assertTrue(has(metrics, "inventory_production_shortages_total{", "source=\"produce\""),
+                "no shortage counter");
+        assertTrue(has(metrics, "agroal_"), "no connection pool metrics");
+    }
+
+    private static boolean has(List<String> metrics, String prefix, String... parts) {
+        return metrics.stream()
+                .filter(line -> line.startsWith(prefix))
+                .anyMatch(line -> List.of(parts).stream().allMatch(line::contains));
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
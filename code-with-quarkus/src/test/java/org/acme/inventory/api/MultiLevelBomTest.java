@@ -0,0 +1,140 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+
+/**
+ * Product -> sub-assembly -> raw material: capacity uses the net
+ * consumption, editing the sub-assembly refreshes its ancestors, and a line
+ * that closes a cycle is rejected, also when both halves of the loop are
+ * posted at once.
+ */
+@QuarkusTest
+class MultiLevelBomTest {
+
+    @Test
+    void capacityFollowsSubAssemblies() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        long material = create("/raw-materials", Map.of(
+                "code", "MB-RM-" + run, "description", "Multi-level material " + run, "availableStock", 100));
+        long subAssembly = create("/products", Map.of(
+                "code", "MB-S-" + run, "name", "Sub-assembly " + run, "unitPrice", 5.0));
+        long product = create("/products", Map.of(
+                "code", "MB-P-" + run, "name", "Assembly " + run, "unitPrice", 50.0));
+
+        long subLine = create("/material-usage", Map.of(
+                "productId", subAssembly, "rawMaterialId", material, "consumptionPerUnit", 2));
+        create("/material-usage", Map.of(
+                "productId", product, "componentProductId", subAssembly, "consumptionPerUnit", 3));
+
+        // 3 submontagens x 2 unidades = 6 por produto
+        assertEquals(50, maxCanProduce(subAssembly));
+        assertEquals(16, maxCanProduce(product));
+
+        given().contentType(ContentType.JSON)
+                .body(Map.of("productId", subAssembly, "componentProductId", product, "consumptionPerUnit", 1))
+                .post("/material-usage")
+                .then().statusCode(400);
+
+        given().contentType(ContentType.JSON)
+                .body(Map.of("consumptionPerUnit", 5))
+                .put("/material-usage/" + subLine)
+                .then().statusCode(200);
+
+        assertEquals(20, maxCanProduce(subAssembly));
+        assertEquals(6, maxCanProduce(product));
+
+        given().contentType(ContentType.JSON)
+                .post("/production/" + product + "/produce/2")
+                .then().statusCode(200);
+
+        // 2 x 3 x 5 = 30 consumidos
+        assertEquals(70, given().get("/raw-materials/" + material).then().statusCode(200)
+                .extract().jsonPath().getInt("availableStock"));
+    }
+
+    @Test
+    void concurrentLinesCannotCloseALoop() throws Exception {
+        for (int round = 0; round < 10; round++) {
+            String run = UUID.randomUUID().toString().substring(0, 8);
+            long a = create("/products", Map.of("code", "MB-A-" + run, "name", "Loop A " + run, "unitPrice", 1.0));
+            long b = create("/products", Map.of("code", "MB-B-" + run, "name", "Loop B " + run, "unitPrice", 1.0));
+
+            // A -> B e B -> A ao mesmo tempo: só uma pode passar
+            assertEquals(List.of(201, 400), post(new long[][] { { a, b }, { b, a } }), "round " + round);
+        }
+    }
+
+    @Test
+    void concurrentLinesCannotCloseALongerLoop() throws Exception {
+        for (int round = 0; round < 10; round++) {
+            String run = UUID.randomUUID().toString().substring(0, 8);
+            long[] p = new long[4];
+            for (int i = 0; i < p.length; i++) {
+                p[i] = create("/products", Map.of(
+                        "code", "MB-L" + i + "-" + run, "name", "Long loop " + i + " " + run, "unitPrice", 1.0));
+            }
+            create("/material-usage", Map.of("productId", p[1], "componentProductId", p[2], "consumptionPerUnit", 1));
+            create("/material-usage", Map.of("productId", p[3], "componentProductId", p[0], "consumptionPerUnit", 1));
+
+            // 0 -> 1 e 2 -> 3 não se tocam, mas fecham 0 -> 1 -> 2 -> 3 -> 0 juntas
+            assertEquals(List.of(201, 400), post(new long[][] { { p[0], p[1] }, { p[2], p[3] } }), "round " + round);
+        }
+    }
+
+    /** Posts the sub-assembly lines at once and returns the sorted statuses. */
+    private static List<Integer> post(long[][] edges) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(edges.length);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> posts = new ArrayList<>();
+            for (long[] edge : edges) {
+                posts.add(pool.submit(() -> {
+                    start.await();
+                    return given().contentType(ContentType.JSON)
+                            .body(Map.of("productId", edge[0], "componentProductId", edge[1],
+                                    "consumptionPerUnit", 1))
+                            .post("/material-usage")
+                            .then().extract().statusCode();
+                }));
+            }
+            start.countDown();
+
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> post : posts) {
+                statuses.add(post.get());
+            }
+            statuses.sort(null);
+            return statuses;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static int maxCanProduce(long productId) {
+        return given().get("/production-check").then().statusCode(200)
+                .extract().jsonPath().getInt("find { it.productId == " + productId + " }.maxCanProduce");
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
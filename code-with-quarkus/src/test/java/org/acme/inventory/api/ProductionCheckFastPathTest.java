@@ -0,0 +1,42 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+
+/**
+ * A GET /production-check on a fresh index is answered on the event loop
+ * without SQL, and still shows up in the per-method statement metric.
+ */
+@QuarkusTest
+class ProductionCheckFastPathTest {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Test
+    void freshIndexIsServedWithoutStatementsAndRecorded() {
+        // o primeiro GET pode passar pelo recurso e atualizar o índice
+        given().get("/production-check").then().statusCode(200);
+        long before = count();
+
+        given().get("/production-check")
+                .then().statusCode(200)
+                .header(RequestMetricsFilter.SQL_COUNT_HEADER, "0");
+
+        assertEquals(before + 1, count());
+    }
+
+    private long count() {
+        DistributionSummary summary = registry.find(RequestMetricsFilter.SQL_STATEMENTS)
+                .tag("method", ProductionCheckFastPath.METHOD)
+                .summary();
+        return summary == null ? 0 : summary.count();
+    }
+}
@@ -0,0 +1,149 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Two products share one raw material and many threads produce both at once,
+ * first through the legacy read-check-write path, then through the guarded
+ * decrement. The guarded path must never consume more than the initial stock
+ * and must keep at least half of the legacy throughput.
+ */
+@QuarkusTest
+class ProductionConcurrencyTest {
+
+    private static final Logger LOG = Logger.getLogger(ProductionConcurrencyTest.class);
+
+    private static final int THREADS = 16;
+    private static final int CALLS_PER_THREAD = 50;
+    private static final int INITIAL_STOCK = 1_000;
+    // o UPDATE com guarda pode custar algo, mas não mais que 2x o caminho antigo
+    private static final double MIN_THROUGHPUT_RATIO = 0.5;
+
+    @Inject
+    ProductionResource production;
+
+    @Inject
+    LegacyProduction legacy;
+
+    @Test
+    void guardedDecrementNeverOversellsAndKeepsUpWithLegacy() throws Exception {
+        Map<String, BiPredicate<Long, Integer>> paths = new LinkedHashMap<>();
+        paths.put("legacy", (productId, quantity) -> {
+            try {
+                return legacy.produce(productId, quantity);
+            } catch (RuntimeException e) {
+                return false; // conflito de escrita/deadlock
+            }
+        });
+        paths.put("guarded", (productId, quantity) -> {
+            try (Response response = production.produce(productId, quantity)) {
+                return response.getStatus() == 200;
+            }
+        });
+
+        Map<String, Double> throughput = new LinkedHashMap<>();
+        for (Map.Entry<String, BiPredicate<Long, Integer>> path : paths.entrySet()) {
+            Fixture f = seed();
+            BiPredicate<Long, Integer> produce = path.getValue();
+            AtomicLong consumed = new AtomicLong();
+            AtomicLong succeeded = new AtomicLong();
+
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                tasks.add(() -> {
+                    for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                        // produto A consome 1 por unidade, produto B consome 2
+                        boolean a = (thread + i) % 2 == 0;
+                        long productId = a ? f.productA : f.productB;
+                        if (produce.test(productId, 3)) {
+                            succeeded.incrementAndGet();
+                            consumed.addAndGet(a ? 3 : 6);
+                        }
+                    }
+                    return null;
+                });
+            }
+
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+            long start = System.nanoTime();
+            try {
+                for (Future<Void> future : pool.invokeAll(tasks)) {
+                    future.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+            double callsPerSecond = THREADS * CALLS_PER_THREAD / ((System.nanoTime() - start) / 1e9);
+            throughput.put(path.getKey(), callsPerSecond);
+
+            long finalStock = stock(f.materialId);
+            LOG.infof("%s: %d ok / %d calls, %.0f calls/s, consumed %d, stock delta %d",
+                    path.getKey(), succeeded.get(), THREADS * CALLS_PER_THREAD, callsPerSecond,
+                    consumed.get(), INITIAL_STOCK - finalStock);
+
+            if (path.getKey().equals("guarded")) {
+                assertTrue(succeeded.get() > 0, "no production succeeded");
+                assertTrue(finalStock >= 0, "stock went negative: " + finalStock);
+                assertEquals(INITIAL_STOCK - consumed.get(), finalStock, "lost update or oversell");
+            }
+        }
+
+        assertTrue(throughput.get("guarded") >= throughput.get("legacy") * MIN_THROUGHPUT_RATIO,
+                "guarded decrement too slow against the legacy path: " + throughput);
+    }
+
+    private Fixture seed() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+
+        long materialId = create("/raw-materials", Map.of(
+                "code", "RM-" + suffix, "description", "Shared " + suffix, "availableStock", INITIAL_STOCK));
+        long productA = create("/products", Map.of(
+                "code", "PA-" + suffix, "name", "Product A " + suffix, "unitPrice", 10.0));
+        long productB = create("/products", Map.of(
+                "code", "PB-" + suffix, "name", "Product B " + suffix, "unitPrice", 20.0));
+
+        create("/material-usage", Map.of("productId", productA, "rawMaterialId", materialId, "consumptionPerUnit", 1));
+        create("/material-usage", Map.of("productId", productB, "rawMaterialId", materialId, "consumptionPerUnit", 2));
+
+        return new Fixture(materialId, productA, productB);
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+
+    private static long stock(long materialId) {
+        return given().when().get("/raw-materials/" + materialId)
+                .then().statusCode(200)
+                .extract().jsonPath().getLong("availableStock");
+    }
+
+    private record Fixture(long materialId, long productA, long productB) {
+    }
+}
@@ -0,0 +1,72 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+
+/**
+ * Orders are acknowledged with 202 and an id; the writer applies them in
+ * submission order, so exactly the orders the stock covers are produced and
+ * the rest are rejected with their shortages.
+ */
+@QuarkusTest
+class ProductionOrderQueueTest {
+
+    @Test
+    void ordersAreAppliedInSubmissionOrder() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        long material = create("/raw-materials", Map.of(
+                "code", "PO-RM-" + run, "description", "Order material " + run, "availableStock", 7));
+        long product = create("/products", Map.of(
+                "code", "PO-P-" + run, "name", "Order product " + run, "unitPrice", 1.0));
+        create("/material-usage", Map.of("productId", product, "rawMaterialId", material, "consumptionPerUnit", 1));
+
+        List<Long> orders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orders.add(given().contentType(ContentType.JSON)
+                    .body(Map.of("productId", product, "quantity", 2))
+                    .post("/production/orders")
+                    .then().statusCode(202)
+                    .extract().jsonPath().getLong("orderId"));
+        }
+
+        List<String> statuses = new ArrayList<>();
+        JsonPath last = null;
+        for (long orderId : orders) {
+            last = given().get("/production/orders/" + orderId + "?waitMs=5000")
+                    .then().statusCode(200)
+                    .extract().jsonPath();
+            statuses.add(last.getString("status"));
+        }
+
+        assertEquals(List.of("PRODUCED", "PRODUCED", "PRODUCED", "REJECTED", "REJECTED"), statuses);
+        assertEquals("INSUFFICIENT_STOCK", last.getString("error"));
+        assertEquals(1, last.getInt("shortages[0].available"));
+        assertEquals(1, given().get("/raw-materials/" + material).then().statusCode(200)
+                .extract().jsonPath().getInt("availableStock"));
+
+        given().contentType(ContentType.JSON)
+                .body(Map.of("productId", product, "quantity", 0))
+                .post("/production/orders")
+                .then().statusCode(400);
+        given().get("/production/orders/" + Long.MAX_VALUE).then().statusCode(404);
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
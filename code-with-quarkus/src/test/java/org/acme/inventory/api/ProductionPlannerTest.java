@@ -0,0 +1,135 @@
+package org.acme.inventory.api;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.acme.inventory.service.BomSnapshot;
+import org.acme.inventory.service.ProductionPlanner;
+import org.acme.inventory.service.ProductionPlanner.Plan;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+
+/**
+ * Branch and bound against exhaustive search on small random catalogs, plus
+ * ties between equally good products and materials without stock.
+ */
+@QuarkusTest
+class ProductionPlannerTest {
+
+    static final long BUDGET_MS = 5_000;
+
+    @Inject
+    ProductionPlanner planner;
+
+    @Test
+    void matchesBruteForceOnSmallCatalogs() {
+        Random random = new Random(42);
+
+        for (int instance = 0; instance < 300; instance++) {
+            int products = 1 + random.nextInt(4);
+            int materials = 1 + random.nextInt(3);
+            long[] stock = new long[materials];
+            for (int m = 0; m < materials; m++) {
+                stock[m] = random.nextInt(16);
+            }
+
+            BomSnapshot.Builder builder = new BomSnapshot.Builder();
+            for (int p = 0; p < products; p++) {
+                // preços inteiros pequenos: empates aparecem com frequência
+                double price = random.nextInt(21);
+                int first = random.nextInt(materials);
+                for (int m = 0; m < materials; m++) {
+                    if (m == first || random.nextBoolean()) {
+                        builder.addLine(p + 1, "P" + p, price, m + 1, stock[m], 1 + random.nextInt(4));
+                    }
+                }
+            }
+            BomSnapshot bom = builder.build();
+
+            Plan plan = planner.plan(bom, BUDGET_MS);
+            String where = "instance " + instance;
+            assertTrue(plan.optimal(), where);
+            assertFeasible(bom, plan, where);
+            assertEquals(bruteForce(bom, 0, bom.materialStock.clone()), plan.totalValue(), 1e-6, where);
+        }
+    }
+
+    @Test
+    void tiedProductsStillUseTheWholeStock() {
+        // mesmo preço e mesmo consumo: qualquer divisão de 9 unidades é ótima
+        BomSnapshot bom = new BomSnapshot.Builder()
+                .addLine(1, "A", 5.0, 1, 9, 1)
+                .addLine(2, "B", 5.0, 1, 9, 1)
+                .addLine(3, "C", 10.0, 1, 9, 2)
+                .build();
+
+        Plan plan = planner.plan(bom, BUDGET_MS);
+
+        assertTrue(plan.optimal());
+        assertFeasible(bom, plan, "tie");
+        assertEquals(45.0, plan.totalValue(), 1e-9);
+    }
+
+    @Test
+    void materialWithoutStockBlocksOnlyItsProducts() {
+        BomSnapshot bom = new BomSnapshot.Builder()
+                .addLine(1, "Blocked", 100.0, 1, 0, 1)
+                .addLine(1, "Blocked", 100.0, 2, 10, 1)
+                .addLine(2, "Free", 3.0, 2, 10, 2)
+                .build();
+
+        Plan plan = planner.plan(bom, BUDGET_MS);
+
+        assertTrue(plan.optimal());
+        assertArrayEquals(new int[] { 0, 5 }, plan.quantities());
+        assertEquals(15.0, plan.totalValue(), 1e-9);
+
+        BomSnapshot empty = new BomSnapshot.Builder()
+                .addLine(1, "Nothing", 7.0, 1, 0, 1)
+                .build();
+        Plan none = planner.plan(empty, BUDGET_MS);
+        assertTrue(none.optimal());
+        assertArrayEquals(new int[] { 0 }, none.quantities());
+        assertEquals(0.0, none.totalValue());
+    }
+
+    private static void assertFeasible(BomSnapshot bom, Plan plan, String where) {
+        long[] used = new long[bom.materialCount()];
+        double value = 0;
+        for (int p = 0; p < bom.productCount(); p++) {
+            int quantity = plan.quantities()[p];
+            assertTrue(quantity >= 0, where);
+            value += bom.unitPrices[p] * quantity;
+            for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+                used[bom.lineMaterial[l]] += (long) bom.lineConsumption[l] * quantity;
+            }
+        }
+        for (int m = 0; m < used.length; m++) {
+            assertTrue(used[m] <= bom.materialStock[m], where + ": material " + bom.materialIds[m] + " overused");
+        }
+        assertEquals(value, plan.totalValue(), 1e-6, where + ": reported value");
+    }
+
+    /** Best value of products {@code p..} by trying every quantity. */
+    private static double bruteForce(BomSnapshot bom, int p, long[] stock) {
+        if (p == bom.productCount()) {
+            return 0;
+        }
+        double best = 0;
+        for (int q = 0; q <= bom.maxCanProduce(p, stock); q++) {
+            for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+                stock[bom.lineMaterial[l]] -= (long) bom.lineConsumption[l] * q;
+            }
+            best = Math.max(best, bom.unitPrices[p] * q + bruteForce(bom, p + 1, stock));
+            for (int l = bom.lineStart[p]; l < bom.lineStart[p + 1]; l++) {
+                stock[bom.lineMaterial[l]] += (long) bom.lineConsumption[l] * q;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,69 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+
+/**
+ * {@code ?limit=} returns the head of the full ranking and
+ * {@code ?minQuantity=} drops products below that capacity.
+ */
+@QuarkusTest
+class ProductionPriorityTest {
+
+    @Test
+    void limitAndMinQuantity() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        long material = create("/raw-materials", Map.of(
+                "code", "PRI-M-" + run, "description", "Priority material " + run, "availableStock", 30));
+        long cheap = create("/products", Map.of("code", "PRI-C-" + run, "name", "Cheap " + run, "unitPrice", 1.0));
+        long dear = create("/products", Map.of("code", "PRI-D-" + run, "name", "Dear " + run, "unitPrice", 2.0));
+        // 30 / 10 = 3 e 30 / 5 = 6
+        create("/material-usage", Map.of("productId", cheap, "rawMaterialId", material, "consumptionPerUnit", 10));
+        create("/material-usage", Map.of("productId", dear, "rawMaterialId", material, "consumptionPerUnit", 5));
+
+        List<Map<String, Object>> all = priority("");
+        assertTrue(all.size() >= 2);
+        assertEquals(all.subList(0, 1), priority("?limit=1"));
+        assertEquals(all.subList(0, 2), priority("?limit=2"));
+        assertEquals(all, priority("?limit=" + (all.size() + 10)));
+
+        assertTrue(ids(priority("?minQuantity=3")).contains(cheap));
+        List<Map<String, Object>> atLeastFour = priority("?minQuantity=4");
+        assertFalse(ids(atLeastFour).contains(cheap));
+        assertTrue(ids(atLeastFour).contains(dear));
+        for (Map<String, Object> entry : atLeastFour) {
+            assertTrue(((Number) entry.get("maxQuantity")).intValue() >= 4);
+        }
+
+        given().get("/production-priority?limit=0").then().statusCode(400);
+    }
+
+    private static List<Long> ids(List<Map<String, Object>> entries) {
+        return entries.stream().map(e -> ((Number) e.get("productId")).longValue()).toList();
+    }
+
+    private static List<Map<String, Object>> priority(String query) {
+        return given().get("/production-priority" + query)
+                .then().statusCode(200)
+                .extract().jsonPath().getList("$");
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
@@ -0,0 +1,148 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+
+/**
+ * SQL statement budgets per endpoint (X-SQL-Statements header). The catalog
+ * grows between rounds; every endpoint must stay within its budget and issue
+ * the same number of statements at every size, so an N+1 fails here.
+ */
+@QuarkusTest
+@TestProfile(QueryBudgetTest.Profile.class)
+class QueryBudgetTest {
+
+    static final int FAN_OUT = 3;
+    static final int[] CATALOG_GROWTH = { 10, 100, 600 };
+
+    static final Map<String, Integer> BUDGETS = new LinkedHashMap<>();
+    static {
+        BUDGETS.put("GET /production-check", 2);
+        BUDGETS.put("GET /production-priority", 2);
+        BUDGETS.put("GET /products", 1);
+        BUDGETS.put("GET /raw-materials", 1);
+        BUDGETS.put("GET /material-usage", 1);
+        // produto + BOM/estoque + um UPDATE condicional por matéria-prima + INSERT no ledger
+        BUDGETS.put("POST /production/{id}/produce/1", 3 + FAN_OUT);
+    }
+
+    public static class Profile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            // o fast path do event loop não passa pelos filtros JAX-RS
+            return Map.of("inventory.reactive-fast-path.enabled", "false");
+        }
+    }
+
+    @Test
+    void statementCountStaysConstantAsTheCatalogGrows() {
+        Map<String, Integer> first = null;
+
+        for (int products : CATALOG_GROWTH) {
+            long productId = seed(products);
+
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            counts.put("GET /production-check", sql(given().get("/production-check")));
+            counts.put("GET /production-priority", sql(given().get("/production-priority")));
+            counts.put("GET /products", sql(given().get("/products")));
+            counts.put("GET /raw-materials", sql(given().get("/raw-materials")));
+            counts.put("GET /material-usage", sql(given().get("/material-usage")));
+            counts.put("POST /production/{id}/produce/1",
+                    sql(given().contentType(ContentType.JSON).post("/production/" + productId + "/produce/1")));
+
+            for (Map.Entry<String, Integer> e : counts.entrySet()) {
+                int budget = BUDGETS.get(e.getKey());
+                assertTrue(e.getValue() <= budget,
+                        e.getKey() + " issued " + e.getValue() + " statements (budget " + budget + ") with "
+                                + products + " more products");
+            }
+
+            if (first == null) {
+                first = counts;
+            } else {
+                assertEquals(first, counts, "statement count changed with catalog size");
+            }
+        }
+    }
+
+    private static int sql(Response response) {
+        response.then().statusCode(200);
+        String header = response.getHeader(RequestMetricsFilter.SQL_COUNT_HEADER);
+        assertTrue(header != null, "missing " + RequestMetricsFilter.SQL_COUNT_HEADER + " header");
+        return Integer.parseInt(header);
+    }
+
+    /**
+     * Adds {@code products} products with {@code FAN_OUT} BOM lines each,
+     * plus one producible product whose id is returned.
+     */
+    private static long seed(int products) {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        StringBuilder materials = new StringBuilder();
+        for (int m = 0; m < FAN_OUT * 2; m++) {
+            materials.append("{\"code\":\"QM-").append(run).append('-').append(m)
+                    .append("\",\"description\":\"Budget material ").append(run).append(' ').append(m)
+                    .append("\",\"availableStock\":1000000}\n");
+        }
+        importRows("/import/raw-materials", materials);
+
+        StringBuilder catalog = new StringBuilder();
+        StringBuilder usage = new StringBuilder();
+        for (int p = 0; p < products; p++) {
+            catalog.append("{\"code\":\"QP-").append(run).append('-').append(p)
+                    .append("\",\"name\":\"Budget product ").append(run).append(' ').append(p)
+                    .append("\",\"unitPrice\":").append(1 + p).append("}\n");
+            for (int k = 0; k < FAN_OUT; k++) {
+                usage.append("{\"productCode\":\"QP-").append(run).append('-').append(p)
+                        .append("\",\"rawMaterialCode\":\"QM-").append(run).append('-').append((p + k) % (FAN_OUT * 2))
+                        .append("\",\"consumptionPerUnit\":1}\n");
+            }
+        }
+        importRows("/import/products", catalog);
+        importRows("/import/material-usage", usage);
+
+        // produto a produzir, criado pela API para conhecer o id
+        long productId = create("/products", Map.of(
+                "code", "QX-" + run,
+                "name", "Budget produce " + run,
+                "unitPrice", 10.0));
+        for (int k = 0; k < FAN_OUT; k++) {
+            long materialId = create("/raw-materials", Map.of(
+                    "code", "QXM-" + run + "-" + k,
+                    "description", "Budget produce material " + run + " " + k,
+                    "availableStock", 1_000_000));
+            create("/material-usage", Map.of(
+                    "productId", productId,
+                    "rawMaterialId", materialId,
+                    "consumptionPerUnit", 1));
+        }
+        return productId;
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+
+    private static void importRows(String path, CharSequence ndjson) {
+        given().contentType("application/x-ndjson").body(ndjson.toString())
+                .when().post(path)
+                .then().statusCode(200);
+    }
+}
@@ -0,0 +1,122 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.acme.inventory.service.ReadRouting;
+import org.junit.jupiter.api.Test;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import jakarta.inject.Inject;
+
+/**
+ * Two H2 databases, the second standing in for a replica that is copied
+ * from the primary only when the test says so: routed GETs see the copy,
+ * a client that just wrote sees the primary, and the replica's rows carry
+ * no ETag.
+ */
+@QuarkusTest
+@TestProfile(ReadReplicaTest.Profile.class)
+class ReadReplicaTest {
+
+    public static class Profile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            // a réplica só muda quando o teste copia: lag e heartbeat fora do caminho
+            return Map.of(
+                    "inventory.read.enabled", "true",
+                    "inventory.read.max-staleness-ms", "3600000",
+                    "inventory.read.heartbeat-ms", "3600000");
+        }
+    }
+
+    @Inject
+    AgroalDataSource primary;
+
+    @Inject
+    @DataSource("read")
+    AgroalDataSource replica;
+
+    @Inject
+    ReadRouting routing;
+
+    @Test
+    void routesReadsAndKeepsWritersOnPrimary() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        String before = create("RR-A-" + run).getBody().jsonPath().getString("code");
+
+        // primeira batida no primário, copiada junto com os dados
+        routing.probe();
+        replicate();
+        routing.probe();
+        assertTrue(routing.fresh());
+
+        Response write = create("RR-B-" + run);
+        String after = write.getBody().jsonPath().getString("code");
+        String cookie = write.getCookie(ReadRoutingFilter.COOKIE);
+        assertNotNull(cookie);
+
+        // sem cookie: réplica, que ainda não tem a escrita
+        Response replicaRead = given().get("/raw-materials").then().statusCode(200).extract().response();
+        List<String> codes = replicaRead.jsonPath().getList("code");
+        assertTrue(codes.contains(before));
+        assertFalse(codes.contains(after));
+        assertNull(replicaRead.header("ETag"));
+
+        // quem escreveu lê do primário
+        List<String> own = given().cookie(ReadRoutingFilter.COOKIE, cookie).get("/raw-materials")
+                .then().statusCode(200).extract().jsonPath().getList("code");
+        assertTrue(own.contains(after));
+
+        // páginas e seleção esparsa também vão para a réplica
+        List<String> sparse = given().queryParam("fields", "code").queryParam("limit", 1000)
+                .get("/raw-materials").then().statusCode(200).extract().jsonPath().getList("code");
+        assertFalse(sparse.contains(after));
+
+        replicate();
+        assertTrue(given().get("/raw-materials").then().statusCode(200)
+                .extract().jsonPath().getList("code").contains(after));
+    }
+
+    /** Copies the primary into the replica database. */
+    private void replicate() throws Exception {
+        Path script = Files.createTempFile("inventory-replica", ".sql");
+        String file = script.toAbsolutePath().toString().replace('\\', '/');
+        try {
+            try (Connection connection = primary.getConnection(); Statement st = connection.createStatement()) {
+                st.execute("SCRIPT TO '" + file + "'");
+            }
+            try (Connection connection = replica.getConnection(); Statement st = connection.createStatement()) {
+                st.execute("DROP ALL OBJECTS");
+                st.execute("RUNSCRIPT FROM '" + file + "'");
+            }
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+
+    private static Response create(String code) {
+        return given().contentType(ContentType.JSON)
+                .body(Map.of("code", code, "description", "Replica " + code, "availableStock", 5))
+                .when().post("/raw-materials")
+                .then().statusCode(201)
+                .extract().response();
+    }
+}
@@ -0,0 +1,55 @@
+package org.acme.inventory.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.acme.inventory.api.ProductionPriorityResource.PriorityEntry;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+
+/**
+ * The hand-written PriorityEntry serializer writes the same document Jackson
+ * would derive from the record components, and it reads back into an equal
+ * record, so a renamed or added component cannot go unnoticed.
+ */
+@QuarkusTest
+class ResponseSerializersTest {
+
+    @Inject
+    ObjectMapper mapper;
+
+    @Test
+    void priorityEntryRoundTrips() throws Exception {
+        List<PriorityEntry> entries = List.of(
+                new PriorityEntry(7, "Widget \"A\"", 12.5, 40),
+                new PriorityEntry(Long.MAX_VALUE, "Ünïcode", 0.1, 0));
+
+        for (PriorityEntry entry : entries) {
+            assertRoundTrip(entry, PriorityEntry.class);
+        }
+    }
+
+    private <T> void assertRoundTrip(T value, Class<T> type) throws Exception {
+        byte[] written = mapper.writeValueAsBytes(value);
+
+        assertEquals(introspected().readTree(introspected().writeValueAsBytes(value)), mapper.readTree(written));
+        assertEquals(value, mapper.readValue(written, type));
+    }
+
+    // mesmo mapper, ignorando o @JsonSerialize: serialização derivada dos componentes
+    private ObjectMapper introspected() {
+        return mapper.copy().setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+            @Override
+            public Object findSerializer(Annotated annotated) {
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+
+/**
+ * Repeated reads are served by the second-level cache (visible at
+ * /admin/cache-stats), and neither a BOM change nor the native stock UPDATE
+ * of a produce leaves a stale entry behind.
+ */
+@QuarkusTest
+class SecondLevelCacheTest {
+
+    static final String BOM_REGION = "org.acme.inventory.domain.Product.materialUsages";
+    static final String MATERIAL_REGION = "org.acme.inventory.domain.RawMaterial";
+
+    @Test
+    void bomCollectionIsCachedUntilTheBomChanges() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        long first = create("/raw-materials", Map.of(
+                "code", "L2-RM1-" + run, "description", "Cached material 1 " + run, "availableStock", 10));
+        long second = create("/raw-materials", Map.of(
+                "code", "L2-RM2-" + run, "description", "Cached material 2 " + run, "availableStock", 10));
+        long product = create("/products", Map.of(
+                "code", "L2-P-" + run, "name", "Cached product " + run, "unitPrice", 1.0));
+        create("/material-usage", Map.of("productId", product, "rawMaterialId", first, "consumptionPerUnit", 1));
+
+        assertEquals(1, lines(product));
+        long hits = hits(BOM_REGION);
+        assertEquals(1, lines(product));
+        assertTrue(hits(BOM_REGION) > hits, "second BOM read missed the cache");
+
+        // a linha nova precisa aparecer: a coleção do produto foi removida do cache
+        create("/material-usage", Map.of("productId", product, "rawMaterialId", second, "consumptionPerUnit", 2));
+        assertEquals(2, lines(product));
+    }
+
+    @Test
+    void produceEvictsTheCachedStock() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        long material = create("/raw-materials", Map.of(
+                "code", "L2-SM-" + run, "description", "Stock material " + run, "availableStock", 10));
+        long product = create("/products", Map.of(
+                "code", "L2-SP-" + run, "name", "Stock product " + run, "unitPrice", 1.0));
+        create("/material-usage", Map.of("productId", product, "rawMaterialId", material, "consumptionPerUnit", 1));
+
+        assertEquals(10, stock(material));
+        long hits = hits(MATERIAL_REGION);
+        assertEquals(10, stock(material));
+        assertTrue(hits(MATERIAL_REGION) > hits, "second raw material read missed the cache");
+
+        // o UPDATE condicional é SQL nativo: sem a remoção o cache ainda diria 10
+        given().contentType(ContentType.JSON).post("/production/" + product + "/produce/3").then().statusCode(200);
+        assertEquals(7, stock(material));
+    }
+
+    private static int lines(long productId) {
+        return given().get("/products/" + productId + "/material-usage")
+                .then().statusCode(200)
+                .extract().jsonPath().getList("").size();
+    }
+
+    private static int stock(long materialId) {
+        return given().get("/raw-materials/" + materialId)
+                .then().statusCode(200)
+                .extract().jsonPath().getInt("availableStock");
+    }
+
+    private static long hits(String region) {
+        return given().get("/admin/cache-stats")
+                .then().statusCode(200)
+                .extract().jsonPath().getLong("find { it.region == '" + region + "' }.hits");
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
@@ -0,0 +1,78 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import org.acme.inventory.service.StockLedger;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Switching back from the ledger write mode: snapshot plus the movements
+ * after it end up in raw_material, also for a read model the background
+ * writer never refreshed, and the snapshots are gone.
+ */
+@QuarkusTest
+class StockLedgerFoldTest {
+
+    @Inject
+    StockLedger ledger;
+
+    @Inject
+    EntityManager em;
+
+    @Test
+    void foldWritesSnapshotPlusTail() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        long material = create("/raw-materials", Map.of(
+                "code", "FD-RM-" + run, "description", "Fold material " + run, "availableStock", 10));
+        assertEquals(10, stock(material));
+
+        // o que o modo ledger deixou: snapshot do saldo 10 e dois movimentos depois dele
+        QuarkusTransaction.requiringNew().run(() -> {
+            em.createNativeQuery("insert into stock_snapshot (rawMaterialId, balance, lastMovementId, takenAt)"
+                    + " select ?1, 10, coalesce(max(id), 0), ?2 from stock_movement where rawMaterialId = ?1")
+                    .setParameter(1, material)
+                    .setParameter(2, Timestamp.from(Instant.now()))
+                    .executeUpdate();
+            for (int quantity : new int[] { -3, 5 }) {
+                em.createNativeQuery("insert into stock_movement (rawMaterialId, type, quantity, reference, createdAt)"
+                        + " values (?1, 'ADJUSTMENT', ?2, 'fold test', ?3)")
+                        .setParameter(1, material)
+                        .setParameter(2, quantity)
+                        .setParameter(3, Timestamp.from(Instant.now()))
+                        .executeUpdate();
+            }
+        });
+
+        assertEquals(1, ledger.fold());
+        assertEquals(12, stock(material));
+        assertEquals(0L, QuarkusTransaction.requiringNew().call(() -> em
+                .createQuery("select count(s) from StockSnapshot s", Long.class)
+                .getSingleResult()));
+        assertEquals(0, ledger.fold());
+    }
+
+    private static int stock(long materialId) {
+        return given().get("/raw-materials/" + materialId)
+                .then().statusCode(200)
+                .extract().jsonPath().getInt("availableStock");
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
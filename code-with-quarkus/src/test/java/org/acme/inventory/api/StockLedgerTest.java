@@ -0,0 +1,115 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+
+/**
+ * Ledger write mode: concurrent producers only insert movements, the
+ * in-memory projection still never oversells, every change is in the
+ * history and raw_material catches up after commit.
+ */
+@QuarkusTest
+@TestProfile(StockLedgerTest.Profile.class)
+class StockLedgerTest {
+
+    public static class Profile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "inventory.stock.write-mode", "ledger",
+                    "inventory.stock.snapshot-interval-ms", "200");
+        }
+    }
+
+    @Test
+    void producersOnlyAppend() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        long material = create("/raw-materials", Map.of(
+                "code", "LG-RM-" + run, "description", "Ledger material " + run, "availableStock", 10));
+        long product = create("/products", Map.of(
+                "code", "LG-P-" + run, "name", "Ledger product " + run, "unitPrice", 1.0));
+        create("/material-usage", Map.of("productId", product, "rawMaterialId", material, "consumptionPerUnit", 1));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> calls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            calls.add(pool.submit(() -> given().contentType(ContentType.JSON)
+                    .post("/production/" + product + "/produce/1")
+                    .statusCode()));
+        }
+        int produced = 0;
+        for (Future<Integer> call : calls) {
+            produced += call.get() == 200 ? 1 : 0;
+        }
+        pool.shutdown();
+        assertEquals(10, produced);
+
+        given().contentType(ContentType.JSON)
+                .body(Map.of("availableStock", 7))
+                .put("/raw-materials/" + material)
+                .then().statusCode(200);
+
+        JsonPath movements = given().get("/raw-materials/" + material + "/movements")
+                .then().statusCode(200)
+                .extract().jsonPath();
+        assertEquals(12, movements.getList("").size());
+        assertEquals("RECEIPT", movements.getString("[0].type"));
+        assertEquals(7, movements.getList("quantity", Integer.class).stream().mapToInt(Integer::intValue).sum());
+
+        // raw_material é atualizado em segundo plano depois do commit
+        long deadline = System.currentTimeMillis() + 5_000;
+        int stock;
+        do {
+            Thread.sleep(50);
+            stock = given().get("/raw-materials/" + material).then().statusCode(200)
+                    .extract().jsonPath().getInt("availableStock");
+        } while (stock != 7 && System.currentTimeMillis() < deadline);
+        assertEquals(7, stock);
+    }
+
+    @Test
+    void shortageReportsTheProjection() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        long material = create("/raw-materials", Map.of(
+                "code", "LG-SRM-" + run, "description", "Ledger shortage " + run, "availableStock", 10));
+        long product = create("/products", Map.of(
+                "code", "LG-SP-" + run, "name", "Ledger shortage product " + run, "unitPrice", 1.0));
+        create("/material-usage", Map.of("productId", product, "rawMaterialId", material, "consumptionPerUnit", 1));
+
+        given().contentType(ContentType.JSON).post("/production/" + product + "/produce/4").then().statusCode(200);
+
+        // raw_material pode ainda dizer 10: a resposta vem da projeção
+        given().contentType(ContentType.JSON)
+                .post("/production/" + product + "/produce/7")
+                .then().statusCode(400)
+                .body("error", is("INSUFFICIENT_STOCK"))
+                .body("available", is(6))
+                .body("missing", is(1));
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
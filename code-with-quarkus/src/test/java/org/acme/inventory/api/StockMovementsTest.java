@@ -0,0 +1,106 @@
+package org.acme.inventory.api;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+
+/**
+ * Produces, stock edits and description-only edits on one material run
+ * concurrently; afterwards the movement history still sums to the stored
+ * stock.
+ */
+@QuarkusTest
+class StockMovementsTest {
+
+    @Test
+    void stockEditsKeepTheLedgerInStep() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        long material = create("/raw-materials", Map.of(
+                "code", "MV-RM-" + run, "description", "Movement material " + run, "availableStock", 1_000));
+        long product = create("/products", Map.of(
+                "code", "MV-P-" + run, "name", "Movement product " + run, "unitPrice", 1.0));
+        create("/material-usage", Map.of("productId", product, "rawMaterialId", material, "consumptionPerUnit", 1));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < 6; t++) {
+            tasks.add(() -> {
+                for (int i = 0; i < 30; i++) {
+                    given().contentType(ContentType.JSON)
+                            .post("/production/" + product + "/produce/1")
+                            .then().statusCode(200);
+                }
+                return null;
+            });
+        }
+        for (int t = 0; t < 2; t++) {
+            int editor = t;
+            tasks.add(() -> {
+                for (int i = 0; i < 10; i++) {
+                    // ajuste de estoque e edição só de descrição, intercalados com a produção
+                    Map<String, Object> body = i % 2 == 0
+                            ? Map.of("availableStock", 900)
+                            : Map.of("description", "Movement " + run + " " + editor + "-" + i);
+                    given().contentType(ContentType.JSON).body(body)
+                            .put("/raw-materials/" + material)
+                            .then().statusCode(200);
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        // auditoria: a soma do histórico é o estoque da linha
+        assertEquals(stock(material), movementSum(material));
+    }
+
+    private static long movementSum(long materialId) {
+        long sum = 0;
+        long after = 0;
+        List<Map<String, Object>> page;
+        do {
+            page = given().queryParam("after", after).queryParam("limit", ListQuery.MAX_LIMIT)
+                    .get("/raw-materials/" + materialId + "/movements")
+                    .then().statusCode(200)
+                    .extract().jsonPath().getList("");
+            for (Map<String, Object> movement : page) {
+                sum += ((Number) movement.get("quantity")).longValue();
+                after = ((Number) movement.get("id")).longValue();
+            }
+        } while (!page.isEmpty());
+        return sum;
+    }
+
+    private static long stock(long materialId) {
+        return given().get("/raw-materials/" + materialId)
+                .then().statusCode(200)
+                .extract().jsonPath().getLong("availableStock");
+    }
+
+    private static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
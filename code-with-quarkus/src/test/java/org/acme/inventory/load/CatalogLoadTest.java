@@ -0,0 +1,125 @@
+package org.acme.inventory.load;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+
+/**
+ * Self-contained load suite (H2 test profile): seeds a synthetic catalog
+ * through /import, drives a mix of production, CRUD and list calls and
+ * checks the per-endpoint p99/throughput against
+ * {@code load-baseline.properties}. Run with {@code mvn test -Pload}.
+ *
+ * Knobs: {@code load.products}, {@code load.materials}, {@code load.fan-out},
+ * {@code load.concurrency}, {@code load.warmup-seconds},
+ * {@code load.duration-seconds}, {@code load.tolerance},
+ * {@code load.update-baseline}.
+ */
+@QuarkusTest
+@EnabledIfSystemProperty(named = "load.suite", matches = "true")
+class CatalogLoadTest {
+
+    static final int PRODUCTS = Integer.getInteger("load.products", 500);
+    static final int MATERIALS = Integer.getInteger("load.materials", 100);
+    static final int FAN_OUT = Integer.getInteger("load.fan-out", 4);
+    static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+    static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 5));
+    static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.duration-seconds", 20));
+    static final double TOLERANCE = Double.parseDouble(System.getProperty("load.tolerance", "0.25"));
+
+    static final int RESTOCK = 1_000_000_000;
+
+    private static final Logger LOG = Logger.getLogger(CatalogLoadTest.class);
+
+    @TestHTTPResource("/")
+    URL baseUrl;
+
+    @Test
+    void mixedLoadStaysWithinBaseline() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        seed(run);
+
+        long productId = given().get("/production-check").then().statusCode(200)
+                .extract().jsonPath().getLong("productId[0]");
+        long materialId = given().get("/raw-materials?fields=id&limit=1").then().statusCode(200)
+                .extract().jsonPath().getLong("id[0]");
+
+        List<HttpLoadDriver.Request> mix = List.of(
+                HttpLoadDriver.Request.get("production-check", "production-check", 30),
+                HttpLoadDriver.Request.get("production-priority", "production-priority", 10),
+                HttpLoadDriver.Request.get("list-products", "products?limit=100", 15),
+                HttpLoadDriver.Request.get("list-raw-materials", "raw-materials?limit=100", 10),
+                HttpLoadDriver.Request.get("list-material-usage", "material-usage?limit=100", 10),
+                HttpLoadDriver.Request.get("get-product", "products/" + productId, 10),
+                HttpLoadDriver.Request.post("create-product", "products",
+                        "{\"code\":\"LC-" + run + "-" + HttpLoadDriver.SEQ + "\",\"name\":\"Load create " + run
+                                + " " + HttpLoadDriver.SEQ + "\",\"unitPrice\":10.0}", 5),
+                HttpLoadDriver.Request.put("update-stock", "raw-materials/" + materialId,
+                        "{\"availableStock\":" + RESTOCK + "}", 5),
+                HttpLoadDriver.Request.post("produce", "production/" + productId + "/produce/1", null, 5));
+
+        Map<String, HttpLoadDriver.Stats> stats = new HttpLoadDriver(baseUrl.toURI())
+                .run(mix, CONCURRENCY, WARMUP, DURATION);
+
+        String report = "catalog load (" + PRODUCTS + " products, " + MATERIALS + " materials, fan-out "
+                + FAN_OUT + ", concurrency " + CONCURRENCY + ")\n" + HttpLoadDriver.format(stats);
+        LOG.info(report);
+
+        if (Boolean.getBoolean("load.update-baseline")) {
+            Path file = Path.of("target", "load-baseline.properties");
+            LoadBaseline.write(file, stats);
+            LOG.infof("Load baseline written to %s", file.toAbsolutePath());
+            return;
+        }
+
+        List<String> regressions = LoadBaseline.load("load-baseline.properties").regressions(stats, TOLERANCE);
+        assertTrue(regressions.isEmpty(), "Load regressions in " + report + "\n" + String.join("\n", regressions));
+    }
+
+    private static void seed(String run) {
+        StringBuilder materials = new StringBuilder();
+        for (int m = 0; m < MATERIALS; m++) {
+            materials.append("{\"code\":\"LM-").append(run).append('-').append(m)
+                    .append("\",\"description\":\"Load material ").append(run).append(' ').append(m)
+                    .append("\",\"availableStock\":").append(RESTOCK).append("}\n");
+        }
+        importRows("/import/raw-materials", materials, MATERIALS);
+
+        StringBuilder products = new StringBuilder();
+        StringBuilder usage = new StringBuilder();
+        for (int p = 0; p < PRODUCTS; p++) {
+            products.append("{\"code\":\"LP-").append(run).append('-').append(p)
+                    .append("\",\"name\":\"Load product ").append(run).append(' ').append(p)
+                    .append("\",\"unitPrice\":").append(10 + p % 90).append("}\n");
+            for (int k = 0; k < FAN_OUT; k++) {
+                usage.append("{\"productCode\":\"LP-").append(run).append('-').append(p)
+                        .append("\",\"rawMaterialCode\":\"LM-").append(run).append('-')
+                        .append((p + k * 7) % MATERIALS)
+                        .append("\",\"consumptionPerUnit\":").append(1 + k % 3).append("}\n");
+            }
+        }
+        importRows("/import/products", products, PRODUCTS);
+        importRows("/import/material-usage", usage, PRODUCTS * FAN_OUT);
+    }
+
+    private static void importRows(String path, CharSequence ndjson, int expected) {
+        int imported = given().contentType("application/x-ndjson").body(ndjson.toString())
+                .when().post(path)
+                .then().statusCode(200)
+                .extract().jsonPath().getInt("imported");
+        assertTrue(imported == expected, path + ": imported " + imported + " of " + expected);
+    }
+}
@@ -0,0 +1,97 @@
+package org.acme.inventory.load;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.restassured.http.ContentType;
+
+/**
+ * Latency/throughput comparison of the REST execution modes. Each subclass
+ * boots the application with a different profile and drives the same
+ * read-heavy mix; run with {@code -Dload.compare=true} and compare the logged
+ * p50/p99 and req/s lines.
+ */
+@EnabledIfSystemProperty(named = "load.compare", matches = "true")
+abstract class ExecutionModeLoadTest {
+
+    static final int CONCURRENCY = Integer.getInteger("load.concurrency", 64);
+    static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 5));
+    static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.duration-seconds", 20));
+
+    private static final Logger LOG = Logger.getLogger(ExecutionModeLoadTest.class);
+
+    @TestHTTPResource("/")
+    URL baseUrl;
+
+    abstract String mode();
+
+    @Test
+    void compare() throws Exception {
+        long productId = seed(50, 20);
+
+        List<HttpLoadDriver.Request> mix = List.of(
+                HttpLoadDriver.Request.get("GET /production-check", "production-check", 40),
+                HttpLoadDriver.Request.get("GET /production-priority", "production-priority", 20),
+                HttpLoadDriver.Request.get("GET /products", "products", 20),
+                HttpLoadDriver.Request.get("GET /raw-materials", "raw-materials", 15),
+                HttpLoadDriver.Request.post("POST produce", "production/" + productId + "/produce/1", null, 5));
+
+        Map<String, HttpLoadDriver.Stats> stats = new HttpLoadDriver(baseUrl.toURI())
+                .run(mix, CONCURRENCY, WARMUP, DURATION);
+
+        String report = HttpLoadDriver.format(stats);
+        LOG.infof("execution mode: %s (concurrency %d)%n%s", mode(), CONCURRENCY, report);
+        assertTrue(stats.values().stream().allMatch(s -> s.errors() == 0),
+                "failed requests in " + mode() + ":\n" + report);
+    }
+
+    /** Seeds a small catalog; returns one producible product id. */
+    static long seed(int products, int materials) {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        List<Long> materialIds = new ArrayList<>();
+        for (int m = 0; m < materials; m++) {
+            materialIds.add(create("/raw-materials", Map.of(
+                    "code", "LRM-" + run + "-" + m,
+                    "description", "Load material " + run + " " + m,
+                    "availableStock", 1_000_000)));
+        }
+
+        long first = -1;
+        for (int p = 0; p < products; p++) {
+            long productId = create("/products", Map.of(
+                    "code", "LP-" + run + "-" + p,
+                    "name", "Load product " + run + " " + p,
+                    "unitPrice", 10.0 + p));
+            if (first < 0) {
+                first = productId;
+            }
+            for (int k = 0; k < 3; k++) {
+                create("/material-usage", Map.of(
+                        "productId", productId,
+                        "rawMaterialId", materialIds.get((p + k * 7) % materials),
+                        "consumptionPerUnit", 1 + k));
+            }
+        }
+        return first;
+    }
+
+    static long create(String path, Map<String, Object> body) {
+        return given().contentType(ContentType.JSON).body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
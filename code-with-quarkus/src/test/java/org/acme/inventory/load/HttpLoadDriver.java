@@ -0,0 +1,216 @@
+package org.acme.inventory.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop in-JVM HTTP load generator: {@code concurrency} clients each
+ * pick a weighted request from the mix, wait for the answer and repeat until
+ * the duration ends. Latencies are kept per request name.
+ *
+ * {@value #SEQ} in a path or body is replaced by a run-wide sequence number,
+ * so creates do not collide on unique columns.
+ */
+public final class HttpLoadDriver {
+
+    public static final String SEQ = "${seq}";
+
+    /** One entry of the request mix; {@code body} is JSON or {@code null}. */
+    public record Request(String name, String method, String path, String body, int weight) {
+
+        public static Request get(String name, String path, int weight) {
+            return new Request(name, "GET", path, null, weight);
+        }
+
+        public static Request post(String name, String path, String body, int weight) {
+            return new Request(name, "POST", path, body, weight);
+        }
+
+        public static Request put(String name, String path, String body, int weight) {
+            return new Request(name, "PUT", path, body, weight);
+        }
+    }
+
+    public record Stats(String name, long requests, long errors, double throughput,
+                        long p50Micros, long p99Micros, long maxMicros) {
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %8d req %6d err %9.1f req/s  p50 %7d us  p99 %8d us  max %8d us",
+                    name, requests, errors, throughput, p50Micros, p99Micros, maxMicros);
+        }
+    }
+
+    /** One line per endpoint, for the test log and assertion messages. */
+    public static String format(Map<String, Stats> stats) {
+        StringBuilder out = new StringBuilder();
+        for (Stats s : stats.values()) {
+            out.append(s).append('\n');
+        }
+        return out.toString();
+    }
+
+    private final URI base;
+    private final HttpClient client;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public HttpLoadDriver(URI base) {
+        this.base = base;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Runs the mix and returns one {@link Stats} per request name plus a
+     * {@code "TOTAL"} entry.
+     */
+    public Map<String, Stats> run(List<Request> mix, int concurrency, Duration warmup, Duration duration)
+            throws Exception {
+
+        if (!warmup.isZero()) {
+            drive(mix, concurrency, warmup);
+        }
+        long start = System.nanoTime();
+        List<Recorder> recorders = drive(mix, concurrency, duration);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        Recorder total = new Recorder(mix.size());
+        for (int r = 0; r < mix.size(); r++) {
+            Recorder merged = new Recorder(1);
+            for (Recorder recorder : recorders) {
+                merged.merge(0, recorder, r);
+                total.merge(0, recorder, r);
+            }
+            stats.put(mix.get(r).name(), merged.stats(mix.get(r).name(), 0, seconds));
+        }
+        stats.put("TOTAL", total.stats("TOTAL", 0, seconds));
+        return stats;
+    }
+
+    private List<Recorder> drive(List<Request> mix, int concurrency, Duration duration) throws Exception {
+        int totalWeight = mix.stream().mapToInt(Request::weight).sum();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<Recorder>> futures = new ArrayList<>();
+            for (int c = 0; c < concurrency; c++) {
+                futures.add(pool.submit(() -> {
+                    Recorder recorder = new Recorder(mix.size());
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                    while (System.nanoTime() < deadline) {
+                        int r = pick(mix, random.nextInt(totalWeight));
+                        long t0 = System.nanoTime();
+                        boolean ok = send(mix.get(r));
+                        recorder.record(r, (System.nanoTime() - t0) / 1_000, ok);
+                    }
+                    return recorder;
+                }));
+            }
+
+            List<Recorder> recorders = new ArrayList<>();
+            for (Future<Recorder> future : futures) {
+                recorders.add(future.get());
+            }
+            return recorders;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static int pick(List<Request> mix, int ticket) {
+        for (int r = 0; r < mix.size(); r++) {
+            ticket -= mix.get(r).weight();
+            if (ticket < 0) {
+                return r;
+            }
+        }
+        return mix.size() - 1;
+    }
+
+    private boolean send(Request request) {
+        String seq = Long.toString(sequence.incrementAndGet());
+        HttpRequest.Builder builder = HttpRequest.newBuilder(base.resolve(request.path().replace(SEQ, seq)))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json");
+
+        if (request.body() != null) {
+            builder.header("Content-Type", "application/json")
+                    .method(request.method(), HttpRequest.BodyPublishers.ofString(request.body().replace(SEQ, seq)));
+        } else {
+            builder.method(request.method(), HttpRequest.BodyPublishers.noBody());
+        }
+
+        try {
+            HttpResponse<Void> response = client.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+            // 4xx de negócio (ex.: estoque insuficiente) não é erro de carga
+            return response.statusCode() < 500;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /** Per-thread latency buffer (microseconds), one slot per request of the mix. */
+    private static final class Recorder {
+
+        private final long[][] latencies;
+        private final int[] counts;
+        private final long[] errors;
+
+        Recorder(int slots) {
+            latencies = new long[slots][1024];
+            counts = new int[slots];
+            errors = new long[slots];
+        }
+
+        void record(int slot, long micros, boolean ok) {
+            if (counts[slot] == latencies[slot].length) {
+                latencies[slot] = Arrays.copyOf(latencies[slot], counts[slot] * 2);
+            }
+            latencies[slot][counts[slot]++] = micros;
+            if (!ok) {
+                errors[slot]++;
+            }
+        }
+
+        void merge(int slot, Recorder other, int otherSlot) {
+            for (int i = 0; i < other.counts[otherSlot]; i++) {
+                record(slot, other.latencies[otherSlot][i], true);
+            }
+            errors[slot] += other.errors[otherSlot];
+        }
+
+        Stats stats(String name, int slot, double seconds) {
+            long[] sorted = Arrays.copyOf(latencies[slot], counts[slot]);
+            Arrays.sort(sorted);
+            return new Stats(name, sorted.length, errors[slot], sorted.length / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99),
+                    sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
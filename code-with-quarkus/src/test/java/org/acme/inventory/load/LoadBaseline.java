@@ -0,0 +1,87 @@
+package org.acme.inventory.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Stored per-endpoint results ({@code <name>.p99Micros},
+ * {@code <name>.throughput}) and the regression check against them.
+ * A missing file or an endpoint without both values fails the run, so the
+ * gate cannot pass silently.
+ */
+final class LoadBaseline {
+
+    private final Properties values;
+
+    private LoadBaseline(Properties values) {
+        this.values = values;
+    }
+
+    /** @throws IllegalStateException if the resource is missing or has no values */
+    static LoadBaseline load(String resource) throws IOException {
+        Properties values = new Properties();
+        try (InputStream in = LoadBaseline.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Load baseline " + resource + " not found on the test classpath");
+            }
+            values.load(in);
+        }
+        if (values.isEmpty()) {
+            throw new IllegalStateException("Load baseline " + resource + " has no values");
+        }
+        return new LoadBaseline(values);
+    }
+
+    /**
+     * @param tolerance allowed relative regression, e.g. 0.25 lets p99 grow
+     *                  and throughput drop by 25%
+     * @return one message per regression; empty when the run is acceptable
+     */
+    List<String> regressions(Map<String, HttpLoadDriver.Stats> stats, double tolerance) {
+        List<String> failures = new ArrayList<>();
+
+        for (HttpLoadDriver.Stats s : stats.values()) {
+            if (s.errors() > 0) {
+                failures.add(s.name() + ": " + s.errors() + " failed requests");
+            }
+
+            String p99 = values.getProperty(s.name() + ".p99Micros");
+            String throughput = values.getProperty(s.name() + ".throughput");
+            if (p99 == null || throughput == null) {
+                failures.add(s.name() + ": no baseline (p99Micros and throughput required)");
+                continue;
+            }
+
+            if (s.p99Micros() > Long.parseLong(p99) * (1 + tolerance)) {
+                failures.add(String.format("%s: p99 %d us > baseline %s us (+%.0f%%)",
+                        s.name(), s.p99Micros(), p99, tolerance * 100));
+            }
+
+            if (s.throughput() < Double.parseDouble(throughput) * (1 - tolerance)) {
+                failures.add(String.format("%s: %.1f req/s < baseline %s req/s (-%.0f%%)",
+                        s.name(), s.throughput(), throughput, tolerance * 100));
+            }
+        }
+
+        return failures;
+    }
+
+    /** Writes the run in baseline format, to be copied over the stored file. */
+    static void write(Path file, Map<String, HttpLoadDriver.Stats> stats) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (Writer out = Files.newBufferedWriter(file)) {
+            for (HttpLoadDriver.Stats s : stats.values()) {
+                out.write(s.name() + ".p99Micros=" + s.p99Micros() + "\n");
+                out.write(s.name() + ".throughput=" + String.format(Locale.ROOT, "%.1f", s.throughput()) + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.acme.inventory.load;
+
+import java.util.Map;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+
+@QuarkusTest
+@TestProfile(VirtualThreadsFastPathLoadTest.Profile.class)
+class VirtualThreadsFastPathLoadTest extends ExecutionModeLoadTest {
+
+    @Override
+    String mode() {
+        return "virtual threads + event-loop fast path";
+    }
+
+    public static class Profile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("quarkus.virtual-threads.enabled", "true",
+                    "inventory.reactive-fast-path.enabled", "true");
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.acme.inventory.load;
+
+import java.util.Map;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+
+@QuarkusTest
+@TestProfile(WorkerThreadsLoadTest.Profile.class)
+class WorkerThreadsLoadTest extends ExecutionModeLoadTest {
+
+    @Override
+    String mode() {
+        return "worker threads";
+    }
+
+    public static class Profile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("quarkus.virtual-threads.enabled", "false",
+                    "inventory.reactive-fast-path.enabled", "false");
+        }
+    }
+}